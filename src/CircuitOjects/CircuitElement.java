@@ -3,7 +3,9 @@ package CircuitOjects;
 public class CircuitElement {
     protected String name;
     protected String positiveNode, negativeNode;
+    protected int positiveIndex = -1, negativeIndex = -1;   // node IDs set by the circuit, -1 is ground
     protected double value;
+    private int hash;   // hash of the name, the name never changes
 
     /**
      * This is the base constructor used by all other public constructors
@@ -14,6 +16,7 @@ public class CircuitElement {
      */
     private CircuitElement (String name, String positiveNode, String negativeNode) {
         this.name = name;
+        this.hash = hash(name);
         this.positiveNode = positiveNode;
         this.negativeNode = negativeNode;
     }
@@ -24,11 +27,11 @@ public class CircuitElement {
      * @param name          name of the element.
      * @param positiveNode  name of the positive node.
      * @param negativeNode  name of the negative node.
-     * @param value         value of the element as String with or without metric prefixes
+     * @param value         value of the element as String with or without metric prefixes, NaN if it is not valid.
      */
     public CircuitElement (String name, String positiveNode, String negativeNode, String value) {
         this(name, positiveNode, negativeNode);
-        this.value = StringToDoubleConverter(value);
+        this.value = ValueParser.parse(value);
     }
 
     /**
@@ -44,93 +47,15 @@ public class CircuitElement {
         this.value = value;
     }
 
-    /**
-     * This method is only going to be used by one of the constructor that accepts value of the circuit component as String.
-     * This method converts value passed in as String to Double type.
-     *
-     * @param v value in String format
-     * @return  Returns value in Double if the String value is either numeric or follows the format of numeric value followed by a valid SI unit prefix.
-     */
-    private double StringToDoubleConverter(String v) {
-        if(isNumeric(v)) {
-            return Double.valueOf(v);
-        }
-
-        double tempValue;
-        try {
-            tempValue = Double.valueOf(v.substring(0, v.length() - 1));
-        } catch (NumberFormatException e) {
-            return Double.NaN;
-        }
-
-        char unit = v.charAt(v.length() - 1);
-        switch (unit) {
-            case 'k':
-                tempValue *= 1000;
-                break;
-
-            case 'M':
-                tempValue *= 1E6;
-                break;
-
-            case 'G':
-                tempValue *= 1E9;
-                break;
-
-            case 'T':
-                tempValue *= 1E12;
-                break;
-
-            case 'P':
-                tempValue *= 1E15;
-                break;
-
-            case 'm':
-                tempValue *= 1E-3;
-                break;
-
-            case 'u':
-                tempValue *= 1E-6;
-                break;
-
-            case 'n':
-                tempValue *= 1E-9;
-                break;
-
-            case 'p':
-                tempValue *= 1E-12;
-                break;
-
-            case 'f':
-                tempValue *= 1E-15;
-                break;
-
-            default:
-                tempValue = Double.NaN;
-                break;
-        }
-        return tempValue;
-    }
-
-    /**
-     * This function test if a string is numeric or not.
-     * @param str this is the string to be tested.
-     * @return returns true if str is a number. Otherwise, false.
-     */
-    private boolean isNumeric(String str) {
-        try {
-            double v = Double.parseDouble(str);
-        } catch (NumberFormatException e) {
-            return false;
-        }
-        return true;
-    }
-
     @Override
     public int hashCode() {
+        return hash;
+    }
+
+    private static int hash(String name) {
         int hash = 7;
-        for (int i = 0; i < this.name.length(); i++) {
-            hash = hash * 31 + this.name.charAt(i);
+        for (int i = 0; name != null && i < name.length(); i++) {
+            hash = hash * 31 + name.charAt(i);
         }
         return hash;
     }
@@ -151,7 +76,7 @@ public class CircuitElement {
         }
 
         CircuitElement c = (CircuitElement) obj;
-        return c.getName().compareTo(this.name) == 0;
+        return c.hash == hash && c.getName().compareTo(this.name) == 0;
     }
 
     @Override
@@ -171,7 +96,41 @@ public class CircuitElement {
         return negativeNode;
     }
 
+    /**
+     * Sets the node IDs of both terminals. These are the rows of the nodes in the MNA matrix, so stamping does not need
+     * to look up node names.
+     *
+     * @param positiveIndex ID of the positive node, -1 for ground.
+     * @param negativeIndex ID of the negative node, -1 for ground.
+     */
+    public void setNodeIndices(int positiveIndex, int negativeIndex) {
+        this.positiveIndex = positiveIndex;
+        this.negativeIndex = negativeIndex;
+    }
+
+    public int getPositiveIndex() {
+        return positiveIndex;
+    }
+
+    public int getNegativeIndex() {
+        return negativeIndex;
+    }
+
     public double getValue() {
         return value;
     }
+
+    /**
+     * Changes the value of the element. The nodes stay the same, so the topology of the circuit does not change.
+     *
+     * @param value     new value of the element.
+     * @return          Returns true if the value is changed. Otherwise, returns false.
+     */
+    public boolean setValue(double value) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        this.value = value;
+        return true;
+    }
 }
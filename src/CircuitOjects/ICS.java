@@ -5,7 +5,6 @@ import java.util.logging.Logger;
 
 public class ICS extends CircuitElement {
     private Logger icsLogger;
-    private boolean stamped;
 
     /**
      * This constructor accepts value as String with or without metric prefix.
@@ -17,7 +16,6 @@ public class ICS extends CircuitElement {
      */
     public ICS (String name, String positiveNode, String negativeNode, String value) {
         super(name, positiveNode, negativeNode, value);
-        stamped = false;
         icsLogger = Logger.getLogger(ICS.class.getName());
     }
 
@@ -31,7 +29,6 @@ public class ICS extends CircuitElement {
      */
     public ICS(String name, String positiveNode, String negativeNode, double value) {
         super(name, positiveNode, negativeNode, value);
-        stamped = false;
         icsLogger = Logger.getLogger(ICS.class.getName());
     }
 
@@ -50,11 +47,6 @@ public class ICS extends CircuitElement {
      * @return              Returns true if stamped successefully. Otherwise, returns false.
      */
     public boolean stamp(int positiveNode, int negativeNode, double value, double[] vectorB) {
-        if (stamped) {
-            icsLogger.log(Level.INFO, name + " is already stamped!");
-            return false;
-        }
-
         if (Double.isNaN(value) || vectorB.length < 1) {
             icsLogger.log(Level.INFO, name + "'s stamp method has issues. It's either because value is NaN OR vector B length is less than 1!");
             return false;
@@ -62,18 +54,15 @@ public class ICS extends CircuitElement {
 
         if (negativeNode == -1 && withinBound(positiveNode, vectorB)) {
             vectorB[positiveNode] -= value;
-            stamped = true;
             return true;
         }
         else if (positiveNode == -1 && withinBound(negativeNode, vectorB)) {
             vectorB[negativeNode] += value;
-            stamped = true;
             return true;
         }
         else if (withinBound(positiveNode, vectorB) && withinBound(negativeNode, vectorB)) {
             vectorB[positiveNode] -= value;
             vectorB[negativeNode] += value;
-            stamped = true;
             return true;
         }
         icsLogger.log(Level.INFO, name + "'s stamp method has issues. It's either node position OutOfBound or other issues!");
@@ -94,8 +83,4 @@ public class ICS extends CircuitElement {
         icsLogger.log(Level.INFO, name + "'s private withinBound(int, double[]) method returned false. Node: " + node);
         return false;
     }
-
-    public boolean isStamped() {
-        return stamped;
-    }
 }
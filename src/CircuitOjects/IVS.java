@@ -4,7 +4,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class IVS extends CircuitElement {
-    private boolean stamped;
+    private int branchIndex = -1;   // position in the voltage source list, set by the circuit
     private Logger ivsLogger;
 
     /**
@@ -17,7 +17,6 @@ public class IVS extends CircuitElement {
      */
     public IVS (String name, String positiveNode, String negativeNode, String value) {
         super(name, positiveNode, negativeNode, value);
-        stamped = false;
         ivsLogger = Logger.getLogger(IVS.class.getName());
     }
 
@@ -30,7 +29,6 @@ public class IVS extends CircuitElement {
      */
     public IVS (String name, String positiveNode, String negativeNode, double value){
         super(name, positiveNode, negativeNode, value);
-        stamped = false;
         ivsLogger = Logger.getLogger(IVS.class.getName());
     }
 
@@ -52,10 +50,6 @@ public class IVS extends CircuitElement {
      * @return              Returns true if stamped successfully. Otherwise, returns false.
      */
     public boolean stamp (int positiveNode, int negativeNode, int branchK, double value, double[][] matrixA, double[] vectorB) {
-        if(stamped){
-            ivsLogger.log(Level.INFO, name + " is already stamped!");
-            return false;
-        }
         if(Double.isNaN(value) || matrixA.length < 2 || matrixA.length != matrixA[0].length || matrixA.length != vectorB.length) {
             ivsLogger.log(Level.INFO, name + "'s stamp method has issues. It's either because value is NaN OR matrix A length is less than 2 OR matrix A is not a square matrix OR matrix A length is not equal to vector B!!");
             return false;
@@ -71,7 +65,6 @@ public class IVS extends CircuitElement {
             matrixA[branchK][negativeNode] -= 1;
 
             vectorB[branchK] = value;
-            stamped = true;
             return true;
         }
         else if(negativeNode == -1 && withinBound(positiveNode, matrixA) && withinBound(branchK, vectorB)) {    // if N- is connected to ground
@@ -79,7 +72,6 @@ public class IVS extends CircuitElement {
             matrixA[branchK][positiveNode] += 1;
 
             vectorB[branchK] = value;
-            stamped = true;
             return true;
         }
         else if(withinBound(positiveNode, matrixA) && withinBound(negativeNode, matrixA) && withinBound(branchK, vectorB)) {
@@ -89,7 +81,6 @@ public class IVS extends CircuitElement {
             matrixA[branchK][negativeNode] -= 1;
 
             vectorB[branchK] = value;
-            stamped = true;
             return true;
         }
         ivsLogger.log(Level.INFO, name + "'s stamp method has issues. It's either node position OutOfBound or other issues!");
@@ -126,7 +117,11 @@ public class IVS extends CircuitElement {
         return false;
     }
 
-    public boolean isStamped() {
-        return stamped;
+    public int getBranchIndex() {
+        return branchIndex;
+    }
+
+    public void setBranchIndex(int branchIndex) {
+        this.branchIndex = branchIndex;
     }
 }
@@ -5,7 +5,6 @@ import java.util.logging.Logger;
 
 public class Resistor extends CircuitElement {
     private Logger logger;
-    private boolean stamped;
 
     /**
      * This constructor accepts value as String with or without metric prefix.
@@ -17,7 +16,6 @@ public class Resistor extends CircuitElement {
      */
     public Resistor(String name, String positiveNode, String negativeNode, String value) {
         super(name, positiveNode, negativeNode, value);
-        stamped = false;
         logger = Logger.getLogger(Resistor.class.getName());
     }
 
@@ -31,7 +29,6 @@ public class Resistor extends CircuitElement {
      */
     public Resistor(String name, String positiveNode, String negativeNode, double value) {
         super(name, positiveNode, negativeNode, value);
-        stamped = false;
         logger = Logger.getLogger(Resistor.class.getName());
     }
 
@@ -50,11 +47,6 @@ public class Resistor extends CircuitElement {
      * @return              Returns true if it is stamped successfully. Otherwise, returns false.
      */
     public boolean stamp(int positiveNode, int negativeNode, double value, double[][] matrixA){
-        if (stamped) {
-            logger.log(Level.INFO, name + " is already stamped.");
-            return false;
-        }
-
         if(Double.isNaN(value) || matrixA.length < 2 || matrixA.length != matrixA[0].length) {
             logger.log(Level.INFO, name + "'s stamp method has issues. It's either because value is NaN OR matrix A size is less than 2 OR matrix A is non square.");
             return false;
@@ -62,12 +54,10 @@ public class Resistor extends CircuitElement {
 
         if(positiveNode == -1 && withinBound(negativeNode, matrixA)) {    // if positive node is connected to ground
             matrixA[negativeNode][negativeNode] += (1 / value);
-            stamped = true;
             return true;
         }
         else if (negativeNode == -1 && withinBound(positiveNode, matrixA)) {  // if negative node is connected to ground
             matrixA[positiveNode][positiveNode] += (1 / value);
-            stamped = true;
             return true;
         }
         else if (withinBound(positiveNode, matrixA) && withinBound(negativeNode, matrixA)){
@@ -75,7 +65,6 @@ public class Resistor extends CircuitElement {
             matrixA[positiveNode][negativeNode] -= (1 / value);
             matrixA[negativeNode][positiveNode] -= (1 / value);
             matrixA[negativeNode][negativeNode] += (1 / value);
-            stamped = true;
             return true;
         }
 
@@ -97,8 +86,4 @@ public class Resistor extends CircuitElement {
         logger.log(Level.INFO, name + "'s private withinBound method returned false! bound: " + bound);
         return false;
     }
-
-    public boolean isStamped() {
-        return stamped;
-    }
 }
@@ -0,0 +1,218 @@
+package CircuitOjects;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class parses element values in engineering notation, a number with an optional scale suffix and optional unit
+ * letters after it, such as 12, -1.5E-3, 4.7k, 1meg or 10kOhm. It scans the characters once, throws no exception and
+ * makes no object except in the rare case of a number with more than 18 significant digits or an exponent beyond 22.
+ *
+ * Two rule sets are supported,
+ *      component   M is mega and P is peta as in the element constructors, m is milli and p is pico. Letters after the
+ *                  number are only accepted after a scale suffix, so 12h is rejected.
+ *      SPICE       not case sensitive, so M is milli and P is pico. Letters that are not a scale suffix are unit letters
+ *                  and are ignored, so 5V is 5.
+ * Both know T, G, MEG, K, MIL, U, N and F.
+ */
+public class ValueParser {
+    private static final double[] POWERS = {
+            1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11,
+            1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+    };
+    private static final double MIL = 25.4E-6;
+
+    private ValueParser() {
+    }
+
+    /**
+     * Parses a component value.
+     *
+     * @param s     value with or without a scale suffix.
+     * @return      Returns the value, or NaN if s is not a valid value.
+     */
+    public static double parse(CharSequence s) {
+        return s == null ? Double.NaN : parse(s, 0, s.length(), false);
+    }
+
+    /**
+     * Parses a value from the characters between start and end.
+     *
+     * @param s         characters holding the value.
+     * @param start     index of the first character.
+     * @param end       index after the last character.
+     * @param spice     true to use the SPICE rules, false to use the component rules.
+     * @return          Returns the value, or NaN if the characters are not a valid value.
+     */
+    public static double parse(CharSequence s, int start, int end, boolean spice) {
+        int p = start;
+        boolean negative = false;
+        if (p < end && (s.charAt(p) == '+' || s.charAt(p) == '-')) {
+            negative = s.charAt(p) == '-';
+            p++;
+        }
+
+        // mantissa of up to 18 significant digits and its decimal exponent
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean exact = true;
+        int numberStart = p;
+        while (p < end && isDigit(s.charAt(p))) {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (s.charAt(p) - '0');
+                digits += mantissa == 0 ? 0 : 1;
+            }
+            else {
+                exponent++;
+                exact = false;
+            }
+            p++;
+        }
+        boolean hasDigits = p > numberStart;
+        if (p < end && s.charAt(p) == '.') {
+            p++;
+            int fractionStart = p;
+            while (p < end && isDigit(s.charAt(p))) {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (s.charAt(p) - '0');
+                    digits += mantissa == 0 ? 0 : 1;
+                    exponent--;
+                }
+                else {
+                    exact = false;
+                }
+                p++;
+            }
+            hasDigits |= p > fractionStart;
+        }
+        if (!hasDigits) {
+            return Double.NaN;
+        }
+        int numberEnd = p;
+
+        if (p + 1 < end && (s.charAt(p) == 'e' || s.charAt(p) == 'E')) {
+            int q = p + 1;
+            boolean negativeExponent = false;
+            if (s.charAt(q) == '+' || s.charAt(q) == '-') {
+                negativeExponent = s.charAt(q) == '-';
+                q++;
+            }
+            if (q < end && isDigit(s.charAt(q))) {
+                int e = 0;
+                while (q < end && isDigit(s.charAt(q))) {
+                    e = Math.min(e * 10 + (s.charAt(q) - '0'), 10000);
+                    q++;
+                }
+                exponent += negativeExponent ? -e : e;
+                p = q;
+                numberEnd = q;
+            }
+        }
+
+        double scale = 1;
+        if (p < end) {
+            scale = scale(s, p, end, spice);
+            if (Double.isNaN(scale)) {
+                return Double.NaN;
+            }
+            for (int q = p; q < end; q++) {
+                if (!Character.isLetter(s.charAt(q))) {
+                    return Double.NaN;
+                }
+            }
+        }
+
+        double value;
+        if (exact && exponent >= -22 && exponent <= 22 && mantissa < (1L << 53)) {
+            // both operands are exact, so the single rounding gives the correctly rounded value
+            value = exponent < 0 ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+        }
+        else {
+            value = Double.parseDouble(s.subSequence(numberStart, numberEnd).toString());
+        }
+        return (negative ? -value : value) * scale;
+    }
+
+    /**
+     * Returns the scale of the suffix starting at p, 1 for unit letters under the SPICE rules, or NaN if it is invalid.
+     */
+    private static double scale(CharSequence s, int p, int end, boolean spice) {
+        char c = s.charAt(p);
+        if (end - p >= 3) {
+            char c1 = Character.toLowerCase(s.charAt(p + 1)), c2 = Character.toLowerCase(s.charAt(p + 2));
+            if ((c == 'm' || c == 'M') && c1 == 'e' && c2 == 'g') {
+                return 1E6;
+            }
+            if ((c == 'm' || c == 'M') && c1 == 'i' && c2 == 'l') {
+                return MIL;
+            }
+        }
+        switch (c) {
+            case 'M':
+                return spice ? 1E-3 : 1E6;
+            case 'P':
+                return spice ? 1E-12 : 1E15;
+            case 'm':
+                return 1E-3;
+            case 'p':
+                return 1E-12;
+            case 'T': case 't':
+                return 1E12;
+            case 'G': case 'g':
+                return 1E9;
+            case 'K': case 'k':
+                return 1E3;
+            case 'U': case 'u':
+                return 1E-6;
+            case 'N': case 'n':
+                return 1E-9;
+            case 'F': case 'f':
+                return 1E-15;
+            default:
+                return spice && Character.isLetter(c) ? 1 : Double.NaN;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * This class shows a range of a byte buffer as characters, one byte per character, so values can be parsed straight
+     * from a mapped file. One instance can be pointed at a new buffer with setBuffer() and used again.
+     */
+    public static class Bytes implements CharSequence {
+        private ByteBuffer buffer;
+
+        public Bytes(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public void setBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                sb.append(charAt(i));
+            }
+            return sb;
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
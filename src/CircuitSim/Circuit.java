@@ -3,13 +3,15 @@ package CircuitSim;
 import CircuitOjects.CircuitElement;
 import CircuitOjects.ICS;
 import CircuitOjects.IVS;
+import LUObject.SymbolicLU;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.SparseMultigraph;
 import edu.uci.ics.jung.graph.util.EdgeType;
-import sun.rmi.runtime.Log;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -20,22 +22,58 @@ import java.util.logging.Logger;
  *
  */
 public class Circuit {
-    private Graph<String, CircuitElement> graph;    // nodes(String) as vertexes
+    private Graph<String, CircuitElement> graph;    // nodes(String) as vertexes, built on demand, null while stale
     private List<CircuitElement> elementList;   // list that stores all element
     private List<CircuitElement> voltageSourceList; // list that stores all voltage source
     private List<CircuitElement> currentSourceList; // list that stores all current source
-    private HashMap<String, Integer> nodeList;
+    private HashMap<String, CircuitElement> elementIndex;   // elements by name, for constant time name checks
+    private List<SubcircuitInstance> instanceList;  // subcircuit instances, stamped with their macromodels
+    private HashMap<String, SubcircuitInstance> instanceIndex;
+    private HashMap<String, SubcircuitDefinition> definitions;  // subcircuit definitions by name
+    private Topology topology;  // node connectivity by node ID, built on demand, null while stale
+    private TopologyReport report;  // topology checks of the current topology, null while stale
+    private NodeTable nodeTable;    // interned node names, the ID of a node is its row in the MNA matrix
+    private SymbolicLU symbolic;    // symbolic factorization of the MNA matrix, valid until the topology changes
     private Logger logger;
 
     public Circuit(){
-        graph = new SparseMultigraph<>();
         elementList = new ArrayList<>();
         voltageSourceList = new ArrayList<>();
         currentSourceList = new ArrayList<>();
-        nodeList = new HashMap<>();
+        elementIndex = new HashMap<>();
+        instanceList = new ArrayList<>();
+        instanceIndex = new HashMap<>();
+        definitions = new HashMap<>();
+        nodeTable = new NodeTable();
         logger = Logger.getLogger(this.getClass().getName());
     }
 
+    /**
+     * Creates a circuit from elements that already carry their node IDs and branch indices, without checking names or
+     * interning nodes again. It is used to load a compiled netlist, which was valid when it was written.
+     *
+     * @param nodeTable     node table the element node IDs refer to.
+     * @param elements      elements in their original order.
+     * @param symbolic      symbolic factorization for the MNA pattern of the elements, or null.
+     * @return              Returns the circuit.
+     */
+    static Circuit compiled(NodeTable nodeTable, List<CircuitElement> elements, SymbolicLU symbolic) {
+        Circuit circuit = new Circuit();
+        circuit.nodeTable = nodeTable;
+        circuit.elementList.addAll(elements);
+        for (CircuitElement element : elements) {
+            circuit.elementIndex.put(element.getName(), element);
+            if (element instanceof IVS) {
+                circuit.voltageSourceList.add(element);
+            }
+            if (element instanceof ICS) {
+                circuit.currentSourceList.add(element);
+            }
+        }
+        circuit.symbolic = symbolic;
+        return circuit;
+    }
+
     /**
      * This method adds CircuitElement to the elementList, voltageSourceList, currentSourceList,
      * and graph. Returns true if added successfully. Otherwise, returns false.
@@ -49,44 +87,137 @@ public class Circuit {
             return false;
         }
 
-        if (elementList.indexOf(element) == -1) {   // if it is a unique name, add to the list
-            elementList.add(element);
-            graph.addVertex(element.getPositiveNode());
-            graph.addVertex(element.getNegativeNode());
-            graph.addEdge(element, element.getPositiveNode(), element.getNegativeNode(), EdgeType.UNDIRECTED);
-            if (element instanceof IVS) {
-                voltageSourceList.add(element);
-            }
-            if (element instanceof ICS) {
-                currentSourceList.add(element);
-            }
+        if (!elementIndex.containsKey(element.getName()) && !instanceIndex.containsKey(element.getName())) {   // if it is a unique name, add to the list
+            append(element);
+            graph = null;
+            topology = null;
+            report = null;
+            symbolic = null;
+            return true;
+        }
+        //logger.log(Level.INFO, "The CircuitElement to add already exist.");
+        return false;
+    }
 
-            if(element.getPositiveNode().compareTo("0") != 0) { // if positive node is not ground
-                //  if the positive node is present in the node list, add one to the integer
-                if (nodeList.containsKey(element.getPositiveNode())) {
-                    int i = nodeList.get(element.getPositiveNode()) + 1;
-                    nodeList.replace(element.getPositiveNode(), i);
-                }
-                else {
-                    nodeList.put(element.getPositiveNode(), 1);
-                }
+    /**
+     * This method adds all elements in one pass. The elements are checked first, so either all of them are added or,
+     * if any is null, has a NaN value or has a name that is already used, none is.
+     *
+     * @param elements  CircuitElements to be added in order.
+     * @return  returns true if all were added successfully. Otherwise, returns false and adds nothing.
+     */
+    public boolean addAll(Collection<? extends CircuitElement> elements) {
+        HashSet<String> names = new HashSet<>(elements.size() * 2);
+        for (CircuitElement element : elements) {
+            if (element == null || Double.isNaN(element.getValue())
+                    || elementIndex.containsKey(element.getName()) || instanceIndex.containsKey(element.getName())
+                    || !names.add(element.getName())) {
+                logger.log(Level.INFO, "addAll method from Circuit has a null element, a NaN value or a repeated name. Nothing is added.");
+                return false;
             }
+        }
+        for (CircuitElement element : elements) {
+            append(element);
+        }
+        graph = null;
+        topology = null;
+        report = null;
+        symbolic = null;
+        return true;
+    }
+
+    /**
+     * Appends a checked element to the lists and the index and interns its nodes.
+     */
+    private void append(CircuitElement element) {
+        elementList.add(element);
+        elementIndex.put(element.getName(), element);
+        if (element instanceof IVS) {
+            ((IVS) element).setBranchIndex(voltageSourceList.size());
+            voltageSourceList.add(element);
+        }
+        if (element instanceof ICS) {
+            currentSourceList.add(element);
+        }
+        int pn = nodeTable.intern(element.getPositiveNode());
+        int nn = nodeTable.intern(element.getNegativeNode());
+        element.setNodeIndices(pn, nn);
+    }
+
+    /**
+     * This method adds a subcircuit instance and interns the nodes of its ports. Its name shares the namespace of the
+     * elements.
+     *
+     * @param instance  SubcircuitInstance to be added.
+     * @return  returns true if added successfully. Otherwise, returns false.
+     */
+    public boolean addInstance(SubcircuitInstance instance) {
+        if (instance == null || instance.getDefinition() == null
+                || instance.getNodes().size() != instance.getDefinition().getPortCount()
+                || elementIndex.containsKey(instance.getName()) || instanceIndex.containsKey(instance.getName())) {
+            logger.log(Level.INFO, "addInstance method from Circuit has a null instance, a port count mismatch or a repeated name.");
+            return false;
+        }
+        instanceList.add(instance);
+        instanceIndex.put(instance.getName(), instance);
+        int[] indices = new int[instance.getNodes().size()];
+        for (int a = 0; a < indices.length; a++) {
+            indices[a] = nodeTable.intern(instance.getNodes().get(a));
+        }
+        instance.setNodeIndices(indices);
+        topology = null;
+        report = null;
+        symbolic = null;
+        return true;
+    }
+
+    /**
+     * This method removes the subcircuit instance with the given name.
+     *
+     * @param name  name of the instance to be removed.
+     * @return  Returns true if removed successfully. Otherwise, returns false.
+     */
+    public boolean removeInstance(String name) {
+        SubcircuitInstance instance = instanceIndex.remove(name);
+        if (instance == null) {
+            return false;
+        }
+        instanceList.remove(instance);
+        topology = null;
+        report = null;
+        symbolic = null;
 
-            if(element.getNegativeNode().compareTo("0") != 0) { // if negative node is not ground
-                //  if the negative node is present in the node list, add one to the integer
-                if (nodeList.containsKey(element.getNegativeNode())) {
-                    int i = nodeList.get(element.getNegativeNode());
-                    nodeList.replace(element.getNegativeNode(), i);
-                }
-                else {
-                    nodeList.put(element.getNegativeNode(), 1);
-                }
+        boolean renumber = false;
+        for (String node : instance.getNodes()) {
+            if (nodeTable.release(node) != -1) {
+                renumber = true;
             }
-            logger.log(Level.INFO, "");
-            return true;
         }
-        //logger.log(Level.INFO, "The CircuitElement to add already exist.");
-        return false;
+        if (renumber) {
+            renumberNodes();
+        }
+        return true;
+    }
+
+    /**
+     * Registers a subcircuit definition so instances can be made of it by name.
+     *
+     * @param definition    SubcircuitDefinition to be added.
+     * @return  returns true if added successfully. Otherwise, returns false.
+     */
+    public boolean addDefinition(SubcircuitDefinition definition) {
+        if (definition == null || definitions.containsKey(definition.getName())) {
+            return false;
+        }
+        definitions.put(definition.getName(), definition);
+        return true;
+    }
+
+    /**
+     * Returns the subcircuit definition with the given name, or null if there is none.
+     */
+    public SubcircuitDefinition getDefinition(String name) {
+        return definitions.get(name);
     }
 
     /**
@@ -102,15 +233,25 @@ public class Circuit {
         }
 
         CircuitElement temp = elementList.remove(index);
-        if (temp == null || !graph.removeEdge(temp)) {
+        if (temp == null) {
             return false;
         }
+        elementIndex.remove(temp.getName());
+        graph = null;
+        topology = null;
+        report = null;
+        symbolic = null;
 
         if (temp instanceof IVS) {
-            if (voltageSourceList.remove(temp) == false) {
+            int k = voltageSourceList.indexOf(temp);
+            if (k == -1) {
                 logger.log(Level.SEVERE, "removeElement in Circuit failed. Item mismatch between elementList and voltageSourceList.");
                 return false;
             }
+            voltageSourceList.remove(k);
+            for (int i = k; i < voltageSourceList.size(); i++) {
+                ((IVS) voltageSourceList.get(i)).setBranchIndex(i);
+            }
         }
 
         if (temp instanceof ICS) {
@@ -120,50 +261,133 @@ public class Circuit {
             }
         }
 
-        if (nodeList.get(temp.getPositiveNode()) != null) {
-            //logger.log(Level.INFO, "We in removeElement removing positive node section.");
-            int i = nodeList.get(temp.getPositiveNode()) - 1;
-            if (i == 0) {
-                Integer rm = nodeList.remove(temp.getPositiveNode());
-                if (rm == null || !graph.removeVertex(temp.getPositiveNode())){
-                    logger.log(Level.SEVERE, "removeElement in Circuit failed. Remove in nodeList or graph failed.");
-                    return false;
-                }
-            }
-            else {
-                nodeList.replace(temp.getPositiveNode(), i);
+        boolean renumber = false;
+        String[] terminals = {temp.getPositiveNode(), temp.getNegativeNode()};
+        for (String node : terminals) {
+            if (nodeTable.release(node) != -1) {
+                renumber = true;
             }
         }
 
-        if (nodeList.get(temp.getNegativeNode()) != null) {
-            //logger.log(Level.INFO, "We in removeElement removing negative node section.");
-            int i = nodeList.get(temp.getNegativeNode()) - 1;
-            if (i == 0) {
-                Integer rm = nodeList.remove(temp.getNegativeNode());
-                if (rm == null || !graph.removeVertex(temp.getNegativeNode())) {
-                    logger.log(Level.SEVERE, "removeElement in Circuit failed. Remove in nodeList or graph failed.");
-                    return false;
-                }
-            }
+        if (renumber) {
+            renumberNodes();
         }
         return true;
     }
 
+    /**
+     * A removed node shifts the IDs above it down by one, so every element and instance gets its node IDs again.
+     */
+    private void renumberNodes() {
+        for (CircuitElement c : elementList) {
+            c.setNodeIndices(nodeTable.indexOf(c.getPositiveNode()), nodeTable.indexOf(c.getNegativeNode()));
+        }
+        for (SubcircuitInstance x : instanceList) {
+            int[] indices = new int[x.getNodes().size()];
+            for (int a = 0; a < indices.length; a++) {
+                indices[a] = nodeTable.indexOf(x.getNodes().get(a));
+            }
+            x.setNodeIndices(indices);
+        }
+    }
+
+    /**
+     * Returns true if the circuit can be solved: it has at least two elements or instances, a node and a source or an
+     * instance, every instance has a macromodel, and it passes the topology checks of checkTopology(). The checks are
+     * near-linear, so an ill-posed circuit is rejected before its matrix is assembled or factored.
+     */
     public boolean isValid() {
-        if (elementList.size() > 1 && nodeList.size() > 1 && (voltageSourceList.size() < 1 && currentSourceList.size() < 1)){
-            return true;
+        for (SubcircuitInstance x : instanceList) {
+            if (!x.getDefinition().reduce()) {
+                logger.log(Level.INFO, "Circuit is not valid. Subcircuit instance " + x.getName() + " has no macromodel.");
+                return false;
+            }
+        }
+        if (elementList.size() + instanceList.size() > 1 && nodeTable.size() > 0
+                && (voltageSourceList.size() > 0 || currentSourceList.size() > 0 || instanceList.size() > 0)){
+            TopologyReport report = checkTopology();
+            if (report.isValid()) {
+                return true;
+            }
+            logger.log(Level.INFO, "Circuit is not valid. " + report);
         }
         return false;
     }
 
+    /**
+     * Checks the topology for floating nodes, loops of voltage sources and nodes cut off by current sources. The
+     * report only depends on the topology, so it is kept until an element is added or removed.
+     *
+     * @return  Returns the report of the checks.
+     */
+    public TopologyReport checkTopology() {
+        if (report == null) {
+            report = TopologyChecker.check(this);
+        }
+        return report;
+    }
+
+    /**
+     * Returns the cached symbolic factorization of the MNA matrix. It is dropped whenever an element is added or removed,
+     * so it is only returned while the topology is the one it was computed for.
+     *
+     * @return  Returns the symbolic factorization, or null if there is none for the current topology.
+     */
+    public SymbolicLU getSymbolic() {
+        return symbolic;
+    }
+
+    public void setSymbolic(SymbolicLU symbolic) {
+        this.symbolic = symbolic;
+    }
+
+    /**
+     * Returns the connectivity of the circuit by node ID, with ground as the last vertex. Like the graph, it is only
+     * built when it is asked for and again after the elements changed.
+     */
+    public Topology getTopology() {
+        if (topology == null) {
+            topology = Topology.build(elementList, instanceList, nodeTable.size());
+        }
+        return topology;
+    }
+
+    /**
+     * Returns the circuit as a graph with nodes as vertexes and elements as edges. The graph is only built when it is
+     * asked for and again after the elements changed, so building and loading large circuits does not pay for it. The
+     * simulator itself uses getTopology(). Subcircuit instances are not part of the graph.
+     */
     public Graph<String, CircuitElement> getGraph() {
+        if (graph == null) {
+            Graph<String, CircuitElement> g = new SparseMultigraph<>();
+            for (CircuitElement element : elementList) {
+                g.addVertex(element.getPositiveNode());
+                g.addVertex(element.getNegativeNode());
+                g.addEdge(element, element.getPositiveNode(), element.getNegativeNode(), EdgeType.UNDIRECTED);
+            }
+            graph = g;
+        }
         return graph;
     }
 
+    /**
+     * Returns the element with the given name.
+     *
+     * @param name  name of the element.
+     * @return      Returns the element, or null if there is none.
+     */
+    public CircuitElement getElement(String name) {
+        return elementIndex.get(name);
+    }
+
     public List<CircuitElement> getElementList() {
         return elementList;
     }
 
+    public List<SubcircuitInstance> getInstanceList() {
+        return instanceList;
+    }
+
     public List<CircuitElement> getVoltageSourceList() {
         return voltageSourceList;
     }
@@ -172,6 +396,14 @@ public class Circuit {
         return currentSourceList;
     }
 
+    /**
+     * Returns the node names in ID order, which is the order of the node rows in the MNA matrix.
+     */
     public List<String> getNodeList() {
-        return new ArrayList<>(nodeList.keySet());}
+        return nodeTable.getNames();
+    }
+
+    public NodeTable getNodeTable() {
+        return nodeTable;
+    }
 }
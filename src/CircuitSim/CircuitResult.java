@@ -7,6 +7,7 @@ public class CircuitResult {
     private double[] nodeVoltages;
     private List<String> nodes;
     private double[] branchCurrents;
+    private double residual = Double.NaN;
 
     public CircuitResult(double[] nodeVoltages, List<String> nodes) {
         this.nodes = new ArrayList<>();
@@ -38,4 +39,16 @@ public class CircuitResult {
     public double[] getBranchCurrents() {
         return branchCurrents;
     }
+
+    /**
+     * Returns the normwise backward error |b - Ax| / (|A| |x| + |b|) of the solution, or NaN if the solver did not
+     * compute it. Set by the MIXED_PRECISION solver.
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    void setResidual(double residual) {
+        this.residual = residual;
+    }
 }
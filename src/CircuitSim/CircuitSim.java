@@ -1,12 +1,28 @@
 package CircuitSim;
 
 import CircuitOjects.*;
+import LUObject.BandedLU;
+import LUObject.BlockTriangularLU;
+import LUObject.BorderedBlockLU;
+import LUObject.ColumnOrdering;
+import LUObject.ConjugateGradient;
 import LUObject.LUOperation;
+import LUObject.LinearSolver;
+import LUObject.LowRankUpdate;
+import LUObject.MixedPrecisionSolver;
+import LUObject.SparseLDL;
+import LUObject.SparseLU;
+import LUObject.SparseMatrix;
+import LUObject.SymbolicLU;
 import edu.uci.ics.jung.graph.Graph;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,8 +31,25 @@ import java.util.logging.Logger;
  */
 
 public class CircuitSim {
+    private static final int SUPERPOSITION_BLOCK = 64;    // sources solved together in one block
+    private static final int DEFAULT_MAX_UPDATES = 16;
+    private static final double DEFAULT_SHORT_RESISTANCE = 1E-3;
+
     private Logger logger;
     private Circuit circuit;
+    private StampPlan plan;             // compiled assembly of the current topology
+    private LinearSolver factorization; // factors of the last assembled MNA matrix
+    private List<String> factorNodes;   // node order the factors were computed with
+    private LowRankUpdate lowRank;      // element changes applied on top of the factors
+    private HashMap<CircuitElement, Integer> lowRankSlots;
+    private int maxUpdates = DEFAULT_MAX_UPDATES;
+    private boolean reduction;          // collapse series and parallel resistors before solving
+    private NetworkReducer reducer;     // reduction of the current topology
+    private SolverType solver = SolverType.LU;
+    private int domains;                // domains of the domain decomposition, 0 for one per core
+    private double tolerance = ConjugateGradient.DEFAULT_TOLERANCE;
+    private double accuracy = MixedPrecisionSolver.DEFAULT_ACCURACY;
+    private double[] guess;             // last solution, where the iterative solvers start from
 
     /**
      * Default constructor.
@@ -44,9 +77,85 @@ public class CircuitSim {
      * @return  returns true if added successfully. Otherwise, returns false.
      */
     public boolean addElement(CircuitElement element) {
+        plan = null;
+        reducer = null;
+        guess = null;
+        dropFactorization();
         return circuit.addElement(element);
     }
 
+    /**
+     * Adds all CircuitElements to the circuit in one pass, or none of them if any is invalid.
+     *
+     * @param elements  CircuitElements to be added in order.
+     * @return  returns true if all were added successfully. Otherwise, returns false.
+     */
+    public boolean addAll(Collection<? extends CircuitElement> elements) {
+        plan = null;
+        reducer = null;
+        guess = null;
+        dropFactorization();
+        return circuit.addAll(elements);
+    }
+
+    /**
+     * Adds a subcircuit instance to the circuit. It is stamped with the macromodel of its definition, which is computed
+     * once and shared by every instance of the definition.
+     *
+     * @param instance  SubcircuitInstance to be added.
+     * @return  returns true if added successfully. Otherwise, returns false.
+     */
+    public boolean addInstance(SubcircuitInstance instance) {
+        plan = null;
+        reducer = null;
+        guess = null;
+        dropFactorization();
+        return circuit.addInstance(instance);
+    }
+
+    /**
+     * Adds every element of a SPICE netlist file to the circuit. See NetlistReader for the supported cards.
+     *
+     * @param path  path of the netlist file.
+     * @return  returns true if read successfully. Otherwise, returns false.
+     */
+    public boolean loadNetlist(Path path) {
+        plan = null;
+        reducer = null;
+        guess = null;
+        dropFactorization();
+        return NetlistReader.read(path, circuit);
+    }
+
+    /**
+     * Writes the circuit to a compiled netlist file that loadCompiled() reads back without parsing.
+     *
+     * @param path  path of the file.
+     * @return  returns true if written successfully. Otherwise, returns false.
+     */
+    public boolean saveCompiled(Path path) {
+        return CompiledNetlist.write(circuit, path);
+    }
+
+    /**
+     * Replaces the circuit with one loaded from a compiled netlist file.
+     *
+     * @param path  path of the file.
+     * @return  returns true if loaded successfully. Otherwise, returns false and keeps the current circuit.
+     */
+    public boolean loadCompiled(Path path) {
+        Circuit loaded = CompiledNetlist.read(path);
+        if (loaded == null) {
+            return false;
+        }
+        circuit = loaded;
+        plan = null;
+        reducer = null;
+        guess = null;
+        dropFactorization();
+        return true;
+    }
+
     /**
      * Remove a CircuitElement from the circuit.
      *
@@ -54,70 +163,176 @@ public class CircuitSim {
      * @return  returns true if removed successfully. Otherwise, returns false.
      */
     public boolean removeElement(int index) {
+        plan = null;
+        reducer = null;
+        guess = null;
+        dropFactorization();
         return circuit.removeElement(index);
     }
 
     /**
-     * This private method stamps all elements to the matrix and vector.
-     * ******(CHANGE BACK TO PRIVATE METHOD AFTER TESTING)************
+     * Changes the value of an element. Changing an IVS or ICS only changes vector B, so the cached factors are kept and
+     * resolve() can be used. Changing any other element drops the cached factors.
      *
-     * @param matrixA   Left hand side matrix A to be stamped.
-     * @param b         Right hand side vector B to be stamped.
-     * @return          Returns true if stamped successfully. Otherwise, returns false.
+     * @param index Index of the CircuitElement to be changed.
+     * @param value New value of the element.
+     * @return  returns true if changed successfully. Otherwise, returns false.
      */
-    public boolean stamp(double[][] matrixA, double[] b, List<String> nodes) {
-        if (nodes.size() < 1) {
-            logger.log(Level.INFO, "stamp method from CircuitSim returned false because node list less than 1.");
+    public boolean setElementValue(int index, double value) {
+        if (index < 0 || index >= circuit.getElementList().size()) {
+            logger.log(Level.INFO, "setElementValue method from CircuitSim has invalid index: " + index);
             return false;
         }
-
-        if (matrixA.length < 1 || matrixA.length != matrixA[0].length || matrixA.length != b.length) {
-            logger.log(Level.INFO, "stamp method from CircuitSim returned false because matrix size is invalid.");
+        CircuitElement c = circuit.getElementList().get(index);
+        if (!c.setValue(value)) {
             return false;
         }
+        if (!(c instanceof IVS) && !(c instanceof ICS)) {
+            dropFactorization();
+        }
+        return true;
+    }
 
-        for (CircuitElement c : circuit.getElementList()) {
-            if (c instanceof IVS) {
-                int pn = nodes.indexOf(c.getPositiveNode());
-                int nn = nodes.indexOf(c.getNegativeNode());
-                int k = nodes.size() + circuit.getVoltageSourceList().indexOf(c);
-                if (!((IVS) c).stamp(pn, nn, k, c.getValue(), matrixA, b)) {
-                    return false;
-                }
+    /**
+     * Changes the values of several elements and solves the circuit again. Resistor changes are applied as low-rank
+     * (Sherman-Morrison-Woodbury) corrections on top of the cached factors: each changed resistor is a rank-1 change of
+     * the MNA matrix, so a step costs O(N * k) for k changed resistors instead of a new factorization. Once more than
+     * getMaxUpdates() different resistors have been changed, the matrix is factored again.
+     * Source changes only change vector B.
+     *
+     * @param values    new value of each element to be changed, by element name.
+     * @return  Return CircuitResult object if successful. Otherwise, returns null.
+     */
+    public CircuitResult updateElements(Map<String, Double> values) {
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            Double v = entry.getValue();
+            if (v == null || Double.isNaN(v)) {
+                logger.log(Level.INFO, "updateElements method from CircuitSim has NaN or null value.");
+                return null;
             }
-            if (c instanceof ICS) {
-                int pn = nodes.indexOf(c.getPositiveNode());
-                int nn = nodes.indexOf(c.getNegativeNode());
-                if (!((ICS) c).stamp(pn, nn, c.getValue(), b)) {
-                    return false;
-                }
+            if (circuit.getElement(entry.getKey()) == null) {
+                logger.log(Level.INFO, "updateElements method from CircuitSim has an unknown element: " + entry.getKey());
+                return null;
             }
-            if (c instanceof Resistor) {
-                int pn = nodes.indexOf(c.getPositiveNode());
-                int nn = nodes.indexOf(c.getNegativeNode());
-                if (!((Resistor) c).stamp(pn, nn, c.getValue(), matrixA)) {
-                    return false;
-                }
+        }
+
+        boolean refactor = factorization == null;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            CircuitElement c = circuit.getElement(entry.getKey());
+            double v = entry.getValue();
+            double old = c.getValue();
+            if (!c.setValue(v)) {
+                // values already applied are not in the factors, so they are computed again next time
+                logger.log(Level.INFO, "updateElements method from CircuitSim returned null. Element " + entry.getKey() + " refused its value.");
+                dropFactorization();
+                return null;
             }
+            if (c instanceof Resistor && !refactor) {
+                refactor = !addLowRankUpdate(c, 1 / v - 1 / old);
+            }
+        }
+
+        if (refactor || (lowRank != null && lowRank.getRank() > maxUpdates)) {
+            return calculate();
+        }
+        return resolve();
+    }
+
+    /**
+     * Adds a conductance change of d on the resistor to the low-rank correction.
+     *
+     * @return  Returns true if the change was added. Otherwise, returns false and the factors need to be computed again.
+     */
+    private boolean addLowRankUpdate(CircuitElement c, double d) {
+        if (lowRank == null) {
+            lowRank = new LowRankUpdate(factorization);
+            lowRankSlots = new HashMap<>();
+        }
+        Integer slot = lowRankSlots.get(c);
+        if (slot != null) {
+            return lowRank.adjust(slot, d);
+        }
+
+        int pn = c.getPositiveIndex();
+        int nn = c.getNegativeIndex();
+        int[] rows;
+        double[] coefficients;
+        if (pn == -1 && nn == -1) {
+            return true;
+        }
+        else if (pn == -1) {
+            rows = new int[]{nn};
+            coefficients = new double[]{1};
+        }
+        else if (nn == -1) {
+            rows = new int[]{pn};
+            coefficients = new double[]{1};
+        }
+        else {
+            rows = new int[]{pn, nn};
+            coefficients = new double[]{1, -1};
         }
+        int added = lowRank.addUpdate(rows, coefficients, d);
+        if (added == -1) {
+            return false;
+        }
+        lowRankSlots.put(c, added);
         return true;
     }
 
+    /**
+     * Drops the cached factors and any low-rank correction on top of them.
+     */
+    private void dropFactorization() {
+        factorization = null;
+        lowRank = null;
+        lowRankSlots = null;
+    }
+
+    /**
+     * Sets how many different resistors can be changed with updateElements() before the matrix is factored again.
+     *
+     * @param maxUpdates    maximum rank of the low-rank correction.
+     */
+    public void setMaxUpdates(int maxUpdates) {
+        this.maxUpdates = Math.max(0, maxUpdates);
+    }
+
+    public int getMaxUpdates() {
+        return maxUpdates;
+    }
+
     /**
      * Calculates node voltages and branch current.
+     * The MNA matrix is assembled as a sparse matrix so memory grows with the number of elements, not with size squared.
+     * The circuit is compiled into a stamp plan once per topology, so calling this again after only element values
+     * changed reassembles the same pattern in place. The symbolic factorization is cached with the circuit, which also
+     * skips the ordering and the pivot search.
+     * If reduction is on, series and parallel resistors are collapsed first, see setReduction().
      * @return  Return CircuitResult object if successful. Otherwise, returns null.
      */
     public CircuitResult calculate() {
+        return reduction ? calculateReduced() : calculateFull();
+    }
+
+    /**
+     * Solves the full MNA system and keeps its factors for resolve(), the low-rank updates and the fault simulation.
+     */
+    private CircuitResult calculateFull() {
         if (circuit.isValid()) {
-            List<String> nodes = new ArrayList<>(circuit.getNodeList());
-            int size = nodes.size() + circuit.getVoltageSourceList().size();
-            double[][] matrixA = new double[size][size];
-            double[] vecB = new double[size];
-
-            if (stamp(matrixA, vecB, nodes)) {
-                double[] ans = LUOperation.solveLU(matrixA, vecB);
-                if (ans != null) {
-                    CircuitResult result = new CircuitResult(ans, nodes);
+            if (plan == null) {
+                plan = StampPlan.compile(circuit);
+            }
+            plan.refreshValues();
+            double[] vecB = new double[plan.getSize()];
+            SparseMatrix matrixA = plan.assemble(vecB);
+
+            dropFactorization();
+            factorization = factor(circuit, matrixA);
+            if (factorization != null) {
+                factorNodes = plan.getNodes();
+                CircuitResult result = solve(vecB);
+                if (result != null) {
                     return result;
                 }
             }
@@ -126,6 +341,479 @@ public class CircuitSim {
         return null;
     }
 
+    /**
+     * Solves the reduced circuit and expands the solution to every node. No factors are kept, so resolve() calculates
+     * again.
+     */
+    private CircuitResult calculateReduced() {
+        if (circuit.isValid()) {
+            if (reducer == null) {
+                reducer = NetworkReducer.build(circuit);
+            }
+            reducer.refresh();
+            StampPlan reducedPlan = reducer.getPlan();
+            double[] vecB = new double[reducedPlan.getSize()];
+            SparseMatrix matrixA = reducedPlan.assemble(vecB);
+
+            dropFactorization();
+            LinearSolver reducedFactors = factor(reducer.getReduced(), matrixA);
+            double[] reduced = reducedFactors == null ? null : reducedFactors.solve(vecB);
+            if (reduced == null && reducedFactors instanceof ConjugateGradient) {
+                logger.log(Level.INFO, "calculate method from CircuitSim: conjugate gradients did not converge. Factoring directly.");
+                reducedFactors = factorDirect(reducer.getReduced(), matrixA);
+                reduced = reducedFactors == null ? null : reducedFactors.solve(vecB);
+            }
+            if (reduced != null) {
+                return new CircuitResult(reducer.expand(reduced), circuit.getNodeList());
+            }
+        }
+        logger.log(Level.SEVERE, "calculate method from CircuitSim returned null. Unknown issue.");
+        return null;
+    }
+
+    /**
+     * Solves the factored system for b and wraps the solution. An iterative solver starts from the last solution of the
+     * same size, which is usually close after a value change, and falls back to the direct factorization if it does not
+     * converge. A mixed precision solve also reports its backward error.
+     *
+     * @return  Returns the result if the solve succeeded. Otherwise, returns null.
+     */
+    private CircuitResult solve(double[] b) {
+        double[] x;
+        double residual = Double.NaN;
+        if (factorization instanceof MixedPrecisionSolver) {
+            MixedPrecisionSolver.Refinement refinement = ((MixedPrecisionSolver) factorization).refine(b);
+            x = refinement == null ? null : refinement.getSolution();
+            if (refinement != null) {
+                residual = refinement.getResidual();
+            }
+        }
+        else if (factorization instanceof ConjugateGradient && guess != null && guess.length == b.length) {
+            x = ((ConjugateGradient) factorization).solve(b, guess);
+        }
+        else {
+            x = factorization.solve(b);
+        }
+        if (x == null && factorization instanceof ConjugateGradient) {
+            // keep the direct factors for the following resolves, the same matrix would not converge either
+            logger.log(Level.INFO, "solve method from CircuitSim: conjugate gradients did not converge. Factoring directly.");
+            factorization = factorDirect(circuit, ((ConjugateGradient) factorization).getMatrix());
+            x = factorization == null ? null : factorization.solve(b);
+        }
+        if (x == null) {
+            return null;
+        }
+        guess = x;
+        CircuitResult result = new CircuitResult(x, factorNodes);
+        result.setResidual(residual);
+        return result;
+    }
+
+    /**
+     * Factors an assembled matrix with the selected solver. The direct factorization reuses the symbolic factorization
+     * cached with the circuit while its pattern matches, and is also used when the domain decomposition fails, the
+     * matrix does not qualify for conjugate gradients or they do not converge, its band is too wide or a diagonal block
+     * of its block triangular form is singular. A symmetric matrix is factored with SparseLDL, which stores one
+     * triangle; SparseLU is used when the matrix is not symmetric or a pivot of the LDL' is too small.
+     */
+    private LinearSolver factor(Circuit c, SparseMatrix matrixA) {
+        if (solver == SolverType.PCG_JACOBI || solver == SolverType.PCG_INCOMPLETE_CHOLESKY || solver == SolverType.PCG_MULTIGRID) {
+            int preconditioner = solver == SolverType.PCG_JACOBI ? ConjugateGradient.JACOBI
+                    : solver == SolverType.PCG_INCOMPLETE_CHOLESKY ? ConjugateGradient.INCOMPLETE_CHOLESKY : ConjugateGradient.MULTIGRID;
+            LinearSolver iterative = ConjugateGradient.factor(matrixA, preconditioner, tolerance, 0);
+            if (iterative != null) {
+                return iterative;
+            }
+        }
+        if (solver == SolverType.DOMAIN_DECOMPOSITION) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            LinearSolver parallel = BorderedBlockLU.factor(matrixA, domains > 0 ? domains : pool.getParallelism(), pool);
+            if (parallel != null) {
+                return parallel;
+            }
+        }
+        if (solver == SolverType.BLOCK_TRIANGULAR) {
+            LinearSolver blocks = BlockTriangularLU.factor(matrixA, ForkJoinPool.commonPool());
+            if (blocks != null) {
+                return blocks;
+            }
+        }
+        return factorDirect(c, matrixA);
+    }
+
+    /**
+     * Factors an assembled matrix with the sparse direct factorizations: BANDED and MIXED_PRECISION if selected, then
+     * SparseLDL for a symmetric matrix and SparseLU otherwise. This is also where conjugate gradients end up when they
+     * do not converge.
+     */
+    private LinearSolver factorDirect(Circuit c, SparseMatrix matrixA) {
+        boolean symmetric = matrixA.isSymmetric(SparseLDL.SYMMETRY_TOLERANCE);
+        SymbolicLU symbolic = c.getSymbolic();
+        if (symbolic == null || !symbolic.matches(matrixA)) {
+            symbolic = symmetric ? SymbolicLU.analyze(matrixA, ColumnOrdering.constrained(matrixA)) : SymbolicLU.analyze(matrixA);
+            c.setSymbolic(symbolic);
+        }
+        if (symbolic == null) {
+            return null;
+        }
+        if (solver == SolverType.BANDED) {
+            // the band stores its zeros too, so allow it up to twice the entries of the sparse factors
+            LinearSolver banded = BandedLU.factor(matrixA, ColumnOrdering.rcm(matrixA), 2 * symbolic.getFactorEstimate());
+            if (banded != null) {
+                return banded;
+            }
+        }
+        if (solver == SolverType.MIXED_PRECISION) {
+            LinearSolver mixed = MixedPrecisionSolver.factor(symbolic, matrixA, accuracy);
+            if (mixed != null) {
+                return mixed;
+            }
+        }
+        if (symmetric) {
+            LinearSolver ldl = SparseLDL.factor(symbolic, matrixA);
+            if (ldl != null) {
+                return ldl;
+            }
+        }
+        return SparseLU.factor(symbolic, matrixA);
+    }
+
+    /**
+     * Turns the series and parallel reduction on or off. With it on, calculate() collapses parallel resistors and
+     * eliminates nodes with only two resistors on them before stamping, then gets the voltages of the eliminated nodes
+     * back from their neighbors. It shrinks long resistor chains, but keeps no factors for resolve().
+     *
+     * @param reduction     true to reduce the circuit before solving.
+     */
+    public void setReduction(boolean reduction) {
+        this.reduction = reduction;
+        dropFactorization();
+    }
+
+    public boolean isReduction() {
+        return reduction;
+    }
+
+    /**
+     * Selects the solver the MNA matrix is factored with. DOMAIN_DECOMPOSITION splits the circuit into domains joined
+     * by interface nodes and factors the domains in parallel on the common fork-join pool, which pays off for large
+     * circuits with small interfaces between their parts. PCG_JACOBI, PCG_INCOMPLETE_CHOLESKY and PCG_MULTIGRID factor
+     * nothing and iterate to the tolerance of setTolerance(); they need a circuit whose voltage sources all have one end
+     * on ground, otherwise the LU is used. PCG_MULTIGRID is meant for large resistor meshes such as power grids, where
+     * its time and memory grow linearly with the mesh.
+     * BANDED renumbers the unknowns by reverse Cuthill-McKee and factors in band storage, for ladders, RC chains and
+     * other long thin circuits; when the band would take more memory than the sparse factors, those are used instead.
+     * BLOCK_TRIANGULAR permutes the matrix to block triangular form and factors only its diagonal blocks, in parallel on
+     * the common fork-join pool; it pays off when voltage sources to ground split the circuit into separate loads.
+     * MIXED_PRECISION stores the LDL' factors in float and refines each solution in double until the backward error is
+     * below setAccuracy(), which is then reported by CircuitResult.getResidual(); if refinement stalls on a test solve
+     * when it is factored, the matrix is factored in double as well.
+     *
+     * @param solver    solver to be used.
+     */
+    public void setSolver(SolverType solver) {
+        this.solver = solver;
+        dropFactorization();
+    }
+
+    public SolverType getSolver() {
+        return solver;
+    }
+
+    /**
+     * Sets the number of domains of the domain decomposition.
+     *
+     * @param domains   number of domains, 0 for one per core of the common pool.
+     */
+    public void setDomains(int domains) {
+        this.domains = Math.max(0, domains);
+        dropFactorization();
+    }
+
+    public int getDomains() {
+        return domains;
+    }
+
+    /**
+     * Sets the relative residual the conjugate gradient solvers stop at.
+     *
+     * @param tolerance     positive tolerance.
+     */
+    public void setTolerance(double tolerance) {
+        if (tolerance > 0) {
+            this.tolerance = tolerance;
+            dropFactorization();
+        }
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets the backward error the mixed precision solver refines its solutions to.
+     *
+     * @param accuracy      positive accuracy target.
+     */
+    public void setAccuracy(double accuracy) {
+        if (accuracy > 0) {
+            this.accuracy = accuracy;
+            dropFactorization();
+        }
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Calculates node voltages and branch current again after only IVS or ICS values changed. The matrix is the same,
+     * so only vector B is stamped and solved with the cached factors by forward and back substitution, plus the low-rank
+     * correction of updateElements() if there is one.
+     * If there are no cached factors, this is the same as calculate().
+     * @return  Return CircuitResult object if successful. Otherwise, returns null.
+     */
+    public CircuitResult resolve() {
+        if (factorization == null) {
+            return calculate();
+        }
+
+        double[] vecB = new double[factorization.getSize()];
+        plan.assembleRHS(vecB);
+        CircuitResult result;
+        if (lowRank == null) {
+            result = solve(vecB);
+        }
+        else {
+            double[] ans = lowRank.solve(vecB);
+            result = ans == null ? null : new CircuitResult(ans, factorNodes);
+        }
+        if (result == null) {
+            logger.log(Level.SEVERE, "resolve method from CircuitSim returned null. The updated matrix is singular.");
+        }
+        return result;
+    }
+
+    /**
+     * DC sweep analysis (.DC). Steps the value of one IVS or ICS from start to stop and solves the circuit at every point.
+     * The matrix does not change during a source sweep, so it is factored once and each point is only a resolve().
+     * The source gets its original value back afterwards.
+     *
+     * @param source    name of the IVS or ICS to be swept.
+     * @param start     first value.
+     * @param stop      last value.
+     * @param step      increment, negative for a decreasing sweep.
+     * @return  Returns one CircuitResult per point in sweep order if successful. Otherwise, returns null.
+     */
+    public List<CircuitResult> dcSweep(String source, double start, double stop, double step) {
+        CircuitElement c = findSource(source);
+        int points = sweepPoints(start, stop, step);
+        if (c == null || points < 1) {
+            logger.log(Level.INFO, "dcSweep method from CircuitSim has issues. It's either because the source does not exist OR the range is invalid.");
+            return null;
+        }
+
+        double original = c.getValue();
+        List<CircuitResult> results = new ArrayList<>(points);
+        try {
+            for (int i = 0; i < points; i++) {
+                c.setValue(start + i * step);
+                CircuitResult result = resolve();
+                if (result == null) {
+                    return null;
+                }
+                results.add(result);
+            }
+        } finally {
+            c.setValue(original);
+        }
+        return results;
+    }
+
+    /**
+     * Nested DC sweep analysis (.DC with two sources). source2 is the outer sweep and source1 the inner one, the same as
+     * SPICE, so the results are ordered with source1 changing fastest. The matrix is factored only once.
+     *
+     * @param source1   name of the inner IVS or ICS.
+     * @param start1    first value of source1.
+     * @param stop1     last value of source1.
+     * @param step1     increment of source1.
+     * @param source2   name of the outer IVS or ICS.
+     * @param start2    first value of source2.
+     * @param stop2     last value of source2.
+     * @param step2     increment of source2.
+     * @return  Returns one CircuitResult per point in sweep order if successful. Otherwise, returns null.
+     */
+    public List<CircuitResult> dcSweep(String source1, double start1, double stop1, double step1,
+                                       String source2, double start2, double stop2, double step2) {
+        CircuitElement outer = findSource(source2);
+        int points = sweepPoints(start2, stop2, step2);
+        if (outer == null || points < 1 || source2.equals(source1)) {
+            logger.log(Level.INFO, "dcSweep method from CircuitSim has issues. It's either because the outer source does not exist OR the range is invalid.");
+            return null;
+        }
+
+        double original = outer.getValue();
+        List<CircuitResult> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < points; i++) {
+                outer.setValue(start2 + i * step2);
+                List<CircuitResult> inner = dcSweep(source1, start1, stop1, step1);
+                if (inner == null) {
+                    return null;
+                }
+                results.addAll(inner);
+            }
+        } finally {
+            outer.setValue(original);
+        }
+        return results;
+    }
+
+    /**
+     * Superposition analysis. Finds the contribution of every IVS and ICS to every node voltage by solving the circuit
+     * once per source with all other sources turned off. All right hand sides share the factors and go through the
+     * triangular solves in blocks, which is much cheaper than one resolve() per source.
+     * A subcircuit instance whose body holds sources is one more source, named after the instance, with all of its
+     * internal sources together.
+     *
+     * @return  Returns the contributions if successful. Otherwise, returns null.
+     */
+    public SuperpositionResult superposition() {
+        if ((factorization == null || lowRank != null) && calculateFull() == null) {
+            logger.log(Level.SEVERE, "superposition method from CircuitSim returned null. The circuit could not be factored.");
+            return null;
+        }
+
+        List<CircuitElement> sourceList = new ArrayList<>(circuit.getVoltageSourceList());
+        sourceList.addAll(circuit.getCurrentSourceList());
+        List<SubcircuitInstance> instanceSources = new ArrayList<>();
+        for (SubcircuitInstance x : circuit.getInstanceList()) {
+            for (double j : x.getDefinition().getCurrent()) {
+                if (j != 0) {
+                    instanceSources.add(x);
+                    break;
+                }
+            }
+        }
+        int sourceCount = sourceList.size() + instanceSources.size();
+        List<String> nodes = factorNodes;
+        int n = factorization.getSize();
+        double[][] contributions = new double[sourceCount][];
+
+        for (int first = 0; first < sourceCount; first += SUPERPOSITION_BLOCK) {
+            int m = Math.min(SUPERPOSITION_BLOCK, sourceCount - first);
+            double[][] block = new double[n][m];
+            for (int r = 0; r < m; r++) {
+                if (first + r >= sourceList.size()) {
+                    SubcircuitInstance x = instanceSources.get(first + r - sourceList.size());
+                    int[] ports = x.getNodeIndices();
+                    double[] j = x.getDefinition().getCurrent();
+                    for (int a = 0; a < ports.length; a++) {
+                        if (ports[a] != -1) {
+                            block[ports[a]][r] += j[a];
+                        }
+                    }
+                    continue;
+                }
+                CircuitElement c = sourceList.get(first + r);
+                if (c instanceof IVS) {
+                    block[nodes.size() + ((IVS) c).getBranchIndex()][r] = c.getValue();
+                }
+                else {
+                    int pn = c.getPositiveIndex();
+                    int nn = c.getNegativeIndex();
+                    if (pn != -1) {
+                        block[pn][r] -= c.getValue();
+                    }
+                    if (nn != -1) {
+                        block[nn][r] += c.getValue();
+                    }
+                }
+            }
+
+            double[][] solution = factorization.solve(block);
+            if (solution == null) {
+                logger.log(Level.SEVERE, "superposition method from CircuitSim returned null. The sources could not be solved.");
+                return null;
+            }
+            for (int r = 0; r < m; r++) {
+                double[] voltages = new double[nodes.size()];
+                for (int i = 0; i < voltages.length; i++) {
+                    voltages[i] = solution[i][r];
+                }
+                contributions[first + r] = voltages;
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        for (CircuitElement c : sourceList) {
+            names.add(c.getName());
+        }
+        for (SubcircuitInstance x : instanceSources) {
+            names.add(x.getName());
+        }
+        return new SuperpositionResult(names, nodes, contributions);
+    }
+
+    /**
+     * Single-fault simulation with every resistor opened and then shorted through 1 mOhm, on the common fork-join pool.
+     *
+     * @return  Returns the table of node voltage deviations if successful. Otherwise, returns null.
+     */
+    public FaultTable simulateFaults() {
+        return simulateFaults(DEFAULT_SHORT_RESISTANCE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Single-fault simulation with every resistor opened and then shorted. All faults reuse the nominal factors: each one
+     * is a rank-1 update, so it costs one solve instead of a factorization. The faults are spread over the pool and the
+     * result is one flat table of node voltage deviations instead of a CircuitResult per fault.
+     *
+     * @param shortResistance   resistance used for a shorted resistor.
+     * @param pool              fork-join pool that runs the faults.
+     * @return  Returns the table of node voltage deviations if successful. Otherwise, returns null.
+     */
+    public FaultTable simulateFaults(double shortResistance, ForkJoinPool pool) {
+        if (!(shortResistance > 0) || pool == null) {
+            logger.log(Level.INFO, "simulateFaults method from CircuitSim has invalid short resistance or pool.");
+            return null;
+        }
+        CircuitResult nominal = (factorization == null || lowRank != null) ? calculateFull() : resolve();
+        if (nominal == null) {
+            logger.log(Level.SEVERE, "simulateFaults method from CircuitSim returned null. The nominal circuit could not be solved.");
+            return null;
+        }
+
+        List<CircuitElement> resistors = new ArrayList<>();
+        for (CircuitElement c : circuit.getElementList()) {
+            if (c instanceof Resistor) {
+                resistors.add(c);
+            }
+        }
+        FaultSimulator simulator = new FaultSimulator(factorization, nominal.getNodeVoltages(), factorNodes, resistors, shortResistance);
+        return simulator.run(pool, factorNodes);
+    }
+
+    /**
+     * Returns the number of points from start to stop, including both ends. A small tolerance keeps the last point when
+     * (stop - start) / step is not exact in floating point.
+     */
+    private int sweepPoints(double start, double stop, double step) {
+        if (step == 0 || Double.isNaN(start) || Double.isNaN(stop) || Double.isNaN(step) || (stop - start) / step < 0) {
+            return 0;
+        }
+        return (int) Math.floor((stop - start) / step + 1E-9) + 1;
+    }
+
+    /**
+     * Returns the IVS or ICS with the given name, or null if there is none.
+     */
+    private CircuitElement findSource(String name) {
+        CircuitElement c = circuit.getElement(name);
+        return c instanceof IVS || c instanceof ICS ? c : null;
+    }
+
     public List<CircuitElement> getElementList() {
         return circuit.getElementList();
     }
@@ -0,0 +1,311 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import LUObject.ColumnOrdering;
+import LUObject.SparseLDL;
+import LUObject.SparseMatrix;
+import LUObject.SymbolicLU;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class writes a built circuit to a binary file and loads it back. The file holds the interned node table, the
+ * elements as columns (type, value, node IDs, names) and the sparsity pattern of the MNA matrix with its fill-reducing
+ * column ordering. Loading maps the file once and copies each column with one bulk get, so nothing is parsed, no node
+ * is interned again, the graph is not built and the ordering does not have to be computed again.
+ *
+ * The layout, all big-endian,
+ *      int     magic, version
+ *      int     node count, element count, matrix size, matrix nonzero count
+ *      int[]   node name offsets (node count + 1), byte[] node names
+ *      int[]   element name offsets (element count + 1), byte[] element names
+ *      byte[]  element types, double[] element values, int[] positive node IDs, int[] negative node IDs
+ *      int[]   column pointers (size + 1), row indices (nonzero count), column ordering (size)
+ * Circuits with subcircuit instances are not supported by this version of the format.
+ */
+public class CompiledNetlist {
+    private static final int MAGIC = 0x4A535043;    // "JSPC"
+    private static final int VERSION = 1;
+    private static final byte RESISTOR = 0, VOLTAGE_SOURCE = 1, CURRENT_SOURCE = 2;
+    private static Logger logger = Logger.getLogger(CompiledNetlist.class.getName());
+
+    private CompiledNetlist() {
+    }
+
+    /**
+     * Writes the circuit to a compiled netlist file.
+     *
+     * @param circuit   circuit to be written.
+     * @param path      path of the file, it is replaced if it exists.
+     * @return          Returns true if written successfully. Otherwise, returns false.
+     */
+    public static boolean write(Circuit circuit, Path path) {
+        if (!circuit.getInstanceList().isEmpty()) {
+            logger.log(Level.SEVERE, "write method from CompiledNetlist failed. Subcircuit instances can not be compiled.");
+            return false;
+        }
+        List<String> nodes = circuit.getNodeList();
+        List<CircuitElement> elements = circuit.getElementList();
+        byte[] nodeNames = join(nodes);
+        List<String> elementNameList = new ArrayList<>(elements.size());
+        for (CircuitElement c : elements) {
+            elementNameList.add(c.getName());
+        }
+        byte[] elementNames = join(elementNameList);
+
+        StampPlan plan = StampPlan.compile(circuit);
+        int size = plan.getSize();
+        SparseMatrix pattern = plan.assemble(new double[size]);
+        int[] order = new int[0];
+        if (size > 0) {
+            // the same ordering CircuitSim would pick, so a symmetric matrix can still be factored with SparseLDL
+            SymbolicLU symbolic = circuit.getSymbolic();
+            if (symbolic != null && symbolic.matches(pattern)) {
+                order = symbolic.getColumnOrdering();
+            }
+            else {
+                order = pattern.isSymmetric(SparseLDL.SYMMETRY_TOLERANCE) ? ColumnOrdering.constrained(pattern) : ColumnOrdering.amd(pattern);
+            }
+        }
+
+        long bytes = 4L * 6
+                + 4L * (nodes.size() + 1) + nodeNames.length
+                + 4L * (elements.size() + 1) + elementNames.length
+                + (1L + 8 + 4 + 4) * elements.size()
+                + 4L * (size + 1) + 4L * pattern.getNonZeroCount() + 4L * size;
+        if (bytes > Integer.MAX_VALUE) {
+            logger.log(Level.SEVERE, "write method from CompiledNetlist failed. The circuit is too large for one file.");
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(nodes.size()).putInt(elements.size()).putInt(size).putInt(pattern.getNonZeroCount());
+        putOffsets(buffer, nodes);
+        buffer.put(nodeNames);
+        putOffsets(buffer, elementNameList);
+        buffer.put(elementNames);
+        for (CircuitElement c : elements) {
+            buffer.put(c instanceof IVS ? VOLTAGE_SOURCE : c instanceof ICS ? CURRENT_SOURCE : RESISTOR);
+        }
+        for (CircuitElement c : elements) {
+            buffer.putDouble(c.getValue());
+        }
+        for (CircuitElement c : elements) {
+            buffer.putInt(c.getPositiveIndex());
+        }
+        for (CircuitElement c : elements) {
+            buffer.putInt(c.getNegativeIndex());
+        }
+        buffer.asIntBuffer().put(pattern.getColumnPointers()).put(pattern.getRowIndices()).put(order);
+        buffer.position(buffer.capacity());
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "write method from CompiledNetlist failed to write " + path + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads a circuit from a compiled netlist file.
+     *
+     * @param path  path of the file.
+     * @return      Returns the circuit if successful. Otherwise, returns null.
+     */
+    public static Circuit read(Path path) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                logger.log(Level.SEVERE, "read method from CompiledNetlist failed. " + path + " is not a compiled netlist.");
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "read method from CompiledNetlist failed to read " + path + ": " + e.getMessage());
+            return null;
+        }
+
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            logger.log(Level.SEVERE, "read method from CompiledNetlist failed. " + path + " is truncated or corrupt.");
+            return null;
+        }
+    }
+
+    private static Circuit read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            logger.log(Level.SEVERE, "read method from CompiledNetlist failed. Not a compiled netlist or an unsupported version.");
+            return null;
+        }
+        int nodeCount = buffer.getInt();
+        int elementCount = buffer.getInt();
+        int size = buffer.getInt();
+        int nnz = buffer.getInt();
+        if (nodeCount < 0 || elementCount < 0 || size < 0 || nnz < 0
+                || 4L * nodeCount + 21L * elementCount + 8L * size + 4L * nnz > buffer.remaining()) {
+            logger.log(Level.SEVERE, "read method from CompiledNetlist failed. The header does not match the file size.");
+            return null;
+        }
+
+        List<String> nodes = strings(buffer, nodeCount);
+        List<String> elementNames = strings(buffer, elementCount);
+        byte[] types = new byte[elementCount];
+        buffer.get(types);
+        double[] values = new double[elementCount];
+        int[] positive = new int[elementCount];
+        int[] negative = new int[elementCount];
+        getDoubles(buffer, values);
+        getInts(buffer, positive);
+        getInts(buffer, negative);
+        int[] colPtr = new int[size + 1];
+        int[] rowIdx = new int[nnz];
+        int[] order = new int[size];
+        getInts(buffer, colPtr);
+        getInts(buffer, rowIdx);
+        getInts(buffer, order);
+
+        int[] references = new int[nodeCount];
+        List<CircuitElement> elements = new ArrayList<>(elementCount);
+        int branch = 0;
+        for (int i = 0; i < elementCount; i++) {
+            int pn = positive[i], nn = negative[i];
+            if (pn < -1 || pn >= nodeCount || nn < -1 || nn >= nodeCount) {
+                logger.log(Level.SEVERE, "read method from CompiledNetlist failed. Element " + elementNames.get(i) + " has an invalid node.");
+                return null;
+            }
+            String positiveNode = pn == -1 ? NodeTable.GROUND : nodes.get(pn);
+            String negativeNode = nn == -1 ? NodeTable.GROUND : nodes.get(nn);
+            CircuitElement element;
+            if (types[i] == RESISTOR) {
+                element = new Resistor(elementNames.get(i), positiveNode, negativeNode, values[i]);
+            }
+            else if (types[i] == VOLTAGE_SOURCE) {
+                element = new IVS(elementNames.get(i), positiveNode, negativeNode, values[i]);
+                ((IVS) element).setBranchIndex(branch++);
+            }
+            else if (types[i] == CURRENT_SOURCE) {
+                element = new ICS(elementNames.get(i), positiveNode, negativeNode, values[i]);
+            }
+            else {
+                logger.log(Level.SEVERE, "read method from CompiledNetlist failed. Element " + elementNames.get(i) + " has an unknown type.");
+                return null;
+            }
+            element.setNodeIndices(pn, nn);
+            if (pn != -1) {
+                references[pn]++;
+            }
+            if (nn != -1) {
+                references[nn]++;
+            }
+            elements.add(element);
+        }
+
+        SymbolicLU symbolic = null;
+        if (size > 0) {
+            if (size != nodeCount + branch || !validPattern(colPtr, rowIdx, order)) {
+                logger.log(Level.SEVERE, "read method from CompiledNetlist failed. The MNA pattern does not match the elements.");
+                return null;
+            }
+            symbolic = SymbolicLU.analyze(new SparseMatrix(size, size, colPtr, rowIdx, new double[nnz]), order);
+        }
+        return Circuit.compiled(new NodeTable(nodes, references), elements, symbolic);
+    }
+
+    private static boolean validPattern(int[] colPtr, int[] rowIdx, int[] order) {
+        int n = order.length;
+        if (colPtr[0] != 0 || colPtr[n] != rowIdx.length) {
+            return false;
+        }
+        for (int j = 0; j < n; j++) {
+            if (colPtr[j] > colPtr[j + 1]) {
+                return false;
+            }
+        }
+        // rows strictly increasing within each column, as SymbolicLU expects
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (rowIdx[p] < 0 || rowIdx[p] >= n || (p > colPtr[j] && rowIdx[p] <= rowIdx[p - 1])) {
+                    return false;
+                }
+            }
+        }
+        boolean[] seen = new boolean[n];
+        for (int k : order) {
+            if (k < 0 || k >= n || seen[k]) {
+                return false;
+            }
+            seen[k] = true;
+        }
+        return true;
+    }
+
+    private static byte[] join(List<String> strings) {
+        StringBuilder sb = new StringBuilder();
+        for (String s : strings) {
+            sb.append(s);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putOffsets(ByteBuffer buffer, List<String> strings) {
+        int offset = 0;
+        buffer.putInt(offset);
+        for (String s : strings) {
+            offset += s.getBytes(StandardCharsets.UTF_8).length;
+            buffer.putInt(offset);
+        }
+    }
+
+    /**
+     * Reads count strings stored as an offset column followed by their bytes.
+     */
+    private static List<String> strings(ByteBuffer buffer, int count) {
+        int[] offsets = new int[count + 1];
+        getInts(buffer, offsets);
+        if (offsets[0] != 0 || offsets[count] > buffer.remaining()) {
+            throw new IllegalArgumentException("invalid string offsets");
+        }
+        for (int i = 0; i < count; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                throw new IllegalArgumentException("invalid string offsets");
+            }
+        }
+        byte[] bytes = new byte[offsets[count]];
+        buffer.get(bytes);
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+
+    private static void getInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    private static void getDoubles(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * values.length);
+    }
+}
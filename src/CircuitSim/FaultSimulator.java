@@ -0,0 +1,145 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import LUObject.LinearSolver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class runs a single-fault simulation: every resistor opened and shorted, one at a time. Each fault only changes
+ * the conductance of one resistor, so it is a rank-1 change of the nominal MNA matrix and is solved with the
+ * Sherman-Morrison formula on the nominal factors,
+ *
+ *      z = A^-1 u,  deviation = -z * (d * u' x0) / (1 + d * u' z)
+ *
+ * with u = e_p - e_n and d the change of conductance. That is one solve with the shared factors per resistor instead of a
+ * factorization per fault. Resistors are split over a fork-join pool; each task writes its own rows of the table. If a
+ * solve fails, both rows of that resistor are NaN.
+ */
+class FaultSimulator {
+    private static Logger logger = Logger.getLogger(FaultSimulator.class.getName());
+    private static final int CHUNK = 16;    // resistors per fork-join task
+    private static final double SINGULAR = 1E-12;
+
+    private LinearSolver factors;
+    private double[] nominal;
+    private int nodeCount;
+    private double shortConductance;
+    private String[] names;
+    private double[] conductance;
+    private int[] positive, negative;
+    private float[] deviations;
+
+    /**
+     * @param factors           factors of the nominal MNA matrix.
+     * @param nominal           nominal solution.
+     * @param nodes             node order of the factors.
+     * @param resistors         resistors to be faulted.
+     * @param shortResistance   resistance used for a short.
+     */
+    FaultSimulator(LinearSolver factors, double[] nominal, List<String> nodes, List<CircuitElement> resistors, double shortResistance) {
+        this.factors = factors;
+        this.nominal = nominal;
+        this.nodeCount = nodes.size();
+        this.shortConductance = 1 / shortResistance;
+        int count = resistors.size();
+        names = new String[count];
+        conductance = new double[count];
+        positive = new int[count];
+        negative = new int[count];
+        for (int r = 0; r < count; r++) {
+            names[r] = resistors.get(r).getName();
+            conductance[r] = 1 / resistors.get(r).getValue();
+            positive[r] = resistors.get(r).getPositiveIndex();
+            negative[r] = resistors.get(r).getNegativeIndex();
+        }
+    }
+
+    /**
+     * Runs every fault on the pool and returns the table. Row 2r is resistor r opened and row 2r + 1 is it shorted.
+     */
+    FaultTable run(ForkJoinPool pool, List<String> nodes) {
+        int count = names.length;
+        deviations = new float[2 * count * nodeCount];
+        pool.invoke(new FaultTask(0, count));
+
+        String[] elements = new String[2 * count];
+        byte[] types = new byte[2 * count];
+        for (int r = 0; r < count; r++) {
+            elements[2 * r] = names[r];
+            elements[2 * r + 1] = names[r];
+            types[2 * r] = FaultTable.OPEN;
+            types[2 * r + 1] = FaultTable.SHORT;
+        }
+        return new FaultTable(nodes, Arrays.copyOf(nominal, nodeCount), elements, types, deviations);
+    }
+
+    /**
+     * Computes both faults of resistor r.
+     */
+    private void fault(int r) {
+        int pn = positive[r], nn = negative[r];
+        int open = 2 * r * nodeCount, shorted = (2 * r + 1) * nodeCount;
+        if (pn == -1 && nn == -1) {     // both ends on ground, nothing changes
+            return;
+        }
+
+        double[] u = new double[factors.getSize()];
+        if (pn != -1) {
+            u[pn] += 1;
+        }
+        if (nn != -1) {
+            u[nn] -= 1;
+        }
+        double[] z = factors.solve(u);
+        if (z == null) {
+            logger.log(Level.SEVERE, "fault method from FaultSimulator could not solve for resistor " + names[r] + ". Its faults are NaN.");
+            Arrays.fill(deviations, open, shorted + nodeCount, Float.NaN);
+            return;
+        }
+        double ux = (pn == -1 ? 0 : nominal[pn]) - (nn == -1 ? 0 : nominal[nn]);
+        double uz = (pn == -1 ? 0 : z[pn]) - (nn == -1 ? 0 : z[nn]);
+
+        write(open, z, -conductance[r], ux, uz);
+        write(shorted, z, shortConductance - conductance[r], ux, uz);
+    }
+
+    private void write(int row, double[] z, double d, double ux, double uz) {
+        double denominator = 1 + d * uz;
+        if (Math.abs(denominator) <= SINGULAR * (1 + Math.abs(d * uz))) {
+            Arrays.fill(deviations, row, row + nodeCount, Float.NaN);
+            return;
+        }
+        double alpha = d * ux / denominator;
+        for (int i = 0; i < nodeCount; i++) {
+            deviations[row + i] = (float) (-alpha * z[i]);
+        }
+    }
+
+    private class FaultTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from, to;
+
+        FaultTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                for (int r = from; r < to; r++) {
+                    fault(r);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FaultTask(from, mid), new FaultTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package CircuitSim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class stores the result of a single-fault simulation in flat arrays. Fault f is the element getElement(f)
+ * opened or shorted, and its row holds the deviation of every node voltage from the nominal solution. Deviations are
+ * stored as float, which is plenty for coverage analysis and halves the table size. A fault that makes the circuit
+ * singular, for example opening the only path to a node, has a row of NaN.
+ */
+public class FaultTable {
+    public static final byte OPEN = 0;
+    public static final byte SHORT = 1;
+
+    private List<String> nodes;
+    private double[] nominal;
+    private String[] elements;
+    private byte[] types;
+    private float[] deviations;     // fault f, node i is at f * nodes.size() + i
+
+    public FaultTable(List<String> nodes, double[] nominal, String[] elements, byte[] types, float[] deviations) {
+        this.nodes = new ArrayList<>(nodes);
+        this.nominal = nominal;
+        this.elements = elements;
+        this.types = types;
+        this.deviations = deviations;
+    }
+
+    public int getFaultCount() {
+        return elements.length;
+    }
+
+    public String getElement(int fault) {
+        return elements[fault];
+    }
+
+    /**
+     * Returns OPEN or SHORT.
+     */
+    public byte getType(int fault) {
+        return types[fault];
+    }
+
+    /**
+     * Returns the deviation of a node voltage from nominal under a fault.
+     *
+     * @param fault     index of the fault.
+     * @param node      index of the node in getNodes().
+     * @return          Returns the deviation, or NaN if the fault makes the circuit singular.
+     */
+    public double getDeviation(int fault, int node) {
+        return deviations[fault * nodes.size() + node];
+    }
+
+    /**
+     * Returns the largest absolute node voltage deviation of a fault.
+     *
+     * @param fault     index of the fault.
+     * @return          Returns the largest deviation, or NaN if the fault makes the circuit singular.
+     */
+    public double getMaxDeviation(int fault) {
+        double max = 0;
+        for (int i = fault * nodes.size(); i < (fault + 1) * nodes.size(); i++) {
+            if (Float.isNaN(deviations[i])) {
+                return Double.NaN;
+            }
+            max = Math.max(max, Math.abs(deviations[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Returns the index of the fault on an element, or -1 if there is none.
+     *
+     * @param element   name of the element.
+     * @param type      OPEN or SHORT.
+     */
+    public int indexOf(String element, byte type) {
+        for (int f = 0; f < elements.length; f++) {
+            if (types[f] == type && elements[f].equals(element)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public double[] getNominalVoltages() {
+        return nominal;
+    }
+}
@@ -0,0 +1,462 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import CircuitOjects.ValueParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class reads a SPICE netlist and adds its elements to a Circuit. The file is memory-mapped and scanned byte by
+ * byte, so no String is made per line; the only Strings are element names and the first occurrence of each node name.
+ *
+ * The card syntax is the usual one,
+ *      first line              title, ignored
+ *      * ...                   comment line
+ *      ... ; ...               the rest of the line is a comment
+ *      + ...                   continues the previous card
+ *      Rname n+ n- value
+ *      Vname n+ n- [DC] value
+ *      Iname n+ n- [DC] value
+ *      .subckt name p1 p2 ...  starts a subcircuit definition with its ports
+ *      .ends [name]            ends it
+ *      Xname n1 n2 ... name    instance of a subcircuit, inside a definition or not
+ *      .end                    stops reading
+ * Element letters are not case sensitive and values follow the SPICE rules of ValueParser. Other elements and control
+ * cards are skipped. Definitions are added to the circuit, so they can be used before they are defined; instances are
+ * resolved after the whole file is read.
+ *
+ * Files larger than the mapping window are mapped window by window. A card never spans two windows; the next window
+ * starts at the first card that was not complete.
+ */
+public class NetlistReader {
+    private static final long WINDOW = 1L << 30;    // bytes mapped at a time
+    private static Logger logger = Logger.getLogger(NetlistReader.class.getName());
+
+    private Circuit circuit;
+    private ByteBuffer buffer;
+    private ValueParser.Bytes bytes;     // the buffer as characters for the value parser
+    private boolean titleRead, ended;
+    private long lineNumber, cardLine;
+    private int skipped;
+    private SubcircuitDefinition definition;    // definition the cards are added to, null outside of one
+
+    // instances to resolve at the end, the owning definition is null for the circuit itself
+    private List<SubcircuitDefinition> instanceOwners = new ArrayList<>();
+    private List<String> instanceNames = new ArrayList<>();
+    private List<List<String>> instanceNodes = new ArrayList<>();
+    private List<String> instanceDefinitions = new ArrayList<>();
+    private List<Long> instanceLines = new ArrayList<>();
+
+    // tokens of the current card as positions in the buffer
+    private int[] tokenStart, tokenEnd;
+    private int tokenCount;
+
+    // node names seen so far, so each node name is made into a String once
+    private String[] names;
+    private int[] hashes;
+    private int nameCount;
+    private byte[] scratch;
+
+    private NetlistReader(Circuit circuit) {
+        this.circuit = circuit;
+        tokenStart = new int[8];
+        tokenEnd = new int[8];
+        names = new String[1024];
+        hashes = new int[1024];
+        scratch = new byte[64];
+        bytes = new ValueParser.Bytes(null);
+        lineNumber = 1;
+    }
+
+    /**
+     * Reads a netlist file into a new circuit.
+     *
+     * @param path  path of the netlist file.
+     * @return      Returns the circuit if successful. Otherwise, returns null.
+     */
+    public static Circuit read(Path path) {
+        Circuit circuit = new Circuit();
+        return read(path, circuit) ? circuit : null;
+    }
+
+    /**
+     * Reads a netlist file and adds its elements to the circuit. If it fails, the elements before the failing card are
+     * already added.
+     *
+     * @param path      path of the netlist file.
+     * @param circuit   circuit the elements are added to.
+     * @return          Returns true if successful. Otherwise, returns false.
+     */
+    public static boolean read(Path path, Circuit circuit) {
+        NetlistReader reader = new NetlistReader(circuit);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long base = 0;
+            do {
+                long length = Math.min(WINDOW, size - base);
+                boolean last = base + length == size;
+                int consumed = reader.parse(channel.map(FileChannel.MapMode.READ_ONLY, base, length), last);
+                if (consumed < 0) {
+                    return false;
+                }
+                if (last || reader.ended) {
+                    break;
+                }
+                if (consumed == 0) {
+                    logger.log(Level.SEVERE, "read method from NetlistReader failed. Card at line " + reader.cardLine + " is longer than the mapping window.");
+                    return false;
+                }
+                base += consumed;
+            } while (true);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "read method from NetlistReader failed to read " + path + ": " + e.getMessage());
+            return false;
+        }
+        return reader.finish();
+    }
+
+    /**
+     * Reads a netlist held in a buffer and adds its elements to the circuit. The buffer is read from 0 to its limit.
+     *
+     * @param netlist   buffer holding the whole netlist.
+     * @param circuit   circuit the elements are added to.
+     * @return          Returns true if successful. Otherwise, returns false.
+     */
+    public static boolean read(ByteBuffer netlist, Circuit circuit) {
+        NetlistReader reader = new NetlistReader(circuit);
+        return reader.parse(netlist, true) >= 0 && reader.finish();
+    }
+
+    /**
+     * Resolves the subcircuit instances against the definitions of the circuit and adds them.
+     */
+    private boolean finish() {
+        if (skipped > 0) {
+            logger.log(Level.INFO, "NetlistReader skipped " + skipped + " unsupported cards.");
+        }
+        if (definition != null) {
+            logger.log(Level.SEVERE, "NetlistReader: subcircuit " + definition.getName() + " has no .ends card.");
+            return false;
+        }
+        for (int i = 0; i < instanceNames.size(); i++) {
+            SubcircuitDefinition d = circuit.getDefinition(instanceDefinitions.get(i));
+            if (d == null) {
+                logger.log(Level.SEVERE, "NetlistReader line " + instanceLines.get(i) + ": subcircuit " + instanceDefinitions.get(i) + " is not defined.");
+                return false;
+            }
+            SubcircuitInstance instance = new SubcircuitInstance(instanceNames.get(i), d, instanceNodes.get(i));
+            SubcircuitDefinition owner = instanceOwners.get(i);
+            if (!(owner == null ? circuit.addInstance(instance) : owner.addInstance(instance))) {
+                logger.log(Level.SEVERE, "NetlistReader line " + instanceLines.get(i) + ": instance " + instanceNames.get(i) + " could not be added.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the complete cards of one window.
+     *
+     * @param window    mapped window of the file.
+     * @param last      true if the window reaches the end of the file.
+     * @return          Returns the position of the first card that is not complete, or -1 if a card is invalid.
+     */
+    private int parse(ByteBuffer window, boolean last) {
+        buffer = window;
+        bytes.setBuffer(window);
+        int limit = window.limit();
+        int position = 0;
+        int cardStart = 0;
+        tokenCount = 0;
+
+        while (position < limit && !ended) {
+            int end = position;
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && !last) {
+                // the line or the card may go on in the next window
+                if (tokenCount > 0) {
+                    lineNumber = cardLine;
+                    return cardStart;
+                }
+                return position;
+            }
+
+            int lineStart = position;
+            int first = skipBlank(position, end);
+            if (!titleRead) {
+                titleRead = true;
+            }
+            else if (first < end && window.get(first) == '+') {
+                if (tokenCount == 0) {
+                    logger.log(Level.SEVERE, "NetlistReader line " + lineNumber + ": continuation line without a card.");
+                    return -1;
+                }
+                tokenize(first + 1, end);
+            }
+            else if (first < end && window.get(first) != '*' && window.get(first) != ';' && window.get(first) != '\r') {
+                if (!addCard()) {
+                    return -1;
+                }
+                cardStart = lineStart;
+                cardLine = lineNumber;
+                tokenize(first, end);
+            }
+            position = end + 1;
+            lineNumber++;
+        }
+
+        if (!ended && !addCard()) {
+            return -1;
+        }
+        return limit;
+    }
+
+    private int skipBlank(int position, int end) {
+        while (position < end && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == ',' || b == '(' || b == ')' || b == '=';
+    }
+
+    /**
+     * Appends the tokens between start and end to the current card.
+     */
+    private void tokenize(int start, int end) {
+        int p = start;
+        while (p < end) {
+            byte b = buffer.get(p);
+            if (b == ';') {
+                return;
+            }
+            if (isSeparator(b)) {
+                p++;
+                continue;
+            }
+            int tokenBegin = p;
+            while (p < end && !isSeparator(buffer.get(p)) && buffer.get(p) != ';') {
+                p++;
+            }
+            if (tokenCount == tokenStart.length) {
+                tokenStart = Arrays.copyOf(tokenStart, tokenCount * 2);
+                tokenEnd = Arrays.copyOf(tokenEnd, tokenCount * 2);
+            }
+            tokenStart[tokenCount] = tokenBegin;
+            tokenEnd[tokenCount++] = p;
+        }
+    }
+
+    /**
+     * Adds the element of the current card to the circuit and clears the card.
+     *
+     * @return  Returns false if the card is invalid. Otherwise, returns true.
+     */
+    private boolean addCard() {
+        if (tokenCount == 0) {
+            return true;
+        }
+        int count = tokenCount;
+        tokenCount = 0;
+
+        byte type = buffer.get(tokenStart[0]);
+        if (type == '.') {
+            if (equalsIgnoreCase(0, ".end")) {
+                ended = true;
+            }
+            else if (equalsIgnoreCase(0, ".subckt")) {
+                return startDefinition(count);
+            }
+            else if (equalsIgnoreCase(0, ".ends")) {
+                if (definition == null) {
+                    logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": .ends without .subckt.");
+                    return false;
+                }
+                definition = null;
+            }
+            return true;
+        }
+        type = (byte) Character.toUpperCase(type);
+        if (type == 'X') {
+            return addInstanceCard(count);
+        }
+        if (type != 'R' && type != 'V' && type != 'I') {
+            skipped++;
+            return true;
+        }
+
+        int valueToken = 3;
+        if (type != 'R' && count > 4 && equalsIgnoreCase(3, "dc")) {
+            valueToken = 4;
+        }
+        if (count <= valueToken) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": element needs two nodes and a value.");
+            return false;
+        }
+        double value = ValueParser.parse(bytes, tokenStart[valueToken], tokenEnd[valueToken], true);
+        if (Double.isNaN(value)) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": invalid value.");
+            return false;
+        }
+
+        String name = text(tokenStart[0], tokenEnd[0]);
+        String positiveNode = node(tokenStart[1], tokenEnd[1]);
+        String negativeNode = node(tokenStart[2], tokenEnd[2]);
+        CircuitElement element;
+        if (type == 'R') {
+            element = new Resistor(name, positiveNode, negativeNode, value);
+        }
+        else if (type == 'V') {
+            element = new IVS(name, positiveNode, negativeNode, value);
+        }
+        else {
+            element = new ICS(name, positiveNode, negativeNode, value);
+        }
+        if (!(definition == null ? circuit.addElement(element) : definition.addElement(element))) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": element " + name + " could not be added.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Starts the definition of a .subckt card. Definitions can not be nested.
+     */
+    private boolean startDefinition(int count) {
+        if (definition != null) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": .subckt inside subcircuit " + definition.getName() + ".");
+            return false;
+        }
+        if (count < 3) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": .subckt needs a name and at least one port.");
+            return false;
+        }
+        List<String> ports = new ArrayList<>(count - 2);
+        for (int t = 2; t < count; t++) {
+            ports.add(node(tokenStart[t], tokenEnd[t]));
+        }
+        SubcircuitDefinition d = new SubcircuitDefinition(text(tokenStart[1], tokenEnd[1]), ports);
+        if (!circuit.addDefinition(d)) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": subcircuit " + d.getName() + " is already defined.");
+            return false;
+        }
+        definition = d;
+        return true;
+    }
+
+    /**
+     * Records the instance of an X card, to be resolved by finish().
+     */
+    private boolean addInstanceCard(int count) {
+        if (count < 3) {
+            logger.log(Level.SEVERE, "NetlistReader line " + cardLine + ": instance needs at least one node and a subcircuit name.");
+            return false;
+        }
+        List<String> nodes = new ArrayList<>(count - 2);
+        for (int t = 1; t < count - 1; t++) {
+            nodes.add(node(tokenStart[t], tokenEnd[t]));
+        }
+        instanceNames.add(text(tokenStart[0], tokenEnd[0]));
+        instanceNodes.add(nodes);
+        instanceDefinitions.add(text(tokenStart[count - 1], tokenEnd[count - 1]));
+        instanceOwners.add(definition);
+        instanceLines.add(cardLine);
+        return true;
+    }
+
+    private boolean equalsIgnoreCase(int token, String s) {
+        if (tokenEnd[token] - tokenStart[token] != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.toLowerCase(buffer.get(tokenStart[token] + i)) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String text(int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the node name between start and end, made into a String only the first time it is seen.
+     */
+    private String node(int start, int end) {
+        int hash = 0;
+        for (int p = start; p < end; p++) {
+            hash = hash * 31 + (buffer.get(p) & 0xFF);
+        }
+        int mask = names.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (names[slot] != null) {
+            if (hashes[slot] == hash && sameText(names[slot], start, end)) {
+                return names[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String name = text(start, end);
+        names[slot] = name;
+        hashes[slot] = hash;
+        if (++nameCount * 2 > names.length) {
+            rehash();
+        }
+        return name;
+    }
+
+    private boolean sameText(String s, int start, int end) {
+        if (s.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != (buffer.get(start + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = (oldHashes[i] ^ (oldHashes[i] >>> 16)) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = oldNames[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class shrinks a circuit before it is stamped by collapsing resistor networks,
+ *      parallel    resistors between the same two nodes become one, R = 1 / (1 / R1 + 1 / R2).
+ *      series      a node with only two resistors and nothing else on it is eliminated and the two resistors become
+ *                  one, R = R1 + R2.
+ *      dangling    a node with only one resistor carries no current and is eliminated with it.
+ * Nodes with a source or a subcircuit instance on them and ground are never eliminated.
+ *
+ * The reduction only depends on the topology, so it is worked out once and recorded as a list of series and parallel
+ * operations over edge IDs. refresh() replays the list with the current resistor values, so the reduced circuit, its
+ * stamp plan and its symbolic factorization are reused. After the reduced circuit is solved, expand() gets each
+ * eliminated node voltage back in reverse elimination order as the weighted mean of its two neighbors,
+ *      Vx = (R2 * Vu + R1 * Vw) / (R1 + R2)
+ */
+class NetworkReducer {
+    private static final byte SERIES = 0, PARALLEL = 1;
+
+    // original circuit
+    private int nodeCount, branchCount;
+    private CircuitElement[] resistors;     // edge i < resistors.length is resistor i
+    private CircuitElement[] sources, sourceCopies;
+
+    // edges made by the reduction, edge resistors.length + k is made by operation k
+    private byte[] opKind;
+    private int[] opFirst, opSecond;
+    private int opCount;
+    private double[] resistance;
+
+    // eliminated nodes in order, the voltage of node x comes from vertexes u and w through edges eu and ew
+    private int[] eliminated, elimU, elimEdgeU, elimW, elimEdgeW;
+    private int eliminatedCount;
+
+    // reduced circuit
+    private Circuit reduced;
+    private StampPlan plan;
+    private int[] reducedEdges;             // edge of each reduced resistor
+    private CircuitElement[] reducedResistors;
+    private int[] reducedNode;              // reduced node ID of each kept node, -1 if eliminated
+
+    private NetworkReducer() {
+    }
+
+    /**
+     * Works out the reduction of the circuit and builds the reduced circuit.
+     *
+     * @param circuit   circuit to be reduced, its elements carry their node IDs.
+     * @return          Returns the reducer.
+     */
+    static NetworkReducer build(Circuit circuit) {
+        NetworkReducer reducer = new NetworkReducer();
+        List<CircuitElement> elements = circuit.getElementList();
+        int n = circuit.getNodeTable().size();
+        int ground = n;
+        reducer.nodeCount = n;
+        reducer.branchCount = circuit.getVoltageSourceList().size();
+
+        int resistorCount = 0;
+        for (CircuitElement c : elements) {
+            resistorCount += c instanceof Resistor ? 1 : 0;
+        }
+        reducer.resistors = new CircuitElement[resistorCount];
+        reducer.sources = new CircuitElement[elements.size() - resistorCount];
+        boolean[] pinned = new boolean[n + 1];
+        pinned[ground] = true;
+        for (int i = 0, r = 0, s = 0; i < elements.size(); i++) {
+            CircuitElement c = elements.get(i);
+            if (c instanceof Resistor) {
+                reducer.resistors[r++] = c;
+            }
+            else {
+                reducer.sources[s++] = c;
+                pinned[vertex(c.getPositiveIndex(), ground)] = true;
+                pinned[vertex(c.getNegativeIndex(), ground)] = true;
+            }
+        }
+        for (SubcircuitInstance x : circuit.getInstanceList()) {
+            for (int index : x.getNodeIndices()) {
+                pinned[vertex(index, ground)] = true;
+            }
+        }
+        Reduction reduction = new Reduction(reducer, n, pinned);
+        reduction.run();
+        reducer.buildReduced(circuit, reduction);
+        return reducer;
+    }
+
+    private static int vertex(int nodeId, int ground) {
+        return nodeId == NodeTable.GROUND_ID ? ground : nodeId;
+    }
+
+    /**
+     * The graph work of build(): edges with their end vertexes, incidence lists and the parallel edge index.
+     */
+    private static class Reduction {
+        private NetworkReducer reducer;
+        private int ground;
+        private boolean[] pinned, gone;
+        private int[] edgeA, edgeB;
+        private boolean[] alive;
+        private int edgeCount;
+        private int[][] incident;
+        private int[] incidentCount, degree;
+        private PairIndex pairs;
+        private int[] work;     // stack of nodes to look at
+        private int workCount;
+
+        Reduction(NetworkReducer reducer, int n, boolean[] pinned) {
+            this.reducer = reducer;
+            this.ground = n;
+            this.pinned = pinned;
+            gone = new boolean[n + 1];
+            int capacity = Math.max(4, 2 * reducer.resistors.length);
+            edgeA = new int[capacity];
+            edgeB = new int[capacity];
+            alive = new boolean[capacity];
+            incident = new int[n + 1][];
+            incidentCount = new int[n + 1];
+            degree = new int[n + 1];
+            pairs = new PairIndex(reducer.resistors.length);
+            work = new int[n + 1];
+            reducer.opKind = new byte[capacity];
+            reducer.opFirst = new int[capacity];
+            reducer.opSecond = new int[capacity];
+            reducer.eliminated = new int[n];
+            reducer.elimU = new int[n];
+            reducer.elimEdgeU = new int[n];
+            reducer.elimW = new int[n];
+            reducer.elimEdgeW = new int[n];
+        }
+
+        void run() {
+            edgeCount = reducer.resistors.length;
+            for (int e = 0; e < reducer.resistors.length; e++) {
+                CircuitElement c = reducer.resistors[e];
+                edgeA[e] = vertex(c.getPositiveIndex(), ground);
+                edgeB[e] = vertex(c.getNegativeIndex(), ground);
+                if (edgeA[e] != edgeB[e]) {     // a resistor from a node to itself does nothing
+                    attach(e);
+                }
+            }
+            for (int v = ground - 1; v >= 0; v--) {
+                if (!pinned[v]) {
+                    push(v);
+                }
+            }
+
+            while (workCount > 0) {
+                int x = work[--workCount];
+                if (gone[x] || pinned[x] || degree[x] == 0 || degree[x] > 2) {
+                    continue;
+                }
+                int e1 = -1, e2 = -1;
+                for (int p = 0; p < incidentCount[x]; p++) {
+                    int e = incident[x][p];
+                    if (alive[e]) {
+                        if (e1 == -1) {
+                            e1 = e;
+                        }
+                        else {
+                            e2 = e;
+                        }
+                    }
+                }
+                int u = other(e1, x);
+                int w = e2 == -1 ? u : other(e2, x);
+                detach(e1);
+                if (e2 != -1) {
+                    detach(e2);
+                }
+                gone[x] = true;
+                int k = reducer.eliminatedCount++;
+                reducer.eliminated[k] = x;
+                reducer.elimU[k] = u;
+                reducer.elimEdgeU[k] = e1;
+                reducer.elimW[k] = w;
+                reducer.elimEdgeW[k] = e2;
+
+                if (e2 != -1 && u != w) {
+                    attach(operation(SERIES, e1, e2, u, w));
+                }
+                push(u);
+                push(w);
+            }
+        }
+
+        private void push(int v) {
+            if (workCount == work.length) {
+                work = Arrays.copyOf(work, workCount * 2);
+            }
+            work[workCount++] = v;
+        }
+
+        private int other(int e, int x) {
+            return edgeA[e] == x ? edgeB[e] : edgeA[e];
+        }
+
+        /**
+         * Makes the edge live, merging it with a live edge between the same vertexes if there is one.
+         */
+        private void attach(int e) {
+            int a = edgeA[e], b = edgeB[e];
+            long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+            int parallel = pairs.get(key);
+            if (parallel != -1) {
+                detach(parallel);
+                e = operation(PARALLEL, parallel, e, a, b);
+            }
+            alive[e] = true;
+            pairs.put(key, e);
+            degree[a]++;
+            degree[b]++;
+            add(a, e);
+            add(b, e);
+        }
+
+        private void detach(int e) {
+            int a = edgeA[e], b = edgeB[e];
+            alive[e] = false;
+            pairs.remove(((long) Math.min(a, b) << 32) | Math.max(a, b));
+            degree[a]--;
+            degree[b]--;
+        }
+
+        private void add(int v, int e) {
+            if (incident[v] == null) {
+                incident[v] = new int[4];
+            }
+            else if (incidentCount[v] == incident[v].length) {
+                // drop dead edges before growing
+                int live = 0;
+                for (int p = 0; p < incidentCount[v]; p++) {
+                    if (alive[incident[v][p]]) {
+                        incident[v][live++] = incident[v][p];
+                    }
+                }
+                incidentCount[v] = live;
+                if (live == incident[v].length) {
+                    incident[v] = Arrays.copyOf(incident[v], live * 2);
+                }
+            }
+            incident[v][incidentCount[v]++] = e;
+        }
+
+        private int operation(byte kind, int first, int second, int a, int b) {
+            if (edgeCount == edgeA.length) {
+                edgeA = Arrays.copyOf(edgeA, edgeCount * 2);
+                edgeB = Arrays.copyOf(edgeB, edgeCount * 2);
+                alive = Arrays.copyOf(alive, edgeCount * 2);
+            }
+            int k = reducer.opCount++;
+            if (k == reducer.opKind.length) {
+                reducer.opKind = Arrays.copyOf(reducer.opKind, k * 2);
+                reducer.opFirst = Arrays.copyOf(reducer.opFirst, k * 2);
+                reducer.opSecond = Arrays.copyOf(reducer.opSecond, k * 2);
+            }
+            reducer.opKind[k] = kind;
+            reducer.opFirst[k] = first;
+            reducer.opSecond[k] = second;
+            edgeA[edgeCount] = a;
+            edgeB[edgeCount] = b;
+            return edgeCount++;
+        }
+
+        int[] liveEdges() {
+            int count = 0;
+            for (int e = 0; e < edgeCount; e++) {
+                count += alive[e] ? 1 : 0;
+            }
+            int[] live = new int[count];
+            for (int e = 0, i = 0; e < edgeCount; e++) {
+                if (alive[e]) {
+                    live[i++] = e;
+                }
+            }
+            return live;
+        }
+    }
+
+    /**
+     * This class maps a pair of vertexes to the live edge between them with open addressing and linear probing, since
+     * boxed Long keys of neighboring vertexes collide badly in a HashMap.
+     */
+    private static class PairIndex {
+        private long[] keys;
+        private int[] values;
+        private int count, shift;
+
+        PairIndex(int expected) {
+            int capacity = 16;
+            while (capacity < 2 * expected) {
+                capacity *= 2;
+            }
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key); values[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (count + 1) > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                allocate(keys.length * 2);
+                count = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != -1) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (values[i] != -1 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == -1) {
+                count++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (values[i] != -1 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == -1) {
+                return;
+            }
+            // shift later entries of the probe run back so lookups do not stop at the hole
+            count--;
+            int hole = i;
+            for (i = (i + 1) & mask; values[i] != -1; i = (i + 1) & mask) {
+                int home = slot(keys[i]);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            values[hole] = -1;
+        }
+    }
+
+    /**
+     * Builds the reduced circuit: copies of the sources in their original order, then one resistor per live edge named
+     * after the first original resistor in it, then the subcircuit instances, which share their definitions.
+     */
+    private void buildReduced(Circuit circuit, Reduction reduction) {
+        int edgeTotal = resistors.length + opCount;
+        int[] first = new int[edgeTotal];
+        for (int e = 0; e < resistors.length; e++) {
+            first[e] = e;
+        }
+        for (int k = 0; k < opCount; k++) {
+            first[resistors.length + k] = Math.min(first[opFirst[k]], first[opSecond[k]]);
+        }
+
+        NodeTable nodes = circuit.getNodeTable();
+        reduced = new Circuit();
+        sourceCopies = new CircuitElement[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            CircuitElement c = sources[i];
+            sourceCopies[i] = c instanceof IVS ? new IVS(c.getName(), c.getPositiveNode(), c.getNegativeNode(), c.getValue())
+                    : new ICS(c.getName(), c.getPositiveNode(), c.getNegativeNode(), c.getValue());
+            reduced.addElement(sourceCopies[i]);
+        }
+        reducedEdges = reduction.liveEdges();
+        reducedResistors = new CircuitElement[reducedEdges.length];
+        for (int i = 0; i < reducedEdges.length; i++) {
+            int e = reducedEdges[i];
+            reducedResistors[i] = new Resistor(resistors[first[e]].getName(), name(nodes, reduction.edgeA[e]), name(nodes, reduction.edgeB[e]), 1);
+            reduced.addElement(reducedResistors[i]);
+        }
+        for (SubcircuitInstance x : circuit.getInstanceList()) {
+            reduced.addInstance(new SubcircuitInstance(x.getName(), x.getDefinition(), x.getNodes()));
+        }
+
+        reducedNode = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            reducedNode[v] = reduction.gone[v] ? -1 : reduced.getNodeTable().indexOf(nodes.getName(v));
+        }
+        resistance = new double[edgeTotal];
+        plan = StampPlan.compile(reduced);
+    }
+
+    private String name(NodeTable nodes, int vertex) {
+        return vertex == nodeCount ? NodeTable.GROUND : nodes.getName(vertex);
+    }
+
+    /**
+     * Replays the recorded operations with the current element values and sets the values of the reduced circuit.
+     */
+    void refresh() {
+        for (int e = 0; e < resistors.length; e++) {
+            resistance[e] = resistors[e].getValue();
+        }
+        for (int k = 0; k < opCount; k++) {
+            double r1 = resistance[opFirst[k]], r2 = resistance[opSecond[k]];
+            resistance[resistors.length + k] = opKind[k] == SERIES ? r1 + r2 : 1 / (1 / r1 + 1 / r2);
+        }
+        for (int i = 0; i < reducedResistors.length; i++) {
+            reducedResistors[i].setValue(resistance[reducedEdges[i]]);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            sourceCopies[i].setValue(sources[i].getValue());
+        }
+        plan.refreshValues();
+    }
+
+    /**
+     * Returns the solution of the original circuit from the solution of the reduced one.
+     *
+     * @param solution  node voltages and branch currents of the reduced circuit.
+     * @return          Returns the node voltages and branch currents of the original circuit.
+     */
+    double[] expand(double[] solution) {
+        double[] full = new double[nodeCount + 1 + branchCount];
+        int ground = nodeCount;
+        for (int v = 0; v < nodeCount; v++) {
+            if (reducedNode[v] >= 0) {
+                full[v] = solution[reducedNode[v]];
+            }
+        }
+        full[ground] = 0;
+        for (int k = eliminatedCount - 1; k >= 0; k--) {
+            double vu = full[elimU[k]];
+            if (elimEdgeW[k] == -1) {
+                full[eliminated[k]] = vu;
+                continue;
+            }
+            double r1 = resistance[elimEdgeU[k]], r2 = resistance[elimEdgeW[k]];
+            double vw = full[elimW[k]];
+            full[eliminated[k]] = r1 + r2 == 0 ? vu : (r2 * vu + r1 * vw) / (r1 + r2);
+        }
+
+        // ground sits between the node voltages and the branch currents only while expanding
+        double[] result = new double[nodeCount + branchCount];
+        System.arraycopy(full, 0, result, 0, nodeCount);
+        int reducedNodes = reduced.getNodeTable().size();
+        System.arraycopy(solution, reducedNodes, result, nodeCount, branchCount);
+        return result;
+    }
+
+    Circuit getReduced() {
+        return reduced;
+    }
+
+    StampPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Returns the number of nodes the reduction eliminated.
+     */
+    int getEliminatedCount() {
+        return eliminatedCount;
+    }
+}
@@ -0,0 +1,128 @@
+package CircuitSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class interns node names to dense integer IDs. IDs are given out in the order nodes are first seen, so the row
+ * of each node in the MNA matrix is deterministic. The ground node "0" is not stored and always has ID -1.
+ *
+ * Each node keeps a count of the element terminals on it. When the count drops to zero the node is removed and the
+ * IDs above it move down by one, so the IDs stay dense.
+ */
+public class NodeTable {
+    public static final String GROUND = "0";
+    public static final int GROUND_ID = -1;
+
+    private HashMap<String, Integer> ids;
+    private List<String> names;
+    private int[] references;
+
+    public NodeTable() {
+        ids = new HashMap<>();
+        names = new ArrayList<>();
+        references = new int[16];
+    }
+
+    /**
+     * Creates a table that already holds the given nodes, for example ones read back from a compiled netlist.
+     *
+     * @param names         node names in ID order, ground excluded.
+     * @param references    number of element terminals on each node.
+     */
+    NodeTable(List<String> names, int[] references) {
+        this.names = new ArrayList<>(names);
+        this.references = Arrays.copyOf(references, Math.max(16, names.size()));
+        ids = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) {
+            ids.put(names.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the ID of a node and adds one reference to it. A node seen for the first time gets the next ID.
+     *
+     * @param name  name of the node.
+     * @return      Returns the ID of the node, or GROUND_ID for ground.
+     */
+    public int intern(String name) {
+        if (GROUND.equals(name)) {
+            return GROUND_ID;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+            if (id == references.length) {
+                references = Arrays.copyOf(references, id * 2);
+            }
+        }
+        references[id]++;
+        return id;
+    }
+
+    /**
+     * Removes one reference from a node. The node is removed when it has no references left.
+     *
+     * @param name  name of the node.
+     * @return      Returns the ID the node had if it was removed, or -1 if it is still in use or does not exist.
+     */
+    public int release(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            return -1;
+        }
+        if (--references[id] > 0) {
+            return -1;
+        }
+
+        ids.remove(name);
+        names.remove((int) id);
+        System.arraycopy(references, id + 1, references, id, names.size() - id);
+        references[names.size()] = 0;
+        for (int i = id; i < names.size(); i++) {
+            ids.put(names.get(i), i);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ID of a node without changing its references.
+     *
+     * @param name  name of the node.
+     * @return      Returns the ID, GROUND_ID for ground, or -2 if the node does not exist.
+     */
+    public int indexOf(String name) {
+        if (GROUND.equals(name)) {
+            return GROUND_ID;
+        }
+        Integer id = ids.get(name);
+        return id == null ? -2 : id;
+    }
+
+    public boolean contains(String name) {
+        return ids.containsKey(name);
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public int getReferences(int id) {
+        return references[id];
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Returns the node names in ID order.
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(names);
+    }
+}
@@ -0,0 +1,15 @@
+package CircuitSim;
+
+/**
+ * This enum lists the solvers CircuitSim can factor the MNA matrix with, see setSolver().
+ */
+public enum SolverType {
+    LU,                     // sparse LDL' or LU of the whole matrix on one thread
+    BANDED,                 // band LU after a reverse Cuthill-McKee ordering, see BandedLU
+    BLOCK_TRIANGULAR,       // diagonal blocks of the block triangular form factored in parallel, see BlockTriangularLU
+    MIXED_PRECISION,        // float LDL' refined to double accuracy, see MixedPrecisionSolver
+    DOMAIN_DECOMPOSITION,   // domain blocks factored in parallel, then the interface, see BorderedBlockLU
+    PCG_JACOBI,             // conjugate gradients with the Jacobi preconditioner, see ConjugateGradient
+    PCG_INCOMPLETE_CHOLESKY,// conjugate gradients with the IC(0) preconditioner
+    PCG_MULTIGRID           // conjugate gradients with an algebraic multigrid V-cycle, see AlgebraicMultigrid
+}
@@ -0,0 +1,282 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import LUObject.SparseMatrix;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is a circuit compiled for repeated MNA assembly. Compiling builds the sparse pattern once and turns every
+ * stamp into a flat entry (slot in the value array, sign, owning element), so assembly is one loop per entry kind with
+ * no instanceof checks, no node lookups and no allocation. It can run any number of times; refreshValues() picks up
+ * changed element values and computes each conductance once.
+ *
+ * A subcircuit instance is a dense block of entries taken from the macromodel of its definition, so its internal nodes
+ * cost nothing here and refreshValues() copies the shared macromodel values of every instance.
+ *
+ * The plan depends only on the topology, so it has to be compiled again after an element is added or removed.
+ */
+class StampPlan {
+    private int nodeCount, size;
+    private List<String> nodes;
+    private SparseMatrix matrix;
+
+    // conductance entries, values[gSlot[e]] += gSign[e] * conductance[gOwner[e]]
+    private CircuitElement[] resistors;
+    private double[] conductance;
+    private int[] gSlot, gOwner;
+    private double[] gSign;
+
+    // constant entries of the IVS incidence, values[cSlot[e]] += cValue[e]
+    private int[] cSlot;
+    private double[] cValue;
+
+    // right hand side, b[vRow[v]] = value of voltage source v and b[iRow[e]] += iSign[e] * value of iOwner[e]
+    private CircuitElement[] voltageSources;
+    private int[] vRow;
+    private CircuitElement[] currentSources;
+    private int[] iRow, iOwner;
+    private double[] iSign;
+
+    // subcircuit instances, values[xSlot[e]] += Y[xPort[e] / p][xPort[e] % p] and b[jRow[e]] += J[jPort[e]] of the
+    // definition of instance xOwner[e] or jOwner[e]
+    private SubcircuitInstance[] instances;
+    private int[] xSlot, xOwner, xPort;
+    private double[] xValue;
+    private int[] jRow, jOwner, jPort;
+    private double[] jValue;
+
+    private StampPlan() {
+    }
+
+    /**
+     * Compiles the circuit into a stamp plan using the node IDs and branch indices the circuit assigned.
+     *
+     * @param circuit   circuit to be compiled.
+     * @return          Returns the stamp plan.
+     */
+    static StampPlan compile(Circuit circuit) {
+        StampPlan plan = new StampPlan();
+        plan.nodes = circuit.getNodeList();
+        plan.nodeCount = plan.nodes.size();
+        plan.size = plan.nodeCount + circuit.getVoltageSourceList().size();
+        SparseMatrix pattern = new SparseMatrix(plan.size, plan.size);
+
+        int resistorCount = 0, gEntries = 0, cEntries = 0, iEntries = 0;
+        for (CircuitElement c : circuit.getElementList()) {
+            int terminals = (c.getPositiveIndex() == -1 ? 0 : 1) + (c.getNegativeIndex() == -1 ? 0 : 1);
+            if (c instanceof Resistor) {
+                resistorCount++;
+                gEntries += terminals * terminals;
+            }
+            else if (c instanceof IVS) {
+                cEntries += 2 * terminals;
+            }
+        }
+        for (CircuitElement c : circuit.getCurrentSourceList()) {
+            iEntries += (c.getPositiveIndex() == -1 ? 0 : 1) + (c.getNegativeIndex() == -1 ? 0 : 1);
+        }
+        int xEntries = 0, jEntries = 0;
+        for (SubcircuitInstance x : circuit.getInstanceList()) {
+            int terminals = 0;
+            for (int index : x.getNodeIndices()) {
+                terminals += index == -1 ? 0 : 1;
+            }
+            xEntries += terminals * terminals;
+            jEntries += terminals;
+        }
+
+        plan.resistors = new CircuitElement[resistorCount];
+        plan.conductance = new double[resistorCount];
+        plan.gSlot = new int[gEntries];
+        plan.gOwner = new int[gEntries];
+        plan.gSign = new double[gEntries];
+        plan.cSlot = new int[cEntries];
+        plan.cValue = new double[cEntries];
+        plan.voltageSources = circuit.getVoltageSourceList().toArray(new CircuitElement[0]);
+        plan.vRow = new int[plan.voltageSources.length];
+        plan.currentSources = circuit.getCurrentSourceList().toArray(new CircuitElement[0]);
+        plan.iRow = new int[iEntries];
+        plan.iOwner = new int[iEntries];
+        plan.iSign = new double[iEntries];
+        plan.instances = circuit.getInstanceList().toArray(new SubcircuitInstance[0]);
+        plan.xSlot = new int[xEntries];
+        plan.xOwner = new int[xEntries];
+        plan.xPort = new int[xEntries];
+        plan.xValue = new double[xEntries];
+        plan.jRow = new int[jEntries];
+        plan.jOwner = new int[jEntries];
+        plan.jPort = new int[jEntries];
+        plan.jValue = new double[jEntries];
+
+        // rows and columns first, the slots are looked up after the pattern is compressed
+        int[] gCol = new int[gEntries], cCol = new int[cEntries];
+        int r = 0, g = 0, k = 0;
+        for (CircuitElement c : circuit.getElementList()) {
+            int pn = c.getPositiveIndex(), nn = c.getNegativeIndex();
+            int[] ends = {pn, nn};
+            double[] signs = {1, -1};
+            if (c instanceof Resistor) {
+                for (int a = 0; a < 2; a++) {
+                    for (int b = 0; b < 2; b++) {
+                        if (ends[a] != -1 && ends[b] != -1) {
+                            pattern.add(ends[a], ends[b], 0);
+                            plan.gSlot[g] = ends[a];
+                            gCol[g] = ends[b];
+                            plan.gSign[g] = signs[a] * signs[b];
+                            plan.gOwner[g++] = r;
+                        }
+                    }
+                }
+                plan.resistors[r++] = c;
+            }
+            else if (c instanceof IVS) {
+                int branch = plan.nodeCount + ((IVS) c).getBranchIndex();
+                for (int a = 0; a < 2; a++) {
+                    if (ends[a] != -1) {
+                        pattern.add(ends[a], branch, 0);
+                        pattern.add(branch, ends[a], 0);
+                        plan.cSlot[k] = ends[a];
+                        cCol[k] = branch;
+                        plan.cValue[k++] = signs[a];
+                        plan.cSlot[k] = branch;
+                        cCol[k] = ends[a];
+                        plan.cValue[k++] = signs[a];
+                    }
+                }
+            }
+        }
+        for (int i = 0, e = 0; i < plan.currentSources.length; i++) {
+            CircuitElement c = plan.currentSources[i];
+            if (c.getPositiveIndex() != -1) {
+                plan.iRow[e] = c.getPositiveIndex();
+                plan.iSign[e] = -1;
+                plan.iOwner[e++] = i;
+            }
+            if (c.getNegativeIndex() != -1) {
+                plan.iRow[e] = c.getNegativeIndex();
+                plan.iSign[e] = 1;
+                plan.iOwner[e++] = i;
+            }
+        }
+        for (int v = 0; v < plan.voltageSources.length; v++) {
+            plan.vRow[v] = plan.nodeCount + ((IVS) plan.voltageSources[v]).getBranchIndex();
+        }
+        int[] xCol = new int[xEntries];
+        for (int i = 0, x = 0, j = 0; i < plan.instances.length; i++) {
+            int[] ports = plan.instances[i].getNodeIndices();
+            for (int a = 0; a < ports.length; a++) {
+                if (ports[a] == -1) {
+                    continue;
+                }
+                for (int c = 0; c < ports.length; c++) {
+                    if (ports[c] != -1) {
+                        pattern.add(ports[a], ports[c], 0);
+                        plan.xSlot[x] = ports[a];
+                        xCol[x] = ports[c];
+                        plan.xPort[x] = a * ports.length + c;
+                        plan.xOwner[x++] = i;
+                    }
+                }
+                plan.jRow[j] = ports[a];
+                plan.jPort[j] = a;
+                plan.jOwner[j++] = i;
+            }
+        }
+
+        pattern.compress();
+        for (int p = 0; p < g; p++) {
+            plan.gSlot[p] = pattern.find(plan.gSlot[p], gCol[p]);
+        }
+        for (int p = 0; p < k; p++) {
+            plan.cSlot[p] = pattern.find(plan.cSlot[p], cCol[p]);
+        }
+        for (int p = 0; p < xEntries; p++) {
+            plan.xSlot[p] = pattern.find(plan.xSlot[p], xCol[p]);
+        }
+        plan.matrix = pattern;
+        plan.refreshValues();
+        return plan;
+    }
+
+    /**
+     * Reads the current element values and computes the conductance of each resistor once. Instance entries are copied
+     * from the macromodels, which are computed here if they are not cached; an instance whose definition can not be
+     * reduced stamps zeros, so callers check Circuit.isValid() first.
+     */
+    void refreshValues() {
+        for (int r = 0; r < resistors.length; r++) {
+            conductance[r] = 1 / resistors[r].getValue();
+        }
+        for (int p = 0; p < xSlot.length; p++) {
+            SubcircuitDefinition d = instances[xOwner[p]].getDefinition();
+            double[][] y = d.getAdmittance();
+            xValue[p] = y == null ? 0 : y[xPort[p] / d.getPortCount()][xPort[p] % d.getPortCount()];
+        }
+        for (int p = 0; p < jRow.length; p++) {
+            double[] j = instances[jOwner[p]].getDefinition().getCurrent();
+            jValue[p] = j == null ? 0 : j[jPort[p]];
+        }
+    }
+
+    /**
+     * Assembles matrix A and vector B. The matrix is the one owned by the plan with its values overwritten, so the
+     * pattern is the same every time.
+     *
+     * @param b     right hand side vector of length getSize() to be stamped, it is cleared first.
+     * @return      Returns the assembled matrix A.
+     */
+    SparseMatrix assemble(double[] b) {
+        double[] values = matrix.getValues();
+        Arrays.fill(values, 0);
+        for (int p = 0; p < gSlot.length; p++) {
+            values[gSlot[p]] += gSign[p] * conductance[gOwner[p]];
+        }
+        for (int p = 0; p < cSlot.length; p++) {
+            values[cSlot[p]] += cValue[p];
+        }
+        for (int p = 0; p < xSlot.length; p++) {
+            values[xSlot[p]] += xValue[p];
+        }
+        assembleRHS(b);
+        return matrix;
+    }
+
+    /**
+     * Assembles vector B only, from the current IVS and ICS values and the instance currents of the last
+     * refreshValues().
+     *
+     * @param b     right hand side vector of length getSize() to be stamped, it is cleared first.
+     */
+    void assembleRHS(double[] b) {
+        Arrays.fill(b, 0);
+        for (int v = 0; v < voltageSources.length; v++) {
+            b[vRow[v]] = voltageSources[v].getValue();
+        }
+        for (int p = 0; p < iRow.length; p++) {
+            b[iRow[p]] += iSign[p] * currentSources[iOwner[p]].getValue();
+        }
+        for (int p = 0; p < jRow.length; p++) {
+            b[jRow[p]] += jValue[p];
+        }
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    List<String> getNodes() {
+        return nodes;
+    }
+
+    SparseMatrix getMatrix() {
+        return matrix;
+    }
+}
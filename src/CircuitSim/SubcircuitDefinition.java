@@ -0,0 +1,261 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import LUObject.SparseLU;
+import LUObject.SparseMatrix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a subcircuit definition (.SUBCKT). Its body is a circuit whose node names are local, except ground "0",
+ * and whose ports are the nodes an instance connects to the outside.
+ *
+ * A linear body is fully described at its ports by a Norton macromodel,
+ *      I = Y * Vports - J
+ * where I is the current flowing from the outside into each port. Splitting the MNA unknowns of the body into the ports
+ * P and everything else E (internal nodes and branch currents), Y and J are the Schur complement of E,
+ *      Y = A_PP - A_PE * A_EE^-1 * A_EP
+ *      J = b_P - A_PE * A_EE^-1 * b_E
+ * which is one sparse factorization of A_EE and one block solve with a column per port. The macromodel is computed once
+ * and shared by every instance, so an instance only adds a dense block of port count squared entries to the global
+ * matrix and the internal nodes never reach it. It is computed again only after the body changed or invalidate() was
+ * called.
+ *
+ * Instances of other definitions may be part of the body; their macromodels are stamped like any other element.
+ */
+public class SubcircuitDefinition {
+    private static final double COUPLING_TOLERANCE = 1E-12;
+
+    private String name;
+    private List<String> ports;
+    private Circuit body;
+    private Logger logger;
+
+    // Norton macromodel at the ports, null while stale
+    private double[][] admittance;
+    private double[] current;
+    private boolean[][] coupled;    // coupled[a][c] with c == port count meaning ground
+    private boolean reducing;       // guards against a definition that contains itself
+
+    /**
+     * @param name      name of the subcircuit.
+     * @param ports     local names of the port nodes in the order instances connect them.
+     */
+    public SubcircuitDefinition(String name, List<String> ports) {
+        this.name = name;
+        this.ports = Collections.unmodifiableList(new ArrayList<>(ports));
+        body = new Circuit();
+        logger = Logger.getLogger(this.getClass().getName());
+    }
+
+    /**
+     * Adds an element to the body.
+     *
+     * @param element   CircuitElement with local node names.
+     * @return  returns true if added successfully. Otherwise, returns false.
+     */
+    public boolean addElement(CircuitElement element) {
+        invalidate();
+        return body.addElement(element);
+    }
+
+    /**
+     * Adds an instance of another definition to the body.
+     *
+     * @param instance  instance with local node names.
+     * @return  returns true if added successfully. Otherwise, returns false.
+     */
+    public boolean addInstance(SubcircuitInstance instance) {
+        invalidate();
+        return body.addInstance(instance);
+    }
+
+    /**
+     * Drops the cached macromodel, so the next use computes it from the current element values. Needed after a value
+     * in the body was changed directly.
+     */
+    public void invalidate() {
+        admittance = null;
+        current = null;
+        coupled = null;
+    }
+
+    /**
+     * Computes the macromodel if it is not cached.
+     *
+     * @return  Returns true if the macromodel is available. Otherwise, returns false and logs why.
+     */
+    public boolean reduce() {
+        if (admittance != null) {
+            return true;
+        }
+        if (reducing) {
+            logger.log(Level.SEVERE, "Subcircuit " + name + " contains an instance of itself.");
+            return false;
+        }
+        reducing = true;
+        try {
+            return computeMacromodel();
+        } finally {
+            reducing = false;
+        }
+    }
+
+    private boolean computeMacromodel() {
+        int p = ports.size();
+        if (p == 0 || ports.contains(NodeTable.GROUND) || new HashSet<>(ports).size() != p) {
+            logger.log(Level.SEVERE, "Subcircuit " + name + " needs distinct ports other than ground.");
+            return false;
+        }
+        for (SubcircuitInstance x : body.getInstanceList()) {
+            if (!x.getDefinition().reduce()) {
+                logger.log(Level.SEVERE, "Subcircuit " + name + " could not be reduced because of instance " + x.getName() + ".");
+                return false;
+            }
+        }
+
+        StampPlan plan = StampPlan.compile(body);
+        plan.refreshValues();
+        int m = plan.getSize();
+        double[] b = new double[m];
+        SparseMatrix a = plan.assemble(b);
+
+        // place[row] is the port of a port row, or -1 - k for the k-th eliminated row
+        int[] place = new int[m];
+        for (int row = 0; row < m; row++) {
+            place[row] = -1;
+        }
+        for (int k = 0; k < p; k++) {
+            int row = body.getNodeTable().indexOf(ports.get(k));
+            if (row >= 0) {
+                place[row] = k;
+            }
+        }
+        int e = 0;
+        for (int row = 0; row < m; row++) {
+            if (place[row] == -1) {
+                place[row] = -1 - e++;
+            }
+        }
+
+        double[][] y = new double[p][p];
+        double[] j = new double[p];
+        double[][] pe = new double[p][e];       // A_PE
+        double[][] rhs = new double[e][p + 1];  // A_EP next to b_E
+        SparseMatrix ee = new SparseMatrix(e, e);
+        int[] colPtr = a.getColumnPointers();
+        int[] rowIdx = a.getRowIndices();
+        double[] values = a.getValues();
+        for (int col = 0; col < m; col++) {
+            int c = place[col];
+            for (int q = colPtr[col]; q < colPtr[col + 1]; q++) {
+                int r = place[rowIdx[q]];
+                if (r >= 0 && c >= 0) {
+                    y[r][c] += values[q];
+                }
+                else if (r >= 0) {
+                    pe[r][-1 - c] += values[q];
+                }
+                else if (c >= 0) {
+                    rhs[-1 - r][c] += values[q];
+                }
+                else {
+                    ee.add(-1 - r, -1 - c, values[q]);
+                }
+            }
+        }
+        for (int row = 0; row < m; row++) {
+            if (place[row] >= 0) {
+                j[place[row]] = b[row];
+            }
+            else {
+                rhs[-1 - place[row]][p] = b[row];
+            }
+        }
+
+        if (e > 0) {
+            ee.compress();
+            SparseLU factors = SparseLU.factor(ee);
+            if (factors == null) {
+                logger.log(Level.SEVERE, "Subcircuit " + name + " could not be reduced. Its internal nodes have no DC path to a port or ground.");
+                return false;
+            }
+            double[][] x = factors.solve(rhs);
+            for (int r = 0; r < p; r++) {
+                for (int k = 0; k < e; k++) {
+                    double w = pe[r][k];
+                    if (w != 0) {
+                        for (int c = 0; c < p; c++) {
+                            y[r][c] -= w * x[k][c];
+                        }
+                        j[r] -= w * x[k][p];
+                    }
+                }
+            }
+        }
+
+        boolean[][] links = new boolean[p][p + 1];
+        for (int r = 0; r < p; r++) {
+            double scale = 0, sum = 0;
+            for (int c = 0; c < p; c++) {
+                scale = Math.max(scale, Math.abs(y[r][c]));
+                sum += y[r][c];
+            }
+            for (int c = 0; c < p; c++) {
+                links[r][c] = c != r && Math.abs(y[r][c]) > COUPLING_TOLERANCE * scale;
+            }
+            links[r][p] = Math.abs(sum) > COUPLING_TOLERANCE * scale;
+        }
+        admittance = y;
+        current = j;
+        coupled = links;
+        return true;
+    }
+
+    /**
+     * Returns the port admittance matrix Y, computing it if needed.
+     *
+     * @return  Returns Y indexed by port, or null if the body could not be reduced.
+     */
+    public double[][] getAdmittance() {
+        return reduce() ? admittance : null;
+    }
+
+    /**
+     * Returns the Norton current J pushed into each port by the sources of the body, computing it if needed.
+     *
+     * @return  Returns J indexed by port, or null if the body could not be reduced.
+     */
+    public double[] getCurrent() {
+        return reduce() ? current : null;
+    }
+
+    /**
+     * Returns true if the macromodel couples port a to port c, or to ground if c is the port count. Topology checks use
+     * it to treat an instance as the connections it really makes.
+     */
+    public boolean isCoupled(int a, int c) {
+        return reduce() && coupled[a][c];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getPorts() {
+        return ports;
+    }
+
+    public int getPortCount() {
+        return ports.size();
+    }
+
+    public Circuit getBody() {
+        return body;
+    }
+}
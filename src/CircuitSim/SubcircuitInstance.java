@@ -0,0 +1,105 @@
+package CircuitSim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is an instance of a subcircuit (an X card). It connects the ports of its definition, in order, to nodes of
+ * the circuit it is added to, and is stamped with the macromodel of the definition, so the internal nodes of the
+ * definition are not part of the circuit.
+ */
+public class SubcircuitInstance {
+    private String name;
+    private SubcircuitDefinition definition;
+    private List<String> nodes;
+    private int[] nodeIndices;
+    private Logger logger;
+
+    /**
+     * @param name          name of the instance.
+     * @param definition    subcircuit definition.
+     * @param nodes         node names connected to the ports of the definition, in port order.
+     */
+    public SubcircuitInstance(String name, SubcircuitDefinition definition, List<String> nodes) {
+        this.name = name;
+        this.definition = definition;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        nodeIndices = new int[nodes.size()];
+        logger = Logger.getLogger(this.getClass().getName());
+    }
+
+    /**
+     * This is the stamping method for an instance. The admittance Y of the definition goes to the rows and columns of the
+     * port nodes and the Norton current J to vector B,
+     *          Nb
+     *  Na      Y[a][b]         B[Na] += J[a]
+     * Rows and columns of ports connected to ground are not stamped.
+     *
+     * @param matrixA   the left hand matrix A to be stamped on.
+     * @param b         the right hand vector B to be stamped on.
+     * @return          Returns true if it is stamped successfully. Otherwise, returns false.
+     */
+    public boolean stamp(double[][] matrixA, double[] b) {
+        double[][] y = definition.getAdmittance();
+        if (y == null || !withinBound(matrixA.length)) {
+            logger.log(Level.INFO, name + "'s stamp method has issues. It's either because the definition could not be reduced OR node position OutOfBound.");
+            return false;
+        }
+        double[] j = definition.getCurrent();
+        for (int a = 0; a < nodeIndices.length; a++) {
+            if (nodeIndices[a] == -1) {
+                continue;
+            }
+            for (int c = 0; c < nodeIndices.length; c++) {
+                if (nodeIndices[c] != -1) {
+                    matrixA[nodeIndices[a]][nodeIndices[c]] += y[a][c];
+                }
+            }
+            b[nodeIndices[a]] += j[a];
+        }
+        return true;
+    }
+
+    private boolean withinBound(int size) {
+        for (int index : nodeIndices) {
+            if (index < -1 || index >= size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SubcircuitDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the node names connected to the ports, in port order.
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the node ID of each port, -1 for ground.
+     */
+    public int[] getNodeIndices() {
+        return nodeIndices;
+    }
+
+    /**
+     * Sets the node IDs of the ports. Called by the circuit when the nodes are interned.
+     *
+     * @param indices   node ID of each port, -1 for ground.
+     */
+    public void setNodeIndices(int[] indices) {
+        System.arraycopy(indices, 0, nodeIndices, 0, nodeIndices.length);
+    }
+}
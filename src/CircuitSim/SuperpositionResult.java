@@ -0,0 +1,62 @@
+package CircuitSim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class stores the contribution of each independent source to every node voltage.
+ * Row s of the contributions is the node voltages with only source s turned on, so summing the rows gives the
+ * node voltages of the full circuit.
+ */
+public class SuperpositionResult {
+    private List<String> sources;
+    private List<String> nodes;
+    private double[][] contributions;
+
+    public SuperpositionResult(List<String> sources, List<String> nodes, double[][] contributions) {
+        this.sources = new ArrayList<>(sources);
+        this.nodes = new ArrayList<>(nodes);
+        this.contributions = contributions;
+    }
+
+    /**
+     * Returns the contribution of one source to one node voltage.
+     *
+     * @param source    name of the source.
+     * @param node      name of the node.
+     * @return  Returns the contribution, or NaN if the source or node does not exist.
+     */
+    public double getContribution(String source, String node) {
+        int s = sources.indexOf(source);
+        int n = nodes.indexOf(node);
+        if (s == -1 || n == -1) {
+            return Double.NaN;
+        }
+        return contributions[s][n];
+    }
+
+    /**
+     * Returns the node voltages of the full circuit, which is the sum of every source contribution.
+     */
+    public double[] getNodeVoltages() {
+        double[] total = new double[nodes.size()];
+        for (double[] row : contributions) {
+            for (int i = 0; i < total.length; i++) {
+                total[i] += row[i];
+            }
+        }
+        return total;
+    }
+
+    public List<String> getSources() {
+        return sources;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public double[][] getContributions() {
+        return contributions;
+    }
+}
@@ -0,0 +1,183 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the connectivity of a circuit in compressed sparse row form. Vertexes are the node IDs 0 to N - 1 and
+ * ground is vertex N. The edges of vertex v are the positions offsets[v] to offsets[v + 1] - 1 of the neighbor and
+ * element arrays; every element is an undirected edge, so it is stored once from each end.
+ *
+ * It takes two int arrays per element end and no object per edge, which is what connectivity queries need instead of
+ * the JUNG graph.
+ *
+ * A subcircuit instance adds one edge per pair of ports its macromodel couples and one per port it couples to ground.
+ * Those edges carry the element index elements.size() + the index of the instance.
+ */
+public class Topology {
+    private int vertexCount;
+    private int[] offsets;      // start of the edges of each vertex, length vertexCount + 1
+    private int[] neighbors;    // vertex at the other end of each edge
+    private int[] elements;     // index of the element of each edge in the element list
+
+    private Topology() {
+    }
+
+    /**
+     * Builds the topology from elements that carry their node IDs.
+     *
+     * @param elements      elements of the circuit, the edge element indexes refer to this list.
+     * @param nodeCount     number of nodes without ground.
+     * @return              Returns the topology.
+     */
+    public static Topology build(List<CircuitElement> elements, int nodeCount) {
+        return build(elements, Collections.<SubcircuitInstance>emptyList(), nodeCount);
+    }
+
+    /**
+     * Builds the topology from elements and subcircuit instances that carry their node IDs.
+     *
+     * @param elements      elements of the circuit, the edge element indexes refer to this list.
+     * @param instances     subcircuit instances of the circuit.
+     * @param nodeCount     number of nodes without ground.
+     * @return              Returns the topology.
+     */
+    public static Topology build(List<CircuitElement> elements, List<SubcircuitInstance> instances, int nodeCount) {
+        Topology topology = new Topology();
+        int n = nodeCount + 1;
+        int ground = nodeCount;
+        topology.vertexCount = n;
+
+        int[] offsets = new int[n + 1];
+        for (CircuitElement c : elements) {
+            offsets[vertex(c.getPositiveIndex(), ground) + 1]++;
+            offsets[vertex(c.getNegativeIndex(), ground) + 1]++;
+        }
+        for (SubcircuitInstance x : instances) {
+            int[] ports = x.getNodeIndices();
+            for (int a = 0; a < ports.length; a++) {
+                for (int c = a + 1; c <= ports.length; c++) {
+                    if (x.getDefinition().isCoupled(a, c)) {
+                        offsets[vertex(ports[a], ground) + 1]++;
+                        offsets[(c == ports.length ? ground : vertex(ports[c], ground)) + 1]++;
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] neighbors = new int[offsets[n]];
+        int[] edgeElements = new int[offsets[n]];
+        for (int e = 0; e < elements.size(); e++) {
+            CircuitElement c = elements.get(e);
+            int a = vertex(c.getPositiveIndex(), ground);
+            int b = vertex(c.getNegativeIndex(), ground);
+            neighbors[next[a]] = b;
+            edgeElements[next[a]++] = e;
+            neighbors[next[b]] = a;
+            edgeElements[next[b]++] = e;
+        }
+        for (int i = 0; i < instances.size(); i++) {
+            SubcircuitInstance x = instances.get(i);
+            int[] ports = x.getNodeIndices();
+            for (int a = 0; a < ports.length; a++) {
+                for (int c = a + 1; c <= ports.length; c++) {
+                    if (x.getDefinition().isCoupled(a, c)) {
+                        int va = vertex(ports[a], ground);
+                        int vc = c == ports.length ? ground : vertex(ports[c], ground);
+                        neighbors[next[va]] = vc;
+                        edgeElements[next[va]++] = elements.size() + i;
+                        neighbors[next[vc]] = va;
+                        edgeElements[next[vc]++] = elements.size() + i;
+                    }
+                }
+            }
+        }
+        topology.offsets = offsets;
+        topology.neighbors = neighbors;
+        topology.elements = edgeElements;
+        return topology;
+    }
+
+    private static int vertex(int nodeId, int ground) {
+        return nodeId == NodeTable.GROUND_ID ? ground : nodeId;
+    }
+
+    /**
+     * Labels every vertex with the connected component it is in, by breadth-first search.
+     *
+     * @return  Returns the component label of each vertex, labels are 0 to the component count - 1.
+     */
+    public int[] components() {
+        int[] label = new int[vertexCount];
+        Arrays.fill(label, -1);
+        int[] queue = new int[vertexCount];
+        int count = 0;
+        for (int s = 0; s < vertexCount; s++) {
+            if (label[s] != -1) {
+                continue;
+            }
+            int head = 0, tail = 0;
+            queue[tail++] = s;
+            label[s] = count;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+                    int w = neighbors[p];
+                    if (label[w] == -1) {
+                        label[w] = count;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            count++;
+        }
+        return label;
+    }
+
+    /**
+     * Returns true if every node is connected to ground through elements.
+     */
+    public boolean isConnected() {
+        int[] label = components();
+        for (int v = 0; v < vertexCount; v++) {
+            if (label[v] != label[getGround()]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the vertex of ground, which is the number of nodes.
+     */
+    public int getGround() {
+        return vertexCount - 1;
+    }
+
+    public int getDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+
+    public int[] getElements() {
+        return elements;
+    }
+}
@@ -0,0 +1,128 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class checks the topology of a circuit before anything is assembled or factored. Each check is one pass over
+ * the elements with a union-find (path halving, union by size) or one breadth-first search of the topology, so the
+ * whole check is near-linear in the number of elements.
+ */
+class TopologyChecker {
+    private int[] parent, size;
+
+    private TopologyChecker(int vertexCount) {
+        parent = new int[vertexCount];
+        size = new int[vertexCount];
+        reset();
+    }
+
+    /**
+     * Runs all topology checks.
+     *
+     * @param circuit   circuit to be checked.
+     * @return          Returns the report of the checks.
+     */
+    static TopologyReport check(Circuit circuit) {
+        Topology topology = circuit.getTopology();
+        List<CircuitElement> elements = circuit.getElementList();
+        NodeTable nodes = circuit.getNodeTable();
+        int ground = topology.getGround();
+        TopologyChecker sets = new TopologyChecker(topology.getVertexCount());
+
+        // a voltage source whose ends are already joined by voltage sources closes a loop of them
+        List<String> loops = new ArrayList<>();
+        for (CircuitElement c : circuit.getVoltageSourceList()) {
+            if (!sets.union(vertex(c.getPositiveIndex(), ground), vertex(c.getNegativeIndex(), ground))) {
+                loops.add(c.getName());
+            }
+        }
+
+        // nodes connected to ground without current sources, instances connect what their macromodels couple
+        sets.reset();
+        for (CircuitElement c : elements) {
+            if (!(c instanceof ICS)) {
+                sets.union(vertex(c.getPositiveIndex(), ground), vertex(c.getNegativeIndex(), ground));
+            }
+        }
+        for (SubcircuitInstance x : circuit.getInstanceList()) {
+            int[] ports = x.getNodeIndices();
+            for (int a = 0; a < ports.length; a++) {
+                for (int b = a + 1; b <= ports.length; b++) {
+                    if (x.getDefinition().isCoupled(a, b)) {
+                        sets.union(vertex(ports[a], ground), b == ports.length ? ground : vertex(ports[b], ground));
+                    }
+                }
+            }
+        }
+        int[] component = topology.components();
+        List<String> floating = new ArrayList<>();
+        List<String> cutOff = new ArrayList<>();
+        for (int v = 0; v < ground; v++) {
+            if (component[v] != component[ground]) {
+                floating.add(nodes.getName(v));
+            }
+            else if (sets.find(v) != sets.find(ground)) {
+                cutOff.add(nodes.getName(v));
+            }
+        }
+
+        // current sources between the part grounded without them and a part that is not
+        List<String> cutsets = new ArrayList<>();
+        if (!cutOff.isEmpty()) {
+            int groundSet = sets.find(ground);
+            for (CircuitElement c : circuit.getCurrentSourceList()) {
+                int a = sets.find(vertex(c.getPositiveIndex(), ground));
+                int b = sets.find(vertex(c.getNegativeIndex(), ground));
+                if (a != b && component[vertex(c.getPositiveIndex(), ground)] == component[ground]
+                        && (a != groundSet || b != groundSet)) {
+                    cutsets.add(c.getName());
+                }
+            }
+        }
+        return new TopologyReport(floating, loops, cutOff, cutsets);
+    }
+
+    private static int vertex(int nodeId, int ground) {
+        return nodeId == NodeTable.GROUND_ID ? ground : nodeId;
+    }
+
+    private void reset() {
+        for (int v = 0; v < parent.length; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+    }
+
+    private int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Joins the sets of a and b.
+     *
+     * @return  Returns false if a and b were already in the same set. Otherwise, returns true.
+     */
+    private boolean union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) {
+            return false;
+        }
+        if (size[a] < size[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        return true;
+    }
+}
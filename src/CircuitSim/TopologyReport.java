@@ -0,0 +1,78 @@
+package CircuitSim;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the result of the topology checks of a circuit. A circuit whose MNA matrix can be singular because
+ * of its topology alone has at least one of,
+ *      floating nodes          nodes with no path to ground at all.
+ *      voltage source loops    voltage sources that close a loop made only of voltage sources, so their currents are
+ *                              not determined.
+ *      current source cutsets  nodes that reach ground only through current sources, so their voltages are not
+ *                              determined, and the current sources that cut them off.
+ */
+public class TopologyReport {
+    private List<String> floatingNodes;
+    private List<String> voltageSourceLoops;
+    private List<String> cutOffNodes;
+    private List<String> currentSourceCutsets;
+
+    public TopologyReport(List<String> floatingNodes, List<String> voltageSourceLoops, List<String> cutOffNodes, List<String> currentSourceCutsets) {
+        this.floatingNodes = Collections.unmodifiableList(floatingNodes);
+        this.voltageSourceLoops = Collections.unmodifiableList(voltageSourceLoops);
+        this.cutOffNodes = Collections.unmodifiableList(cutOffNodes);
+        this.currentSourceCutsets = Collections.unmodifiableList(currentSourceCutsets);
+    }
+
+    /**
+     * Returns true if no check found a problem.
+     */
+    public boolean isValid() {
+        return floatingNodes.isEmpty() && voltageSourceLoops.isEmpty() && cutOffNodes.isEmpty();
+    }
+
+    public List<String> getFloatingNodes() {
+        return floatingNodes;
+    }
+
+    /**
+     * Returns the voltage sources that each close a loop of voltage sources.
+     */
+    public List<String> getVoltageSourceLoops() {
+        return voltageSourceLoops;
+    }
+
+    /**
+     * Returns the nodes that reach ground only through current sources.
+     */
+    public List<String> getCutOffNodes() {
+        return cutOffNodes;
+    }
+
+    /**
+     * Returns the current sources that connect the cut off nodes to the rest of the circuit.
+     */
+    public List<String> getCurrentSourceCutsets() {
+        return currentSourceCutsets;
+    }
+
+    @Override
+    public String toString() {
+        if (isValid()) {
+            return "Topology is valid.";
+        }
+        StringBuilder sb = new StringBuilder();
+        if (!floatingNodes.isEmpty()) {
+            sb.append("Floating nodes with no path to ground: ").append(floatingNodes).append(". ");
+        }
+        if (!voltageSourceLoops.isEmpty()) {
+            sb.append("Loops of voltage sources closed by: ").append(voltageSourceLoops).append(". ");
+        }
+        if (!cutOffNodes.isEmpty()) {
+            sb.append("Nodes reaching ground only through current sources ").append(currentSourceCutsets)
+                    .append(": ").append(cutOffNodes).append(". ");
+        }
+        return sb.toString().trim();
+    }
+}
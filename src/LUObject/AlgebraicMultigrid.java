@@ -0,0 +1,367 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a smoothed aggregation algebraic multigrid preconditioner for the weighted Laplacian of large resistor
+ * meshes, where incomplete factorizations need more iterations as the mesh grows and complete ones run out of memory.
+ *
+ * Each level groups strongly connected nodes into aggregates, the tentative prolongator T maps an aggregate value to
+ * all of its nodes (the constant vector, which a Laplacian nearly annihilates), and smoothing it with one damped Jacobi
+ * step gives the prolongator
+ *      P = (I - omega * D^-1 * A) * T
+ * The coarse matrix is the Galerkin product P' * A * P, so it stays symmetric positive definite. Levels are added until
+ * the matrix is small enough for SparseLU. On a mesh every level is several times smaller than the one before, so the
+ * memory of all levels and the cost of one V-cycle grow linearly with the size.
+ *
+ * apply() is one V-cycle from zero with a forward Gauss-Seidel sweep before and a backward sweep after the coarse
+ * correction, which makes it a symmetric operator that ConjugateGradient can use.
+ */
+public class AlgebraicMultigrid implements Preconditioner {
+    private static Logger logger = Logger.getLogger(AlgebraicMultigrid.class.getName());
+    private static final double STRENGTH = 0.08;    // j is a strong neighbor of i if a_ij^2 > STRENGTH^2 * a_ii * a_jj
+    private static final double DAMPING = 4.0 / 3;  // omega times the spectral radius of D^-1 * A
+    private static final int COARSE_SIZE = 200;
+    private static final int MAX_LEVELS = 25;
+
+    private SparseMatrix[] matrices;        // A of each level, the last one is solved directly
+    private SparseMatrix[] prolongators;    // P from level l + 1 to level l
+    private int[][] diagonals;              // position of the diagonal in each column of A
+    private SparseLU coarse;
+    private int levels;
+
+    private AlgebraicMultigrid() {
+    }
+
+    /**
+     * Builds the levels for A.
+     *
+     * @param A     square compressed symmetric sparse matrix with a positive diagonal.
+     * @return      Returns the preconditioner if successful. Otherwise, returns null.
+     */
+    public static AlgebraicMultigrid build(SparseMatrix A) {
+        SparseMatrix[] matrices = new SparseMatrix[MAX_LEVELS];
+        SparseMatrix[] prolongators = new SparseMatrix[MAX_LEVELS - 1];
+        int[][] diagonals = new int[MAX_LEVELS][];
+        int levels = 0;
+        SparseMatrix level = A;
+        while (true) {
+            int[] diagonal = findDiagonal(level);
+            if (diagonal == null) {
+                logger.log(Level.INFO, "build method from AlgebraicMultigrid returned null. A diagonal is missing or not positive.");
+                return null;
+            }
+            matrices[levels] = level;
+            diagonals[levels++] = diagonal;
+            if (level.getRowCount() <= COARSE_SIZE || levels == MAX_LEVELS) {
+                break;
+            }
+            int[] aggregate = new int[level.getRowCount()];
+            int count = aggregate(level, diagonal, aggregate);
+            if (count >= level.getRowCount()) {
+                break;  // nothing left to coarsen
+            }
+            SparseMatrix p = prolongator(level, diagonal, aggregate, count);
+            prolongators[levels - 1] = p;
+            level = product(p.transpose(), product(level, p));
+        }
+
+        SparseLU coarse = SparseLU.factor(level);
+        if (coarse == null) {
+            logger.log(Level.INFO, "build method from AlgebraicMultigrid returned null. The coarsest matrix is singular.");
+            return null;
+        }
+        AlgebraicMultigrid amg = new AlgebraicMultigrid();
+        amg.matrices = Arrays.copyOf(matrices, levels);
+        amg.prolongators = Arrays.copyOf(prolongators, levels - 1);
+        amg.diagonals = Arrays.copyOf(diagonals, levels);
+        amg.coarse = coarse;
+        amg.levels = levels;
+        return amg;
+    }
+
+    private static int[] findDiagonal(SparseMatrix A) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        int[] diagonal = new int[n];
+        for (int j = 0; j < n; j++) {
+            diagonal[j] = -1;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (rowIdx[p] == j && values[p] > 0) {
+                    diagonal[j] = p;
+                }
+            }
+            if (diagonal[j] == -1) {
+                return null;
+            }
+        }
+        return diagonal;
+    }
+
+    /**
+     * Groups the nodes into aggregates in three passes: a node whose strong neighbors are all free starts an aggregate
+     * with them, the free nodes next to an aggregate join it, and the nodes still left start aggregates with their free
+     * strong neighbors.
+     *
+     * @param aggregate     filled with the aggregate of each node.
+     * @return              Returns the number of aggregates.
+     */
+    private static int aggregate(SparseMatrix A, int[] diagonal, int[] aggregate) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        boolean[] strong = new boolean[A.getNonZeroCount()];
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                strong[p] = i != j && values[p] * values[p] > STRENGTH * STRENGTH * values[diagonal[i]] * values[diagonal[j]];
+            }
+        }
+
+        Arrays.fill(aggregate, -1);
+        int count = 0;
+        for (int j = 0; j < n; j++) {
+            boolean free = aggregate[j] == -1;
+            boolean connected = false;
+            for (int p = colPtr[j]; p < colPtr[j + 1] && free; p++) {
+                if (strong[p]) {
+                    connected = true;
+                    free = aggregate[rowIdx[p]] == -1;
+                }
+            }
+            if (free && connected) {
+                aggregate[j] = count;
+                for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                    if (strong[p]) {
+                        aggregate[rowIdx[p]] = count;
+                    }
+                }
+                count++;
+            }
+        }
+
+        int[] first = aggregate.clone();    // joins only follow aggregates of the first pass
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1] && aggregate[j] == -1; p++) {
+                if (strong[p] && first[rowIdx[p]] != -1) {
+                    aggregate[j] = first[rowIdx[p]];
+                }
+            }
+        }
+
+        for (int j = 0; j < n; j++) {
+            if (aggregate[j] != -1) {
+                continue;
+            }
+            aggregate[j] = count;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (strong[p] && aggregate[rowIdx[p]] == -1) {
+                    aggregate[rowIdx[p]] = count;
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns P = (I - omega * D^-1 * A) * T, where T has a 1 at (i, aggregate[i]).
+     */
+    private static SparseMatrix prolongator(SparseMatrix A, int[] diagonal, int[] aggregate, int count) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+
+        // spectral radius of D^-1 * A bounded by its largest absolute row sum, A is symmetric so rows are columns
+        double radius = 0;
+        for (int j = 0; j < n; j++) {
+            double sum = 0;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                sum += Math.abs(values[p]);
+            }
+            radius = Math.max(radius, sum / values[diagonal[j]]);
+        }
+        double omega = DAMPING / radius;
+
+        int[] tColPtr = new int[count + 1];
+        for (int i = 0; i < n; i++) {
+            tColPtr[aggregate[i] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            tColPtr[c + 1] += tColPtr[c];
+        }
+        int[] tRowIdx = new int[n];
+        double[] tValues = new double[n];
+        int[] next = Arrays.copyOf(tColPtr, count);
+        for (int i = 0; i < n; i++) {
+            tRowIdx[next[aggregate[i]]++] = i;
+            tValues[i] = 1;
+        }
+        SparseMatrix t = new SparseMatrix(n, count, tColPtr, tRowIdx, tValues);
+
+        // every (i, aggregate[i]) is in the pattern of A * T because the diagonal of A is
+        SparseMatrix p = product(A, t);
+        int[] pColPtr = p.getColumnPointers();
+        int[] pRowIdx = p.getRowIndices();
+        double[] pValues = p.getValues();
+        for (int c = 0; c < count; c++) {
+            for (int q = pColPtr[c]; q < pColPtr[c + 1]; q++) {
+                int i = pRowIdx[q];
+                pValues[q] = (aggregate[i] == c ? 1 : 0) - omega * pValues[q] / values[diagonal[i]];
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Returns X * Y, each column of the product being a combination of columns of X.
+     */
+    private static SparseMatrix product(SparseMatrix X, SparseMatrix Y) {
+        int rows = X.getRowCount(), cols = Y.getColumnCount();
+        int[] xColPtr = X.getColumnPointers(), xRowIdx = X.getRowIndices();
+        int[] yColPtr = Y.getColumnPointers(), yRowIdx = Y.getRowIndices();
+        double[] xValues = X.getValues(), yValues = Y.getValues();
+        int[] colPtr = new int[cols + 1];
+        int[] rowIdx = new int[Math.max(X.getNonZeroCount(), Y.getNonZeroCount())];
+        double[] values = new double[rowIdx.length];
+        int[] position = new int[rows];
+        Arrays.fill(position, -1);
+        int nz = 0;
+        for (int j = 0; j < cols; j++) {
+            int start = nz;
+            for (int q = yColPtr[j]; q < yColPtr[j + 1]; q++) {
+                int k = yRowIdx[q];
+                double ykj = yValues[q];
+                for (int p = xColPtr[k]; p < xColPtr[k + 1]; p++) {
+                    int i = xRowIdx[p];
+                    if (position[i] < start) {
+                        if (nz == rowIdx.length) {
+                            rowIdx = Arrays.copyOf(rowIdx, 2 * nz);
+                            values = Arrays.copyOf(values, 2 * nz);
+                        }
+                        position[i] = nz;
+                        rowIdx[nz] = i;
+                        values[nz++] = xValues[p] * ykj;
+                    }
+                    else {
+                        values[position[i]] += xValues[p] * ykj;
+                    }
+                }
+            }
+            colPtr[j + 1] = nz;
+        }
+        // the double transpose sorts the rows of each column
+        return new SparseMatrix(rows, cols, colPtr, rowIdx, values).transpose().transpose();
+    }
+
+    /**
+     * Computes z = M r with one V-cycle. The work vectors of the levels are allocated for each call, so several threads
+     * can apply the same preconditioner at once.
+     */
+    @Override
+    public void apply(double[] residual, double[] z) {
+        double[][] x = new double[levels][];
+        double[][] b = new double[levels][];
+        double[][] r = new double[levels][];
+        for (int l = 0; l < levels; l++) {
+            int n = matrices[l].getRowCount();
+            x[l] = new double[n];
+            b[l] = new double[n];
+            r[l] = new double[n];
+        }
+        System.arraycopy(residual, 0, b[0], 0, residual.length);
+        cycle(0, x, b, r);
+        System.arraycopy(x[0], 0, z, 0, z.length);
+    }
+
+    private void cycle(int l, double[][] x, double[][] b, double[][] r) {
+        if (l == levels - 1) {
+            double[] solution = coarse.solve(b[l]);
+            System.arraycopy(solution, 0, x[l], 0, solution.length);
+            return;
+        }
+        SparseMatrix A = matrices[l];
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        double[] xl = x[l], bl = b[l], rl = r[l];
+
+        smooth(l, xl, bl, true);
+        for (int j = 0; j < n; j++) {
+            double xj = xl[j];
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                rl[rowIdx[p]] += values[p] * xj;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            rl[i] = bl[i] - rl[i];
+        }
+
+        SparseMatrix P = prolongators[l];
+        int[] pColPtr = P.getColumnPointers();
+        int[] pRowIdx = P.getRowIndices();
+        double[] pValues = P.getValues();
+        double[] bc = b[l + 1];
+        for (int c = 0; c < bc.length; c++) {
+            double sum = 0;
+            for (int q = pColPtr[c]; q < pColPtr[c + 1]; q++) {
+                sum += pValues[q] * rl[pRowIdx[q]];
+            }
+            bc[c] = sum;
+        }
+        cycle(l + 1, x, b, r);
+        double[] xc = x[l + 1];
+        for (int c = 0; c < xc.length; c++) {
+            for (int q = pColPtr[c]; q < pColPtr[c + 1]; q++) {
+                xl[pRowIdx[q]] += pValues[q] * xc[c];
+            }
+        }
+        smooth(l, xl, bl, false);
+    }
+
+    /**
+     * One Gauss-Seidel sweep on level l, forward or backward. A is symmetric, so column i holds row i.
+     */
+    private void smooth(int l, double[] xl, double[] bl, boolean forward) {
+        SparseMatrix A = matrices[l];
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        int[] diagonal = diagonals[l];
+        for (int k = 0; k < n; k++) {
+            int i = forward ? k : n - 1 - k;
+            double sum = bl[i];
+            for (int p = colPtr[i]; p < colPtr[i + 1]; p++) {
+                sum -= values[p] * xl[rowIdx[p]];
+            }
+            xl[i] += sum / values[diagonal[i]];
+        }
+    }
+
+    /**
+     * Returns the number of levels, including the finest and the coarsest.
+     */
+    public int getLevelCount() {
+        return levels;
+    }
+
+    /**
+     * Returns the entries stored in the matrices of all levels over the entries of the finest, a measure of the memory
+     * and of the work of one V-cycle.
+     */
+    public double getOperatorComplexity() {
+        double sum = 0;
+        for (SparseMatrix A : matrices) {
+            sum += A.getNonZeroCount();
+        }
+        return sum / matrices[0].getNonZeroCount();
+    }
+}
@@ -0,0 +1,236 @@
+package LUObject;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is an LU factorization with partial pivoting in band storage, for matrices whose nonzeros stay within a
+ * few diagonals of the main one after a reverse Cuthill-McKee ordering, like ladders, RC chains and other long thin
+ * circuits.
+ *
+ * With lower bandwidth kl and upper bandwidth ku, row interchanges can move entries of U up to kl + ku above the
+ * diagonal, so each column is stored as the 2 kl + ku + 1 entries from kl + ku above the diagonal to kl below it,
+ * one column after another in a single array, the same layout as the LAPACK band routines,
+ *      A[i][j] is band[j * width + kl + ku + i - j]
+ * The factorization takes O(n kl (kl + ku)) time and O(n (2 kl + ku)) memory, and every update runs down a contiguous
+ * piece of one column. There is no symbolic step, so it pays off when the band is narrower than the fill SparseLU
+ * would create.
+ */
+public class BandedLU implements LinearSolver {
+    private static Logger logger = Logger.getLogger(BandedLU.class.getName());
+
+    private int n;
+    private int kl, ku;     // bandwidths of the ordered matrix
+    private int width;      // 2 kl + ku + 1
+    private int[] order;    // row and column order[k] of A is row and column k of the band
+    private int[] pivot;    // row k was interchanged with row pivot[k] at step k
+    private double[] band;
+
+    private BandedLU(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Factors A after a reverse Cuthill-McKee ordering of its rows and columns.
+     *
+     * @param A     square compressed sparse matrix.
+     * @return      Returns the factorization if successful. Otherwise, returns null.
+     */
+    public static BandedLU factor(SparseMatrix A) {
+        if (!A.isSquare() || A.getRowCount() < 1) {
+            logger.log(Level.SEVERE, "factor method from BandedLU has issues. Matrix A is either not square or empty.");
+            return null;
+        }
+        return factor(A, ColumnOrdering.rcm(A), Long.MAX_VALUE);
+    }
+
+    /**
+     * Factors A with the given symmetric ordering unless the band would hold more than limit entries.
+     *
+     * @param A         square compressed sparse matrix.
+     * @param order     row and column order[k] of A becomes row and column k.
+     * @param limit     largest band to allocate, usually what another factorization would take.
+     * @return          Returns the factorization if the band fits and A is not singular. Otherwise, returns null.
+     */
+    public static BandedLU factor(SparseMatrix A, int[] order, long limit) {
+        if (!A.isSquare() || order == null || order.length != A.getRowCount()) {
+            logger.log(Level.SEVERE, "factor method from BandedLU has issues. It's either because matrix A is not square OR the ordering does not match.");
+            return null;
+        }
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        int[] position = ColumnOrdering.inverse(order);
+        int kl = 0, ku = 0;
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int d = position[rowIdx[p]] - position[j];
+                kl = Math.max(kl, d);
+                ku = Math.max(ku, -d);
+            }
+        }
+        long size = (long) n * (2 * kl + ku + 1);
+        if (size > limit || size > Integer.MAX_VALUE) {
+            logger.log(Level.INFO, "factor method from BandedLU returned null. The band of " + size + " entries is too large.");
+            return null;
+        }
+
+        BandedLU lu = new BandedLU(n);
+        lu.kl = kl;
+        lu.ku = ku;
+        lu.width = 2 * kl + ku + 1;
+        lu.order = order.clone();
+        lu.pivot = new int[n];
+        lu.band = new double[(int) size];
+        for (int j = 0; j < n; j++) {
+            int c = position[j];
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                lu.band[lu.index(position[rowIdx[p]], c)] += values[p];
+            }
+        }
+        if (!lu.eliminate()) {
+            logger.log(Level.INFO, "factor method from BandedLU returned null. Matrix A is singular.");
+            return null;
+        }
+        return lu;
+    }
+
+    private int index(int i, int j) {
+        return j * width + kl + ku + i - j;
+    }
+
+    /**
+     * Column by column elimination with partial pivoting inside the band.
+     *
+     * @return  Returns false if a column has no nonzero pivot.
+     */
+    private boolean eliminate() {
+        double[] a = band;
+        for (int j = 0; j < n; j++) {
+            int below = Math.min(kl, n - 1 - j);
+            int diagonal = index(j, j);
+            int best = 0;
+            for (int i = 1; i <= below; i++) {
+                if (Math.abs(a[diagonal + i]) > Math.abs(a[diagonal + best])) {
+                    best = i;
+                }
+            }
+            if (a[diagonal + best] == 0) {
+                return false;
+            }
+            pivot[j] = j + best;
+            int last = Math.min(n - 1, j + kl + ku);
+            if (best != 0) {
+                for (int c = j; c <= last; c++) {
+                    int q = index(j, c);
+                    double t = a[q];
+                    a[q] = a[q + best];
+                    a[q + best] = t;
+                }
+            }
+            double d = a[diagonal];
+            for (int i = 1; i <= below; i++) {
+                a[diagonal + i] /= d;
+            }
+            for (int c = j + 1; c <= last; c++) {
+                int q = index(j, c);
+                double u = a[q];
+                if (u == 0) {
+                    continue;
+                }
+                for (int i = 1; i <= below; i++) {
+                    a[q + i] -= a[diagonal + i] * u;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the solution for Ax = b using the factors.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != n) {
+            logger.log(Level.SEVERE, "solve method from BandedLU has issues. Vector B length does not match the matrix size.");
+            return null;
+        }
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = b[order[k]];
+        }
+        for (int j = 0; j < n; j++) {
+            int p = pivot[j];
+            double yj = y[p];
+            y[p] = y[j];
+            y[j] = yj;
+            int diagonal = index(j, j);
+            int below = Math.min(kl, n - 1 - j);
+            for (int i = 1; i <= below; i++) {
+                y[j + i] -= band[diagonal + i] * yj;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            int diagonal = index(j, j);
+            double yj = y[j] / band[diagonal];
+            y[j] = yj;
+            int above = Math.min(kl + ku, j);
+            for (int i = 1; i <= above; i++) {
+                y[j - i] -= band[diagonal - i] * yj;
+            }
+        }
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[order[k]] = y[k];
+        }
+        return x;
+    }
+
+    /**
+     * Solves each right hand side of the block on its own.
+     */
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from BandedLU has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] X = new double[n][m];
+        double[] b = new double[n];
+        for (int c = 0; c < m; c++) {
+            for (int i = 0; i < n; i++) {
+                b[i] = B[i][c];
+            }
+            double[] x = solve(b);
+            for (int i = 0; i < n; i++) {
+                X[i][c] = x[i];
+            }
+        }
+        return X;
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    public int getLowerBandwidth() {
+        return kl;
+    }
+
+    public int getUpperBandwidth() {
+        return ku;
+    }
+
+    /**
+     * Returns the number of entries in band storage.
+     */
+    public int getStorageSize() {
+        return band.length;
+    }
+}
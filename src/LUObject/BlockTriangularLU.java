@@ -0,0 +1,402 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class factors a matrix through its block triangular form, the way KLU does. A maximum transversal matches every
+ * column to a row with a nonzero in it, which puts nonzeros on the whole diagonal, and the strongly connected
+ * components of the graph of the matched matrix, found by Tarjan's algorithm, are its diagonal blocks. Ordered so that
+ * every block only depends on the ones after it, the matrix is block upper triangular,
+ *
+ *      | A_11 A_12  ...  A_1K |
+ *      |      A_22  ...  A_2K |
+ *      |             ...  ... |
+ *      |                 A_KK |
+ *
+ * so only the diagonal blocks are factored, each with SparseLU on its own fork-join task, since they do not depend on
+ * each other. The off-diagonal blocks are kept as they are and used by block back substitution,
+ *      x_k = A_kk^-1 (b_k - sum over l > k of A_kl x_l)
+ * Rows of a single entry become 1 by 1 blocks that are solved by a division.
+ *
+ * In an MNA matrix a voltage source from a node to ground makes its branch row such a single entry, so the node is a
+ * block of its own and every load hanging off it becomes a separate block too.
+ */
+public class BlockTriangularLU implements LinearSolver {
+    private static Logger logger = Logger.getLogger(BlockTriangularLU.class.getName());
+    private static final int GRAIN = 1024;  // rows of blocks factored together on one task
+
+    private int n;
+    private int[] columns;      // column of A at each position of the block form
+    private int[] rows;         // row of A matched to each position
+    private int[] blockStart;   // first position of each block, with the end appended
+    private SparseMatrix[] blocks;
+    private SparseLU[] factors; // null for 1 by 1 blocks
+    private double[] pivots;    // value of each 1 by 1 block
+    private int[] offPtr, offRow;   // entries above the diagonal blocks by position column, row as a position
+    private double[] offValue;
+
+    private BlockTriangularLU(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Finds the block triangular form of A and factors its diagonal blocks on the pool.
+     *
+     * @param A         square compressed sparse matrix.
+     * @param pool      pool the block factorizations run on.
+     * @return          Returns the factorization if A and all diagonal blocks are nonsingular. Otherwise, returns null.
+     */
+    public static BlockTriangularLU factor(SparseMatrix A, ForkJoinPool pool) {
+        if (!A.isSquare() || !A.isCompressed() || A.getRowCount() < 1) {
+            logger.log(Level.SEVERE, "factor method from BlockTriangularLU has issues. Matrix A is not square and compressed OR it is empty.");
+            return null;
+        }
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        int[] match = transversal(A);
+        if (match == null) {
+            logger.log(Level.INFO, "factor method from BlockTriangularLU returned null. Matrix A is structurally singular.");
+            return null;
+        }
+        int[] component = new int[n];
+        int count = components(A.transpose(), match, component);
+
+        // positions ordered by block, blocks ordered sources first
+        BlockTriangularLU lu = new BlockTriangularLU(n);
+        lu.blockStart = new int[count + 1];
+        for (int j = 0; j < n; j++) {
+            lu.blockStart[count - component[j]]++;
+        }
+        for (int k = 0; k < count; k++) {
+            lu.blockStart[k + 1] += lu.blockStart[k];
+        }
+        int[] next = Arrays.copyOf(lu.blockStart, count);
+        lu.columns = new int[n];
+        lu.rows = new int[n];
+        int[] block = new int[n];       // block of each position
+        for (int j = 0; j < n; j++) {
+            int k = count - 1 - component[j];
+            int q = next[k]++;
+            lu.columns[q] = j;
+            lu.rows[q] = match[j];
+            block[q] = k;
+        }
+        int[] rowPosition = new int[n];
+        for (int q = 0; q < n; q++) {
+            rowPosition[lu.rows[q]] = q;
+        }
+
+        // split the entries into the diagonal blocks and what lies above them
+        lu.blocks = new SparseMatrix[count];
+        lu.factors = new SparseLU[count];
+        lu.pivots = new double[count];
+        for (int k = 0; k < count; k++) {
+            int size = lu.blockStart[k + 1] - lu.blockStart[k];
+            if (size > 1) {
+                lu.blocks[k] = new SparseMatrix(size, size);
+            }
+        }
+        lu.offPtr = new int[n + 1];
+        for (int q = 0; q < n; q++) {
+            int j = lu.columns[q];
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int r = rowPosition[rowIdx[p]];
+                if (block[r] != block[q]) {
+                    lu.offPtr[q + 1]++;
+                }
+            }
+            lu.offPtr[q + 1] += lu.offPtr[q];
+        }
+        lu.offRow = new int[lu.offPtr[n]];
+        lu.offValue = new double[lu.offPtr[n]];
+        for (int q = 0; q < n; q++) {
+            int j = lu.columns[q];
+            int k = block[q];
+            int start = lu.blockStart[k];
+            int t = lu.offPtr[q];
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int r = rowPosition[rowIdx[p]];
+                if (block[r] != k) {
+                    lu.offRow[t] = r;
+                    lu.offValue[t++] = values[p];
+                }
+                else if (lu.blocks[k] != null) {
+                    lu.blocks[k].add(r - start, q - start, values[p]);
+                }
+                else {
+                    lu.pivots[k] += values[p];
+                }
+            }
+        }
+
+        pool.invoke(lu.new FactorTask(0, count));
+        for (int k = 0; k < count; k++) {
+            boolean single = lu.blockStart[k + 1] - lu.blockStart[k] == 1;
+            if (single ? lu.pivots[k] == 0 : lu.factors[k] == null) {
+                logger.log(Level.INFO, "factor method from BlockTriangularLU returned null. Diagonal block " + k + " is singular.");
+                return null;
+            }
+        }
+        return lu;
+    }
+
+    /**
+     * Maximum transversal by depth-first augmenting paths, after matching what a single pass can.
+     *
+     * @return  Returns the row matched to each column, or null if A is structurally singular.
+     */
+    private static int[] transversal(SparseMatrix A) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        int[] rowMatch = new int[n];
+        int[] colMatch = new int[n];
+        Arrays.fill(rowMatch, -1);
+        Arrays.fill(colMatch, -1);
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1] && colMatch[j] == -1; p++) {
+                int i = rowIdx[p];
+                if (values[p] != 0 && rowMatch[i] == -1) {
+                    rowMatch[i] = j;
+                    colMatch[j] = i;
+                }
+            }
+        }
+
+        int[] stack = new int[n];   // columns on the path
+        int[] via = new int[n];     // row the path takes out of each of them
+        int[] pointer = new int[n];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        for (int start = 0; start < n; start++) {
+            if (colMatch[start] != -1) {
+                continue;
+            }
+            int top = 0, found = -1;
+            stack[0] = start;
+            pointer[start] = colPtr[start];
+            while (top >= 0 && found == -1) {
+                int c = stack[top];
+                if (pointer[c] == colPtr[c + 1]) {
+                    top--;
+                    continue;
+                }
+                int p = pointer[c]++;
+                int i = rowIdx[p];
+                if (values[p] == 0 || mark[i] == start) {
+                    continue;
+                }
+                mark[i] = start;
+                via[top] = i;
+                if (rowMatch[i] == -1) {
+                    found = top;
+                }
+                else {
+                    int c2 = rowMatch[i];
+                    stack[++top] = c2;
+                    pointer[c2] = colPtr[c2];
+                }
+            }
+            if (found == -1) {
+                return null;
+            }
+            for (int t = found; t >= 0; t--) {
+                rowMatch[via[t]] = stack[t];
+                colMatch[stack[t]] = via[t];
+            }
+        }
+        return colMatch;
+    }
+
+    /**
+     * Tarjan's strongly connected components of the graph with an edge from column j to column l when the row matched
+     * to j has an entry in column l. Components are numbered in the order they complete, so every edge goes to the
+     * same or a lower number.
+     *
+     * @param rowsOfA   transpose of A, its columns are the rows of A.
+     * @param match     row matched to each column.
+     * @param component filled with the component of each column.
+     * @return          Returns the number of components.
+     */
+    private static int components(SparseMatrix rowsOfA, int[] match, int[] component) {
+        int n = match.length;
+        int[] rowPtr = rowsOfA.getColumnPointers();
+        int[] colIdx = rowsOfA.getRowIndices();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] pointer = new int[n];
+        int[] callStack = new int[n];
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int counter = 0, top = -1, count = 0;
+        for (int s = 0; s < n; s++) {
+            if (index[s] != -1) {
+                continue;
+            }
+            int depth = 0;
+            callStack[0] = s;
+            index[s] = low[s] = counter++;
+            stack[++top] = s;
+            onStack[s] = true;
+            pointer[s] = rowPtr[match[s]];
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (pointer[v] < rowPtr[match[v] + 1]) {
+                    int w = colIdx[pointer[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[++top] = w;
+                        onStack[w] = true;
+                        pointer[w] = rowPtr[match[w]];
+                        callStack[++depth] = w;
+                    }
+                    else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[top--];
+                        onStack[w] = false;
+                        component[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+                if (--depth >= 0) {
+                    int u = callStack[depth];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+            }
+        }
+        return count;
+    }
+
+    private void factorBlocks(int from, int to) {
+        for (int k = from; k < to; k++) {
+            if (blocks[k] != null) {
+                blocks[k].compress();
+                factors[k] = SparseLU.factor(blocks[k]);
+                blocks[k] = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the solution for Ax = b by block back substitution, last block first.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != n) {
+            logger.log(Level.SEVERE, "solve method from BlockTriangularLU has issues. Vector B length does not match the matrix size.");
+            return null;
+        }
+        double[] y = new double[n];
+        for (int q = 0; q < n; q++) {
+            y[q] = b[rows[q]];
+        }
+        for (int k = blockStart.length - 2; k >= 0; k--) {
+            int start = blockStart[k], end = blockStart[k + 1];
+            if (factors[k] == null) {
+                y[start] /= pivots[k];
+            }
+            else {
+                double[] x = factors[k].solve(Arrays.copyOfRange(y, start, end));
+                System.arraycopy(x, 0, y, start, end - start);
+            }
+            for (int q = start; q < end; q++) {
+                double yq = y[q];
+                if (yq == 0) {
+                    continue;
+                }
+                for (int p = offPtr[q]; p < offPtr[q + 1]; p++) {
+                    y[offRow[p]] -= offValue[p] * yq;
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int q = 0; q < n; q++) {
+            x[columns[q]] = y[q];
+        }
+        return x;
+    }
+
+    /**
+     * Solves each right hand side of the block on its own.
+     */
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from BlockTriangularLU has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = B[0].length;
+        double[][] X = new double[n][m];
+        double[] b = new double[n];
+        for (int c = 0; c < m; c++) {
+            for (int i = 0; i < n; i++) {
+                b[i] = B[i][c];
+            }
+            double[] x = solve(b);
+            for (int i = 0; i < n; i++) {
+                X[i][c] = x[i];
+            }
+        }
+        return X;
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    public int getBlockCount() {
+        return blockStart.length - 1;
+    }
+
+    /**
+     * Returns the number of rows of the largest diagonal block.
+     */
+    public int getLargestBlock() {
+        int largest = 0;
+        for (int k = 0; k + 1 < blockStart.length; k++) {
+            largest = Math.max(largest, blockStart[k + 1] - blockStart[k]);
+        }
+        return largest;
+    }
+
+    /**
+     * Splits a range of blocks until it holds a single block or about GRAIN rows.
+     */
+    private class FactorTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from, to;
+
+        FactorTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1 || blockStart[to] - blockStart[from] <= GRAIN) {
+                factorBlocks(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FactorTask(from, mid), new FactorTask(mid, to));
+        }
+    }
+}
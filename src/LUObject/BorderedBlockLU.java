@@ -0,0 +1,494 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a parallel direct solver by domain decomposition. The rows are split into K domains and an interface
+ * so that no entry couples two different domains, which puts the matrix in bordered block-diagonal form,
+ *
+ *      | A_11            A_1G |
+ *      |       ...       ...  |
+ *      |            A_KK A_KG |
+ *      | A_G1  ...  A_GK A_GG |
+ *
+ * Each domain block A_kk is factored with SparseLU on its own fork-join task, together with its part of the Schur
+ * complement of the interface,
+ *      S = A_GG - sum over k of A_Gk * A_kk^-1 * A_kG
+ * which is then factored on one thread. A solve is one parallel pass of domain solves, the interface solve and a
+ * second parallel pass,
+ *      y_k = A_kk^-1 b_k,  S x_G = b_G - sum A_Gk y_k,  x_k = A_kk^-1 (b_k - A_kG x_G)
+ *
+ * The domains are contiguous runs of a breadth-first order of the symmetric pattern started from a far vertex, so for
+ * a mesh or a chain they are strips whose interfaces are single levels. A row is put on the interface when it has a
+ * neighbor in a lower domain, and a row with a zero diagonal (an IVS branch) next to the interface follows it, so each
+ * domain block keeps its incidence entries. The speedup depends on the interface staying small compared to the
+ * domains; S is stored with a dense block per domain.
+ */
+public class BorderedBlockLU implements LinearSolver {
+    private static Logger logger = Logger.getLogger(BorderedBlockLU.class.getName());
+    static final int INTERFACE = -1;
+    private static final int CHUNK = 64;    // interface columns solved together while forming S
+
+    private int n;
+    private ForkJoinPool pool;
+    private int[] interfaceRows;    // global row of each interface index
+    private Domain[] domains;
+    private SparseLU schur;         // factors of S, null if there is no interface
+
+    /**
+     * One domain block with its couplings to the interface.
+     */
+    private static class Domain {
+        int[] rows;                 // global row of each local index
+        SparseMatrix block;
+        SparseLU factors;
+        int[] toRow, toInterface;   // A_kG entries, local row and interface column
+        double[] toValue;
+        int[] fromInterface, fromCol;   // A_Gk entries, interface row and local column
+        double[] fromValue;
+        int[] schurRows, schurCols;     // interface indexes of the dense part of S
+        double[][] schurPart;           // A_Gk * A_kk^-1 * A_kG on those indexes
+        int toCount, fromCount;
+    }
+
+    private BorderedBlockLU(int n, ForkJoinPool pool) {
+        this.n = n;
+        this.pool = pool;
+    }
+
+    /**
+     * Factors A split into the given number of domains, using the pool for the domain blocks.
+     *
+     * @param A         square compressed sparse matrix.
+     * @param count     number of domains, usually the parallelism of the pool.
+     * @param pool      pool the domain tasks run on.
+     * @return          Returns the factorization if successful. Otherwise, returns null.
+     */
+    public static BorderedBlockLU factor(SparseMatrix A, int count, ForkJoinPool pool) {
+        if (!A.isSquare() || !A.isCompressed() || count < 1) {
+            logger.log(Level.SEVERE, "factor method from BorderedBlockLU has issues. Matrix A is not square and compressed OR the domain count is less than 1.");
+            return null;
+        }
+        int n = A.getRowCount();
+        BorderedBlockLU lu = new BorderedBlockLU(n, pool);
+        int[] label = partition(A, count);
+
+        // local index of every row in its domain or in the interface
+        int[] sizes = new int[count];
+        int interfaceCount = 0;
+        int[] local = new int[n];
+        for (int v = 0; v < n; v++) {
+            local[v] = label[v] == INTERFACE ? interfaceCount++ : sizes[label[v]]++;
+        }
+        lu.interfaceRows = new int[interfaceCount];
+        lu.domains = new Domain[count];
+        for (int k = 0; k < count; k++) {
+            lu.domains[k] = new Domain();
+            lu.domains[k].rows = new int[sizes[k]];
+            lu.domains[k].block = new SparseMatrix(sizes[k], sizes[k]);
+        }
+        for (int v = 0; v < n; v++) {
+            if (label[v] == INTERFACE) {
+                lu.interfaceRows[local[v]] = v;
+            }
+            else {
+                lu.domains[label[v]].rows[local[v]] = v;
+            }
+        }
+
+        // split the entries by block, counting the couplings first
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (label[i] != INTERFACE && label[j] == INTERFACE) {
+                    lu.domains[label[i]].toCount++;
+                }
+                else if (label[i] == INTERFACE && label[j] != INTERFACE) {
+                    lu.domains[label[j]].fromCount++;
+                }
+            }
+        }
+        for (Domain d : lu.domains) {
+            d.toRow = new int[d.toCount];
+            d.toInterface = new int[d.toCount];
+            d.toValue = new double[d.toCount];
+            d.fromInterface = new int[d.fromCount];
+            d.fromCol = new int[d.fromCount];
+            d.fromValue = new double[d.fromCount];
+            d.toCount = 0;
+            d.fromCount = 0;
+        }
+        SparseMatrix s = new SparseMatrix(interfaceCount, interfaceCount);
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (label[i] == INTERFACE && label[j] == INTERFACE) {
+                    s.add(local[i], local[j], values[p]);
+                }
+                else if (label[j] == INTERFACE) {
+                    Domain d = lu.domains[label[i]];
+                    d.toRow[d.toCount] = local[i];
+                    d.toInterface[d.toCount] = local[j];
+                    d.toValue[d.toCount++] = values[p];
+                }
+                else if (label[i] == INTERFACE) {
+                    Domain d = lu.domains[label[j]];
+                    d.fromInterface[d.fromCount] = local[i];
+                    d.fromCol[d.fromCount] = local[j];
+                    d.fromValue[d.fromCount++] = values[p];
+                }
+                else {
+                    lu.domains[label[i]].block.add(local[i], local[j], values[p]);
+                }
+            }
+        }
+
+        pool.invoke(lu.new FactorTask(0, count));
+        for (Domain d : lu.domains) {
+            if (d.factors == null && d.rows.length > 0) {
+                logger.log(Level.INFO, "factor method from BorderedBlockLU returned null. A domain block is singular.");
+                return null;
+            }
+        }
+
+        if (interfaceCount > 0) {
+            for (Domain d : lu.domains) {
+                if (d.schurPart == null) {
+                    continue;
+                }
+                for (int a = 0; a < d.schurRows.length; a++) {
+                    for (int c = 0; c < d.schurCols.length; c++) {
+                        s.add(d.schurRows[a], d.schurCols[c], -d.schurPart[a][c]);
+                    }
+                }
+                d.schurPart = null;
+            }
+            s.compress();
+            lu.schur = SparseLU.factor(s);
+            if (lu.schur == null) {
+                logger.log(Level.INFO, "factor method from BorderedBlockLU returned null. The interface system is singular.");
+                return null;
+            }
+        }
+        return lu;
+    }
+
+    /**
+     * Labels every row with its domain, or INTERFACE. No entry of A couples rows of two different domains.
+     *
+     * @param A         square compressed sparse matrix.
+     * @param count     number of domains.
+     * @return          Returns the label of each row.
+     */
+    static int[] partition(SparseMatrix A, int count) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+
+        // symmetric adjacency without the diagonal
+        int[] start = new int[n + 1];
+        boolean[] zeroDiagonal = new boolean[n];
+        Arrays.fill(zeroDiagonal, true);
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (i == j) {
+                    zeroDiagonal[j] = values[p] == 0;
+                }
+                else {
+                    start[i + 1]++;
+                    start[j + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] next = Arrays.copyOf(start, n);
+        int[] adjacent = new int[start[n]];
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (i != j) {
+                    adjacent[next[i]++] = j;
+                    adjacent[next[j]++] = i;
+                }
+            }
+        }
+
+        // breadth-first order of each component, started from the last vertex reached from its first vertex
+        int[] order = new int[n];
+        int[] seen = new int[n];    // component + 1 after the first search, -1 once ordered
+        int ordered = 0, component = 0;
+        for (int s = 0; s < n; s++) {
+            if (seen[s] != 0) {
+                continue;
+            }
+            component++;
+            int head = ordered, tail = ordered;
+            order[tail++] = s;
+            seen[s] = component;
+            while (head < tail) {
+                int v = order[head++];
+                for (int p = start[v]; p < start[v + 1]; p++) {
+                    if (seen[adjacent[p]] == 0) {
+                        seen[adjacent[p]] = component;
+                        order[tail++] = adjacent[p];
+                    }
+                }
+            }
+            int far = order[tail - 1];
+            head = ordered;
+            tail = ordered;
+            order[tail++] = far;
+            seen[far] = -1;
+            while (head < tail) {
+                int v = order[head++];
+                for (int p = start[v]; p < start[v + 1]; p++) {
+                    if (seen[adjacent[p]] != -1) {
+                        seen[adjacent[p]] = -1;
+                        order[tail++] = adjacent[p];
+                    }
+                }
+            }
+            ordered = tail;
+        }
+
+        int[] domain = new int[n];
+        for (int p = 0; p < n; p++) {
+            domain[order[p]] = (int) ((long) p * count / n);
+        }
+        int[] label = domain.clone();
+        for (int v = 0; v < n; v++) {
+            for (int p = start[v]; p < start[v + 1]; p++) {
+                if (domain[adjacent[p]] < domain[v]) {
+                    label[v] = INTERFACE;
+                    break;
+                }
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int v = 0; v < n; v++) {
+                if (label[v] == INTERFACE || !zeroDiagonal[v]) {
+                    continue;
+                }
+                for (int p = start[v]; p < start[v + 1]; p++) {
+                    if (label[adjacent[p]] == INTERFACE) {
+                        label[v] = INTERFACE;
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Factors one domain block and forms its part of S, a chunk of interface columns at a time.
+     */
+    private void factorDomain(Domain d) {
+        if (d.rows.length == 0) {
+            return;
+        }
+        d.block.compress();
+        d.factors = SparseLU.factor(d.block);
+        d.block = null;
+        if (d.factors == null || d.toCount == 0 || d.fromCount == 0) {
+            return;
+        }
+        d.schurCols = unique(d.toInterface);
+        d.schurRows = unique(d.fromInterface);
+        d.schurPart = new double[d.schurRows.length][d.schurCols.length];
+        int m = d.rows.length;
+        for (int first = 0; first < d.schurCols.length; first += CHUNK) {
+            int width = Math.min(CHUNK, d.schurCols.length - first);
+            double[][] block = new double[m][width];
+            for (int e = 0; e < d.toCount; e++) {
+                int c = Arrays.binarySearch(d.schurCols, d.toInterface[e]) - first;
+                if (c >= 0 && c < width) {
+                    block[d.toRow[e]][c] += d.toValue[e];
+                }
+            }
+            double[][] x = d.factors.solve(block);
+            for (int e = 0; e < d.fromCount; e++) {
+                double[] row = d.schurPart[Arrays.binarySearch(d.schurRows, d.fromInterface[e])];
+                double[] xe = x[d.fromCol[e]];
+                double w = d.fromValue[e];
+                for (int c = 0; c < width; c++) {
+                    row[first + c] += w * xe[c];
+                }
+            }
+        }
+    }
+
+    private static int[] unique(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != n) {
+            logger.log(Level.SEVERE, "solve method from BorderedBlockLU has issues. Vector B length does not match the matrix size.");
+            return null;
+        }
+        double[][] block = new double[n][];
+        for (int i = 0; i < n; i++) {
+            block[i] = new double[]{b[i]};
+        }
+        double[][] x = solve(block);
+        double[] result = new double[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = x[i][0];
+        }
+        return result;
+    }
+
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from BorderedBlockLU has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] X = new double[n][];
+        double[][][] y = new double[domains.length][][];
+        pool.invoke(new SolveTask(0, domains.length, B, null, y, X));
+        if (interfaceRows.length == 0) {
+            return X;
+        }
+
+        double[][] r = new double[interfaceRows.length][];
+        for (int g = 0; g < interfaceRows.length; g++) {
+            r[g] = B[interfaceRows[g]].clone();
+        }
+        for (int k = 0; k < domains.length; k++) {
+            Domain d = domains[k];
+            for (int e = 0; e < d.fromCount; e++) {
+                double[] rg = r[d.fromInterface[e]];
+                double[] yk = y[k][d.fromCol[e]];
+                double w = d.fromValue[e];
+                for (int c = 0; c < m; c++) {
+                    rg[c] -= w * yk[c];
+                }
+            }
+        }
+        double[][] xg = schur.solve(r);
+        for (int g = 0; g < interfaceRows.length; g++) {
+            X[interfaceRows[g]] = xg[g];
+        }
+        pool.invoke(new SolveTask(0, domains.length, B, xg, y, X));
+        return X;
+    }
+
+    /**
+     * Solves the domain blocks for B, or for B minus the interface coupling if the interface solution is known.
+     */
+    private void solveDomain(Domain d, double[][] B, double[][] xg, double[][][] y, int k, double[][] X) {
+        if (d.rows.length == 0) {
+            return;
+        }
+        double[][] rhs = new double[d.rows.length][];
+        for (int i = 0; i < d.rows.length; i++) {
+            rhs[i] = B[d.rows[i]].clone();
+        }
+        if (xg != null) {
+            if (d.toCount == 0) {
+                return;     // the first pass was already the solution
+            }
+            for (int e = 0; e < d.toCount; e++) {
+                double[] ri = rhs[d.toRow[e]];
+                double[] x = xg[d.toInterface[e]];
+                double w = d.toValue[e];
+                for (int c = 0; c < ri.length; c++) {
+                    ri[c] -= w * x[c];
+                }
+            }
+        }
+        double[][] x = d.factors.solve(rhs);
+        y[k] = x;
+        for (int i = 0; i < d.rows.length; i++) {
+            X[d.rows[i]] = x[i];
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Returns the number of rows on the interface.
+     */
+    public int getInterfaceSize() {
+        return interfaceRows.length;
+    }
+
+    public int getDomainCount() {
+        return domains.length;
+    }
+
+    private class FactorTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from, to;
+
+        FactorTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                factorDomain(domains[from]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FactorTask(from, mid), new FactorTask(mid, to));
+        }
+    }
+
+    private class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from, to;
+        private double[][] B, xg, X;
+        private double[][][] y;
+
+        SolveTask(int from, int to, double[][] B, double[][] xg, double[][][] y, double[][] X) {
+            this.from = from;
+            this.to = to;
+            this.B = B;
+            this.xg = xg;
+            this.y = y;
+            this.X = X;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                solveDomain(domains[from], B, xg, y, from, X);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SolveTask(from, mid, B, xg, y, X), new SolveTask(mid, to, B, xg, y, X));
+        }
+    }
+}
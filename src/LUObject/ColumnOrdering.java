@@ -0,0 +1,419 @@
+package LUObject;
+
+import java.util.Arrays;
+
+/**
+ * This class provides fill-reducing orderings for sparse factorization.
+ *
+ * amd() is an approximate minimum degree ordering of the pattern of A + A'. It works on the quotient graph the same
+ * way AMD does: every eliminated variable becomes an element that stands for the clique formed by its neighbors, so
+ * the fill is never built explicitly. Degrees are the AMD upper bounds |Lp| + |Ai \ Lp| + sum |Le \ Lp|, and elements
+ * that become subsets of the new element are absorbed.
+ */
+public class ColumnOrdering {
+
+    /**
+     * Returns the identity ordering of size n.
+     *
+     * @param n     size of the ordering.
+     * @return      Returns {0, 1, ..., n - 1}.
+     */
+    public static int[] natural(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Returns an approximate minimum degree ordering of the pattern of A + A'. Entry k of the result is the column
+     * to be eliminated at step k.
+     *
+     * @param A     square sparse matrix.
+     * @return      Returns the ordering if A is square. Otherwise, returns null.
+     */
+    public static int[] amd(SparseMatrix A) {
+        if (!A.isSquare()) {
+            return null;
+        }
+        int n = A.getRowCount();
+        int[] varLen = new int[n];
+        int[][] varAdj = adjacency(A, varLen);
+        int[] degree = varLen.clone();
+        int[] mark = new int[n];
+
+        int[][] elemAdj = new int[n][];
+        int[] elemLen = new int[n];
+        int[][] elemVars = new int[n][];
+        int[] elemSize = new int[n];
+        boolean[] eliminated = new boolean[n];
+        boolean[] absorbed = new boolean[n];
+
+        // degree buckets as doubly linked lists
+        int[] head = new int[n + 1];
+        int[] next = new int[n];
+        int[] prev = new int[n];
+        Arrays.fill(head, -1);
+        for (int i = 0; i < n; i++) {
+            insert(i, degree[i], head, next, prev);
+        }
+
+        int[] order = new int[n];
+        int[] scratch = new int[n];
+        int[] w = new int[n];
+        int[] wStep = new int[n];
+        Arrays.fill(wStep, -1);
+        Arrays.fill(mark, -1);
+        int minDegree = 0;
+
+        for (int k = 0; k < n; k++) {
+            while (head[minDegree] == -1) {
+                minDegree++;
+            }
+            int pivot = head[minDegree];
+            remove(pivot, degree[pivot], head, next, prev);
+            eliminated[pivot] = true;
+            order[k] = pivot;
+
+            // Lp = adjacent variables plus the variables of every adjacent element
+            int size = 0;
+            mark[pivot] = pivot;
+            for (int p = 0; p < varLen[pivot]; p++) {
+                int i = varAdj[pivot][p];
+                if (!eliminated[i] && mark[i] != pivot) {
+                    mark[i] = pivot;
+                    scratch[size++] = i;
+                }
+            }
+            for (int p = 0; p < elemLen[pivot]; p++) {
+                int e = elemAdj[pivot][p];
+                if (absorbed[e]) {
+                    continue;
+                }
+                for (int q = 0; q < elemSize[e]; q++) {
+                    int i = elemVars[e][q];
+                    if (!eliminated[i] && mark[i] != pivot) {
+                        mark[i] = pivot;
+                        scratch[size++] = i;
+                    }
+                }
+                absorbed[e] = true;
+                elemVars[e] = null;
+            }
+            elemVars[pivot] = Arrays.copyOf(scratch, size);
+            elemSize[pivot] = size;
+            varAdj[pivot] = null;
+            elemAdj[pivot] = null;
+
+            // w[e] = |Le \ Lp| for every element touching Lp, found by subtracting each i in Lp from |Le|
+            for (int s = 0; s < size; s++) {
+                int i = scratch[s];
+                for (int p = 0; p < elemLen[i]; p++) {
+                    int e = elemAdj[i][p];
+                    if (absorbed[e]) {
+                        continue;
+                    }
+                    if (wStep[e] != k) {
+                        wStep[e] = k;
+                        w[e] = elemSize[e];
+                    }
+                    w[e]--;
+                }
+            }
+
+            // update each variable in Lp
+            for (int s = 0; s < size; s++) {
+                int i = scratch[s];
+                remove(i, degree[i], head, next, prev);
+
+                // drop eliminated variables and those now covered by the new element
+                int len = 0;
+                for (int p = 0; p < varLen[i]; p++) {
+                    int j = varAdj[i][p];
+                    if (!eliminated[j] && mark[j] != pivot) {
+                        varAdj[i][len++] = j;
+                    }
+                }
+                varLen[i] = len;
+
+                // drop absorbed elements and elements inside Lp, then add the new one
+                int d = varLen[i] + size - 1;
+                len = 0;
+                int[] elems = elemAdj[i];
+                for (int p = 0; p < elemLen[i]; p++) {
+                    int e = elems[p];
+                    if (absorbed[e]) {
+                        continue;
+                    }
+                    if (w[e] == 0) {   // aggressive absorption, Le is a subset of Lp
+                        absorbed[e] = true;
+                        elemVars[e] = null;
+                        continue;
+                    }
+                    elems[len++] = e;
+                    d += w[e];
+                }
+                if (elems == null) {
+                    elems = new int[4];
+                }
+                else if (len == elems.length) {
+                    elems = Arrays.copyOf(elems, len * 2);
+                }
+                elems[len++] = pivot;
+                elemAdj[i] = elems;
+                elemLen[i] = len;
+
+                d = Math.min(d, n - k - 2);
+                degree[i] = Math.max(d, 0);
+                insert(i, degree[i], head, next, prev);
+                minDegree = Math.min(minDegree, degree[i]);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns the AMD ordering with every column that has no diagonal entry moved to right after the first of its
+     * neighbors in the ordering. These are the branch rows of voltage sources in a symmetric MNA matrix; eliminating a
+     * node first gives the branch row a nonzero pivot, so LDL' can factor the matrix without pivoting.
+     *
+     * @param A     square sparse matrix with a symmetric pattern.
+     * @return      Returns the ordering if A is square. Otherwise, returns null.
+     */
+    public static int[] constrained(SparseMatrix A) {
+        int[] order = amd(A);
+        if (order == null) {
+            return null;
+        }
+        int n = order.length;
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        boolean[] delayed = new boolean[n];
+        for (int j = 0; j < n; j++) {
+            delayed[j] = true;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (rowIdx[p] == j) {
+                    delayed[j] = false;
+                }
+            }
+        }
+
+        int[] result = new int[n];
+        boolean[] placed = new boolean[n];
+        int k = 0;
+        for (int j : order) {
+            if (placed[j]) {
+                continue;
+            }
+            boolean ready = !delayed[j];
+            for (int p = colPtr[j]; p < colPtr[j + 1] && !ready; p++) {
+                ready = placed[rowIdx[p]];
+            }
+            if (!ready) {
+                continue;   // placed after its first neighbor below
+            }
+            result[k++] = j;
+            placed[j] = true;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (delayed[i] && !placed[i]) {
+                    result[k++] = i;
+                    placed[i] = true;
+                }
+            }
+        }
+        // columns with no neighbor at all keep their place at the end
+        for (int j : order) {
+            if (!placed[j]) {
+                result[k++] = j;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the reverse Cuthill-McKee ordering of the pattern of A + A'. Each connected part is numbered breadth first
+     * from a pseudo-peripheral vertex, neighbors in order of increasing degree, and the whole numbering is reversed.
+     * Neighbors then get nearby numbers, so chains and ladders end up with a bandwidth of a few entries whatever order
+     * their nodes were added in.
+     *
+     * @param A     square sparse matrix.
+     * @return      Returns the ordering if A is square. Otherwise, returns null.
+     */
+    public static int[] rcm(SparseMatrix A) {
+        if (!A.isSquare()) {
+            return null;
+        }
+        int n = A.getRowCount();
+        int[] degree = new int[n];
+        int[][] adj = adjacency(A, degree);
+        int[] order = new int[n];
+        int[] level = new int[n];
+        Arrays.fill(level, -1);
+        int k = 0;
+        for (int s = 0; s < n; s++) {
+            if (level[s] != -1) {
+                continue;
+            }
+            int start = peripheral(s, adj, degree, level, order, k);
+
+            // Cuthill-McKee from start, the queue is the ordering itself
+            int tail = k;
+            order[tail++] = start;
+            level[start] = 0;
+            for (int head = k; head < tail; head++) {
+                int v = order[head];
+                int first = tail;
+                for (int p = 0; p < degree[v]; p++) {
+                    int w = adj[v][p];
+                    if (level[w] == -1) {
+                        level[w] = level[v] + 1;
+                        order[tail++] = w;
+                    }
+                }
+                for (int i = first + 1; i < tail; i++) {
+                    int w = order[i];
+                    int j = i;
+                    for (; j > first && degree[order[j - 1]] > degree[w]; j--) {
+                        order[j] = order[j - 1];
+                    }
+                    order[j] = w;
+                }
+            }
+            k = tail;
+        }
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    /**
+     * Finds a pseudo-peripheral vertex of the part containing s: repeats a breadth first search from the vertex of
+     * lowest degree on the last level while the number of levels grows. Uses level and queue from offset as scratch and
+     * leaves level at -1 for the part.
+     */
+    private static int peripheral(int s, int[][] adj, int[] degree, int[] level, int[] queue, int offset) {
+        int root = s, height = -1;
+        while (true) {
+            int tail = offset;
+            queue[tail++] = root;
+            level[root] = 0;
+            for (int head = offset; head < tail; head++) {
+                int v = queue[head];
+                for (int p = 0; p < degree[v]; p++) {
+                    int w = adj[v][p];
+                    if (level[w] == -1) {
+                        level[w] = level[v] + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            int last = level[queue[tail - 1]];
+            int candidate = queue[tail - 1];
+            for (int i = tail - 1; i >= offset && level[queue[i]] == last; i--) {
+                if (degree[queue[i]] < degree[candidate]) {
+                    candidate = queue[i];
+                }
+            }
+            for (int i = offset; i < tail; i++) {
+                level[queue[i]] = -1;
+            }
+            if (last <= height) {
+                return root;
+            }
+            height = last;
+            root = candidate;
+        }
+    }
+
+    /**
+     * Returns the inverse of a permutation.
+     *
+     * @param order     permutation to be inverted.
+     * @return          Returns the inverse permutation.
+     */
+    public static int[] inverse(int[] order) {
+        int[] inv = new int[order.length];
+        for (int k = 0; k < order.length; k++) {
+            inv[order[k]] = k;
+        }
+        return inv;
+    }
+
+    /**
+     * Returns the adjacency lists of the pattern of A + A' without the diagonal and without duplicates.
+     *
+     * @param A         square sparse matrix.
+     * @param length    filled with the length of each list.
+     * @return          Returns the lists, each possibly longer than its length.
+     */
+    private static int[][] adjacency(SparseMatrix A, int[] length) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        int[] count = new int[n];
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (i != j) {
+                    count[i]++;
+                    count[j]++;
+                }
+            }
+        }
+        int[][] adj = new int[n][];
+        for (int i = 0; i < n; i++) {
+            adj[i] = new int[Math.max(count[i], 1)];
+        }
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (i != j) {
+                    adj[i][length[i]++] = j;
+                    adj[j][length[j]++] = i;
+                }
+            }
+        }
+
+        // remove duplicates from structurally symmetric entries
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        for (int i = 0; i < n; i++) {
+            int len = 0;
+            for (int p = 0; p < length[i]; p++) {
+                int j = adj[i][p];
+                if (mark[j] != i) {
+                    mark[j] = i;
+                    adj[i][len++] = j;
+                }
+            }
+            length[i] = len;
+        }
+        return adj;
+    }
+
+    private static void insert(int i, int d, int[] head, int[] next, int[] prev) {
+        next[i] = head[d];
+        prev[i] = -1;
+        if (head[d] != -1) {
+            prev[head[d]] = i;
+        }
+        head[d] = i;
+    }
+
+    private static void remove(int i, int d, int[] head, int[] next, int[] prev) {
+        if (prev[i] != -1) {
+            next[prev[i]] = next[i];
+        }
+        else {
+            head[d] = next[i];
+        }
+        if (next[i] != -1) {
+            prev[next[i]] = prev[i];
+        }
+    }
+}
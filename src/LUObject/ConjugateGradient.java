@@ -0,0 +1,349 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class solves Ax = b by the preconditioned conjugate gradient method. Without voltage sources the MNA matrix of a
+ * resistor network is the symmetric positive definite weighted Laplacian, so nothing is factored: memory stays at the
+ * matrix plus a few vectors and the preconditioner, and each iteration is one product with A and one application of
+ * the preconditioner.
+ *
+ * A voltage source from a node to ground adds a branch row k whose only entry is at the node p and a branch column whose
+ * only entry is at row p. Such a pair is eliminated: x_p = b_k / A_kp is known, its column moves to the right hand side,
+ * and after the solve the branch current comes from row p,
+ *      x_k = (b_p - sum over j != k of A_pj x_j) / A_pk
+ * so power grids with supplies still qualify. What is left has to be symmetric with a positive diagonal, otherwise
+ * factor() returns null and another solver has to be used.
+ *
+ * Jacobi and IC(0) need more iterations as a mesh grows; MULTIGRID keeps the count nearly constant, so it is the one
+ * for the largest power grids.
+ *
+ * The iteration stops when the residual of the reduced system is below tolerance times the norm of its right hand side.
+ * solve(b, guess) starts from a previous solution, which cuts the iterations when b or A changed only a little.
+ */
+public class ConjugateGradient implements LinearSolver {
+    private static Logger logger = Logger.getLogger(ConjugateGradient.class.getName());
+    public static final int JACOBI = 0, INCOMPLETE_CHOLESKY = 1, MULTIGRID = 2;
+    public static final double DEFAULT_TOLERANCE = 1E-10;
+    private static final double SYMMETRY_TOLERANCE = 1E-12;
+
+    private int n;
+    private SparseMatrix full;          // A
+    private SparseMatrix rows;          // A', its columns are the rows of A
+    private SparseMatrix matrix;        // A without the eliminated rows and columns
+    private int[] reduced;              // reduced index of each row of A, -1 if eliminated
+    private int[] free;                 // row of A of each reduced index
+    private int[] pinnedNode, pinnedBranch;
+    private Preconditioner preconditioner;
+    private double tolerance;
+    private int maxIterations;
+
+    private ConjugateGradient(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Sets up the solver for A with the default tolerance.
+     *
+     * @param A                 square compressed sparse matrix.
+     * @param preconditioner    JACOBI, INCOMPLETE_CHOLESKY or MULTIGRID.
+     * @return                  Returns the solver if A qualifies. Otherwise, returns null.
+     */
+    public static ConjugateGradient factor(SparseMatrix A, int preconditioner) {
+        return factor(A, preconditioner, DEFAULT_TOLERANCE, 0);
+    }
+
+    /**
+     * Sets up the solver for A: eliminates the grounded voltage source pairs, checks that the rest is symmetric and
+     * builds the preconditioner.
+     *
+     * @param A                 square compressed sparse matrix.
+     * @param preconditioner    JACOBI, INCOMPLETE_CHOLESKY or MULTIGRID.
+     * @param tolerance         relative residual to stop at.
+     * @param maxIterations     iterations before a solve gives up, 0 or less for the size of the reduced system.
+     * @return                  Returns the solver if A qualifies. Otherwise, returns null.
+     */
+    public static ConjugateGradient factor(SparseMatrix A, int preconditioner, double tolerance, int maxIterations) {
+        if (!A.isSquare() || !A.isCompressed() || !(tolerance > 0)) {
+            logger.log(Level.SEVERE, "factor method from ConjugateGradient has issues. Matrix A is not square and compressed OR the tolerance is not positive.");
+            return null;
+        }
+        int n = A.getRowCount();
+        ConjugateGradient cg = new ConjugateGradient(n);
+        cg.rows = A.transpose();
+        cg.full = cg.rows.transpose();  // a copy, so the caller can assemble into A again
+        cg.tolerance = tolerance;
+
+        // grounded voltage source pairs, a column and a row with a single entry at the same node
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        int[] rowPtr = cg.rows.getColumnPointers();
+        int[] colIdx = cg.rows.getRowIndices();
+        boolean[] eliminated = new boolean[n];
+        int pairs = 0;
+        int[] node = new int[n], branch = new int[n];
+        for (int k = 0; k < n; k++) {
+            if (colPtr[k + 1] - colPtr[k] != 1 || rowPtr[k + 1] - rowPtr[k] != 1) {
+                continue;
+            }
+            int p = rowIdx[colPtr[k]];
+            if (p == k || colIdx[rowPtr[k]] != p || eliminated[p] || eliminated[k]
+                    || A.getValues()[colPtr[k]] == 0 || cg.rows.getValues()[rowPtr[k]] == 0) {
+                continue;
+            }
+            eliminated[p] = true;
+            eliminated[k] = true;
+            node[pairs] = p;
+            branch[pairs++] = k;
+        }
+        cg.pinnedNode = Arrays.copyOf(node, pairs);
+        cg.pinnedBranch = Arrays.copyOf(branch, pairs);
+
+        int m = n - 2 * pairs;
+        cg.reduced = new int[n];
+        cg.free = new int[m];
+        for (int i = 0, r = 0; i < n; i++) {
+            cg.reduced[i] = eliminated[i] ? -1 : r;
+            if (!eliminated[i]) {
+                cg.free[r++] = i;
+            }
+        }
+        SparseMatrix matrix = new SparseMatrix(m, m);
+        double[] values = A.getValues();
+        for (int j = 0; j < n; j++) {
+            if (eliminated[j]) {
+                continue;
+            }
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (!eliminated[rowIdx[p]]) {
+                    matrix.add(cg.reduced[rowIdx[p]], cg.reduced[j], values[p]);
+                }
+            }
+        }
+        matrix.compress();
+        if (!matrix.isSymmetric(SYMMETRY_TOLERANCE)) {
+            logger.log(Level.INFO, "factor method from ConjugateGradient returned null. The matrix is not symmetric after eliminating grounded voltage sources.");
+            return null;
+        }
+        cg.matrix = matrix;
+        cg.maxIterations = maxIterations > 0 ? maxIterations : Math.max(m, 1);
+        if (preconditioner == INCOMPLETE_CHOLESKY) {
+            cg.preconditioner = IncompleteCholesky.factor(matrix);
+        }
+        else if (preconditioner == MULTIGRID) {
+            cg.preconditioner = AlgebraicMultigrid.build(matrix);
+        }
+        else {
+            cg.preconditioner = JacobiPreconditioner.build(matrix);
+        }
+        return cg.preconditioner == null ? null : cg;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        return solve(b, null);
+    }
+
+    /**
+     * Returns the solution for Ax = b, starting the iteration from a previous solution.
+     *
+     * @param b         right hand side vector.
+     * @param guess     starting point of length n, or null to start from zero.
+     * @return          Returns the solution if it converged. Otherwise, returns null.
+     */
+    public double[] solve(double[] b, double[] guess) {
+        double[] x = new double[n];
+        return solve(b, guess, x) == -1 ? null : x;
+    }
+
+    /**
+     * Solves Ax = b into x, starting the iteration from a previous solution. The iteration count is returned rather than
+     * kept on the solver, so solves from several threads do not share it.
+     *
+     * @param b         right hand side vector.
+     * @param guess     starting point of length n, or null to start from zero.
+     * @param x         vector of length n the solution is written to.
+     * @return          Returns the number of iterations if it converged. Otherwise, returns -1.
+     */
+    public int solve(double[] b, double[] guess, double[] x) {
+        if (b.length != n || x.length != n || (guess != null && guess.length != n)) {
+            logger.log(Level.SEVERE, "solve method from ConjugateGradient has issues. Vector B, the guess or vector X does not match the matrix size.");
+            return -1;
+        }
+        int[] colPtr = full.getColumnPointers();
+        int[] rowIdx = full.getRowIndices();
+        double[] values = full.getValues();
+
+        // pinned node voltages and their columns moved to the right hand side
+        double[] rhs = new double[free.length];
+        for (int r = 0; r < free.length; r++) {
+            rhs[r] = b[free[r]];
+        }
+        for (int t = 0; t < pinnedNode.length; t++) {
+            int p = pinnedNode[t], k = pinnedBranch[t];
+            x[p] = b[k] / rows.getValues()[rows.getColumnPointers()[k]];  // the only entry of row k is A_kp
+            for (int q = colPtr[p]; q < colPtr[p + 1]; q++) {
+                int r = reduced[rowIdx[q]];
+                if (r != -1) {
+                    rhs[r] -= values[q] * x[p];
+                }
+            }
+        }
+
+        double[] y = new double[free.length];
+        if (guess != null) {
+            for (int r = 0; r < free.length; r++) {
+                y[r] = guess[free[r]];
+            }
+        }
+        int iterations = iterate(rhs, y);
+        if (iterations == -1) {
+            logger.log(Level.SEVERE, "solve method from ConjugateGradient did not converge in " + maxIterations + " iterations.");
+            return -1;
+        }
+        for (int r = 0; r < free.length; r++) {
+            x[free[r]] = y[r];
+        }
+
+        // branch currents from the rows of the pinned nodes
+        int[] rowPtr = rows.getColumnPointers();
+        int[] colIdx = rows.getRowIndices();
+        double[] rowValues = rows.getValues();
+        for (int t = 0; t < pinnedNode.length; t++) {
+            int p = pinnedNode[t], k = pinnedBranch[t];
+            double sum = b[p], pk = 0;
+            for (int q = rowPtr[p]; q < rowPtr[p + 1]; q++) {
+                if (colIdx[q] == k) {
+                    pk = rowValues[q];
+                }
+                else {
+                    sum -= rowValues[q] * x[colIdx[q]];
+                }
+            }
+            x[k] = sum / pk;
+        }
+        return iterations;
+    }
+
+    /**
+     * Runs the preconditioned conjugate gradient iteration on the reduced system from y.
+     *
+     * @return  Returns the number of iterations if it converged. Otherwise, returns -1.
+     */
+    private int iterate(double[] b, double[] y) {
+        int m = b.length;
+        double bNorm = norm(b);
+        if (bNorm == 0) {
+            Arrays.fill(y, 0);
+            return 0;
+        }
+        double[] r = new double[m], z = new double[m], p = new double[m], q = new double[m];
+        multiply(y, q);
+        for (int i = 0; i < m; i++) {
+            r[i] = b[i] - q[i];
+        }
+        preconditioner.apply(r, z);
+        System.arraycopy(z, 0, p, 0, m);
+        double rz = dot(r, z);
+        for (int it = 0; it <= maxIterations; it++) {
+            if (norm(r) <= tolerance * bNorm) {
+                return it;
+            }
+            if (it == maxIterations) {
+                break;
+            }
+            multiply(p, q);
+            double alpha = rz / dot(p, q);
+            for (int i = 0; i < m; i++) {
+                y[i] += alpha * p[i];
+                r[i] -= alpha * q[i];
+            }
+            preconditioner.apply(r, z);
+            double rzNext = dot(r, z);
+            double beta = rzNext / rz;
+            rz = rzNext;
+            for (int i = 0; i < m; i++) {
+                p[i] = z[i] + beta * p[i];
+            }
+        }
+        return -1;
+    }
+
+    private void multiply(double[] x, double[] result) {
+        int[] colPtr = matrix.getColumnPointers();
+        int[] rowIdx = matrix.getRowIndices();
+        double[] values = matrix.getValues();
+        Arrays.fill(result, 0);
+        for (int j = 0; j < x.length; j++) {
+            double xj = x[j];
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                result[rowIdx[p]] += values[p] * xj;
+            }
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double norm(double[] a) {
+        return Math.sqrt(dot(a, a));
+    }
+
+    /**
+     * Solves each right hand side of the block on its own.
+     */
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from ConjugateGradient has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] X = new double[n][m];
+        double[] b = new double[n];
+        for (int c = 0; c < m; c++) {
+            for (int i = 0; i < n; i++) {
+                b[i] = B[i][c];
+            }
+            double[] x = solve(b, null);
+            if (x == null) {
+                return null;
+            }
+            for (int i = 0; i < n; i++) {
+                X[i][c] = x[i];
+            }
+        }
+        return X;
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Returns A, the matrix the solver was set up for, so a caller can factor it directly when a solve does not
+     * converge.
+     */
+    public SparseMatrix getMatrix() {
+        return full;
+    }
+
+    /**
+     * Returns the number of grounded voltage sources that were eliminated.
+     */
+    public int getEliminatedCount() {
+        return pinnedNode.length;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+}
@@ -0,0 +1,149 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is the incomplete Cholesky preconditioner IC(0), A ~ L * L' where L has the pattern of the lower triangle
+ * of A, so it takes no more memory than A and a solve with it costs one pass over the lower triangle each way.
+ *
+ * For the weighted Laplacian of a resistor network (an M-matrix) the factorization always exists. For other symmetric
+ * positive definite matrices a pivot can become non-positive; the factorization is then done again with the diagonal
+ * scaled up by 1 + shift, starting from a small shift and growing it tenfold.
+ */
+public class IncompleteCholesky implements Preconditioner {
+    private static Logger logger = Logger.getLogger(IncompleteCholesky.class.getName());
+    private static final double FIRST_SHIFT = 1E-3;
+    private static final double LAST_SHIFT = 1;
+
+    private int n;
+    private int[] lp, li;   // L in CSC, diagonal stored first in each column
+    private double[] lx;
+
+    private IncompleteCholesky(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Factors the lower triangle of A.
+     *
+     * @param A     square compressed symmetric sparse matrix.
+     * @return      Returns the preconditioner if successful. Otherwise, returns null.
+     */
+    public static IncompleteCholesky factor(SparseMatrix A) {
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        IncompleteCholesky ic = new IncompleteCholesky(n);
+        ic.lp = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            boolean diagonal = false;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (rowIdx[p] >= j) {
+                    ic.lp[j + 1]++;
+                    diagonal |= rowIdx[p] == j;
+                }
+            }
+            if (!diagonal) {
+                logger.log(Level.INFO, "factor method from IncompleteCholesky returned null. Diagonal " + j + " is missing.");
+                return null;
+            }
+            ic.lp[j + 1] += ic.lp[j];
+        }
+        ic.li = new int[ic.lp[n]];
+        double[] lower = new double[ic.lp[n]];
+        for (int j = 0; j < n; j++) {
+            int q = ic.lp[j];
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                if (rowIdx[p] >= j) {   // rows are sorted, so the diagonal comes first
+                    ic.li[q] = rowIdx[p];
+                    lower[q++] = values[p];
+                }
+            }
+        }
+
+        for (double shift = 0; shift <= LAST_SHIFT; shift = shift == 0 ? FIRST_SHIFT : shift * 10) {
+            ic.lx = lower.clone();
+            if (shift > 0) {
+                for (int j = 0; j < n; j++) {
+                    ic.lx[ic.lp[j]] *= 1 + shift;
+                }
+            }
+            if (ic.eliminate()) {
+                return ic;
+            }
+        }
+        logger.log(Level.INFO, "factor method from IncompleteCholesky returned null. The matrix is not positive definite.");
+        return null;
+    }
+
+    /**
+     * Right-looking elimination restricted to the pattern of L.
+     *
+     * @return  Returns false if a pivot is not positive.
+     */
+    private boolean eliminate() {
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int k = 0; k < n; k++) {
+            double d = lx[lp[k]];
+            if (!(d > 0)) {
+                return false;
+            }
+            d = Math.sqrt(d);
+            lx[lp[k]] = d;
+            for (int p = lp[k] + 1; p < lp[k + 1]; p++) {
+                lx[p] /= d;
+            }
+            // column j -= L[j][k] * column k, only where column j has an entry
+            for (int p = lp[k] + 1; p < lp[k + 1]; p++) {
+                int j = li[p];
+                double ljk = lx[p];
+                for (int t = lp[j]; t < lp[j + 1]; t++) {
+                    position[li[t]] = t;
+                }
+                for (int q = p; q < lp[k + 1]; q++) {
+                    int t = position[li[q]];
+                    if (t != -1) {
+                        lx[t] -= lx[q] * ljk;
+                    }
+                }
+                for (int t = lp[j]; t < lp[j + 1]; t++) {
+                    position[li[t]] = -1;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        System.arraycopy(r, 0, z, 0, n);
+        for (int j = 0; j < n; j++) {
+            z[j] /= lx[lp[j]];
+            double zj = z[j];
+            if (zj == 0) {
+                continue;
+            }
+            for (int p = lp[j] + 1; p < lp[j + 1]; p++) {
+                z[li[p]] -= lx[p] * zj;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double zj = z[j];
+            for (int p = lp[j] + 1; p < lp[j + 1]; p++) {
+                zj -= lx[p] * z[li[p]];
+            }
+            z[j] = zj / lx[lp[j]];
+        }
+    }
+
+    /**
+     * Returns the number of entries stored in L.
+     */
+    public int getNonZeroCount() {
+        return lp[n];
+    }
+}
@@ -0,0 +1,45 @@
+package LUObject;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is the Jacobi preconditioner, M = diag(A)^-1. It costs one division per row to set up and one
+ * multiplication per row to apply.
+ */
+public class JacobiPreconditioner implements Preconditioner {
+    private static Logger logger = Logger.getLogger(JacobiPreconditioner.class.getName());
+
+    private double[] inverse;   // 1 / A[i][i]
+
+    private JacobiPreconditioner(double[] inverse) {
+        this.inverse = inverse;
+    }
+
+    /**
+     * Builds the preconditioner from the diagonal of A.
+     *
+     * @param A     square compressed sparse matrix with a positive diagonal.
+     * @return      Returns the preconditioner if successful. Otherwise, returns null.
+     */
+    public static JacobiPreconditioner build(SparseMatrix A) {
+        int n = A.getRowCount();
+        double[] inverse = new double[n];
+        for (int j = 0; j < n; j++) {
+            double d = A.get(j, j);
+            if (!(d > 0)) {
+                logger.log(Level.INFO, "build method from JacobiPreconditioner returned null. Diagonal " + j + " is not positive.");
+                return null;
+            }
+            inverse[j] = 1 / d;
+        }
+        return new JacobiPreconditioner(inverse);
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        for (int i = 0; i < inverse.length; i++) {
+            z[i] = r[i] * inverse[i];
+        }
+    }
+}
@@ -138,6 +138,114 @@ public class LUOperation {
         return ans_temp.toArray();
     }
 
+    /**
+     * Returns the solution for AX = B for a whole block of right hand sides with one factorization.
+     * Column r of matrixB is right hand side r.
+     *
+     * @param matrixA   Matrix A to be solved.
+     * @param matrixB   Block of right hand sides, one per column.
+     * @return          Returns the solution block if successful. Otherwise, returns null.
+     */
+    public static double[][] solveLU(double[][] matrixA, double[][] matrixB) {
+        if (matrixA.length != matrixA[0].length || matrixA.length != matrixB.length) {
+            logger.log(Level.SEVERE, "solveLU has issues. It's either because matrixA is not square or matrix B and matrix A don't have the same row count.");
+            return null;
+        }
+
+        Array2DRowRealMatrix A, B;
+        try {
+            A = new Array2DRowRealMatrix(matrixA);
+            B = new Array2DRowRealMatrix(matrixB);
+        } catch (DimensionMismatchException e) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation has DimensionMismatchException. Check if the rows have the same length.");
+            return null;
+        } catch (NoDataException e) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation has NoDataException. Check if row or column dimension is zero.");
+            return null;
+        } catch (NullArgumentException e) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation has NullArgumentException. Check if the matrix is null.");
+            return null;
+        }
+        DecompositionSolver solver = new LUDecomposition(A).getSolver();
+
+        try {
+            return solver.solve(B).getData();
+        } catch (DimensionMismatchException e) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation has DimensionMismatchException. Check if the matrices dimension match or not.");
+            return null;
+        } catch (SingularMatrixException e) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation has SingularMatrixException. Check if the decomposed matrix is singular.");
+            return null;
+        }
+    }
+
+    /**
+     * Returns the solution for AX = B where A is a sparse matrix and B is a block of right hand sides. A is factored once
+     * and all right hand sides go through the triangular solves together.
+     *
+     * @param matrixA   Sparse matrix A to be solved.
+     * @param matrixB   Block of right hand sides, one per column.
+     * @return          Returns the solution block if successful. Otherwise, returns null.
+     */
+    public static double[][] solveLU(SparseMatrix matrixA, double[][] matrixB) {
+        if (!matrixA.isSquare() || matrixA.getRowCount() != matrixB.length) {
+            logger.log(Level.SEVERE, "solveLU has issues. It's either because matrixA is not square or matrix B and matrix A don't have the same row count.");
+            return null;
+        }
+
+        SparseLU lu = SparseLU.factor(matrixA);
+        if (lu == null) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation failed to factor the sparse matrix. Check if the matrix is singular.");
+            return null;
+        }
+        return lu.solve(matrixB);
+    }
+
+    /**
+     * Returns the solution for Ax = b where A is a sparse matrix. This uses the sparse LU factorization with a fill-reducing
+     * ordering, so the cost depends on the fill of the factors instead of N^3.
+     *
+     * @param matrixA   Sparse matrix A to be solved.
+     * @param vectorB   Vector on the right hand side.
+     * @return          Returns the solution as an array if successful. Otherwise, returns null.
+     */
+    public static double[] solveLU(SparseMatrix matrixA, double[] vectorB) {
+        if (!matrixA.isSquare() || matrixA.getRowCount() != vectorB.length) {
+            logger.log(Level.SEVERE, "solveLU has issues. It's either because matrixA is not square or vector B and answer array doesn't have the same size.");
+            return null;
+        }
+
+        SparseLU lu = SparseLU.factor(matrixA);
+        if (lu == null) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation failed to factor the sparse matrix. Check if the matrix is singular.");
+            return null;
+        }
+        return lu.solve(vectorB);
+    }
+
+    /**
+     * Returns the solution for Ax = b reusing a symbolic analysis of A. Only the numeric factorization is done, so this is
+     * the cheap path when the values of A changed but its pattern did not.
+     *
+     * @param symbolic  Symbolic analysis of a matrix with the same pattern as matrixA.
+     * @param matrixA   Sparse matrix A to be solved.
+     * @param vectorB   Vector on the right hand side.
+     * @return          Returns the solution as an array if successful. Otherwise, returns null.
+     */
+    public static double[] solveLU(SymbolicLU symbolic, SparseMatrix matrixA, double[] vectorB) {
+        if (!matrixA.isSquare() || matrixA.getRowCount() != vectorB.length) {
+            logger.log(Level.SEVERE, "solveLU has issues. It's either because matrixA is not square or vector B and answer array doesn't have the same size.");
+            return null;
+        }
+
+        SparseLU lu = SparseLU.factor(symbolic, matrixA);
+        if (lu == null) {
+            logger.log(Level.SEVERE, "solveLU method from LUOperation failed to factor the sparse matrix. Check if the matrix is singular or the pattern changed.");
+            return null;
+        }
+        return lu.solve(vectorB);
+    }
+
     /**
      * Prints out the 2D array with description.
      *
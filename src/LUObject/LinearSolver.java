@@ -0,0 +1,34 @@
+package LUObject;
+
+/**
+ * This interface is a factored linear system Ax = b that can be solved for any number of right hand sides. It is what
+ * the simulator keeps between solves, so every solver can be used for resolve(), the low-rank updates, superposition
+ * and the fault simulation.
+ *
+ * The fault simulation solves with one instance from several threads at once, so both solve methods must be safe to
+ * call concurrently: they may read the factors but must not change anything a solve depends on.
+ */
+public interface LinearSolver {
+
+    /**
+     * Returns the solution for Ax = b.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if successful. Otherwise, returns null.
+     */
+    double[] solve(double[] b);
+
+    /**
+     * Returns the solution for AX = B for a block of right hand sides. B is stored row by row, B[i][r] is row i of right
+     * hand side r.
+     *
+     * @param B     block of right hand sides, n rows by m columns.
+     * @return      Returns the n by m solution if successful. Otherwise, returns null.
+     */
+    double[][] solve(double[][] B);
+
+    /**
+     * Returns the size n of the system.
+     */
+    int getSize();
+}
@@ -0,0 +1,153 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class solves (A + U * D * U') x = b with the factors of A and the Sherman-Morrison-Woodbury formula,
+ *
+ *      x0 = A^-1 b,  Z = A^-1 U,  (I + D * U' * Z) y = D * U' * x0,  x = x0 - Z * y
+ *
+ * Each update is one sparse column u with a scalar d, which is exactly the change of a two-terminal conductance
+ * between nodes p and n (u = e_p - e_n). Z is computed once per update, so after k updates a solve costs one solve with
+ * the factors plus O(N * k + k^3) instead of a new factorization.
+ */
+public class LowRankUpdate {
+    private static Logger logger = Logger.getLogger(LowRankUpdate.class.getName());
+
+    private LinearSolver factors;
+    private int rank;
+    private int[][] rows;           // nonzero rows of each update column u
+    private double[][] coefficients;
+    private double[] delta;         // diagonal of D
+    private double[][] z;           // A^-1 u for each update
+
+    /**
+     * @param factors   factors of the matrix A to be updated.
+     */
+    public LowRankUpdate(LinearSolver factors) {
+        this.factors = factors;
+        rank = 0;
+        rows = new int[4][];
+        coefficients = new double[4][];
+        delta = new double[4];
+        z = new double[4][];
+    }
+
+    /**
+     * Adds the update delta * u * u' where u has the given sparse entries.
+     *
+     * @param rowIndices    rows of the nonzero entries of u.
+     * @param values        values of the nonzero entries of u.
+     * @param d             scale of the update.
+     * @return              Returns the slot of the update to be used with adjust(), or -1 if it is invalid or the
+     *                      factors could not solve for it.
+     */
+    public int addUpdate(int[] rowIndices, double[] values, double d) {
+        int n = factors.getSize();
+        if (rowIndices.length != values.length || rowIndices.length == 0 || Double.isNaN(d) || Double.isInfinite(d)) {
+            logger.log(Level.INFO, "addUpdate method from LowRankUpdate has invalid update column or scale.");
+            return -1;
+        }
+        double[] u = new double[n];
+        for (int p = 0; p < rowIndices.length; p++) {
+            if (rowIndices[p] < 0 || rowIndices[p] >= n) {
+                logger.log(Level.INFO, "addUpdate method from LowRankUpdate has out of bound row: " + rowIndices[p]);
+                return -1;
+            }
+            u[rowIndices[p]] += values[p];
+        }
+
+        double[] solution = factors.solve(u);
+        if (solution == null) {
+            logger.log(Level.INFO, "addUpdate method from LowRankUpdate returned -1. The factors could not solve for the update column.");
+            return -1;
+        }
+        if (rank == delta.length) {
+            int capacity = rank * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            coefficients = Arrays.copyOf(coefficients, capacity);
+            delta = Arrays.copyOf(delta, capacity);
+            z = Arrays.copyOf(z, capacity);
+        }
+        rows[rank] = rowIndices.clone();
+        coefficients[rank] = values.clone();
+        delta[rank] = d;
+        z[rank] = solution;
+        return rank++;
+    }
+
+    /**
+     * Adds d to the scale of an existing update. Changing the same element again only changes its scale, so the rank
+     * does not grow.
+     *
+     * @param slot  slot returned by addUpdate().
+     * @param d     value added to the scale.
+     * @return      Returns true if adjusted successfully. Otherwise, returns false.
+     */
+    public boolean adjust(int slot, double d) {
+        if (slot < 0 || slot >= rank || Double.isNaN(d) || Double.isInfinite(d)) {
+            return false;
+        }
+        delta[slot] += d;
+        return true;
+    }
+
+    /**
+     * Returns the solution for the updated matrix.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if successful. Otherwise, returns null.
+     */
+    public double[] solve(double[] b) {
+        double[] x = factors.solve(b);
+        if (x == null || rank == 0) {
+            return x;
+        }
+
+        // capacitance matrix I + D * U' * Z and right hand side D * U' * x0
+        double[][] c = new double[rank][rank];
+        double[] r = new double[rank];
+        for (int i = 0; i < rank; i++) {
+            for (int j = 0; j < rank; j++) {
+                c[i][j] = delta[i] * dot(i, z[j]);
+            }
+            c[i][i] += 1;
+            r[i] = delta[i] * dot(i, x);
+        }
+        double[] y = rank == 1 ? new double[]{r[0] / c[0][0]} : LUOperation.solveLU(c, r);
+        if (y == null || Double.isNaN(y[0]) || Double.isInfinite(y[0])) {
+            logger.log(Level.SEVERE, "solve method from LowRankUpdate has a singular capacitance matrix. The updated matrix is singular.");
+            return null;
+        }
+
+        for (int j = 0; j < rank; j++) {
+            double yj = y[j];
+            double[] zj = z[j];
+            for (int i = 0; i < x.length; i++) {
+                x[i] -= zj[i] * yj;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Returns u_i' * v using the sparse entries of u_i.
+     */
+    private double dot(int i, double[] v) {
+        double sum = 0;
+        for (int p = 0; p < rows[i].length; p++) {
+            sum += coefficients[i][p] * v[rows[i][p]];
+        }
+        return sum;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public LinearSolver getFactors() {
+        return factors;
+    }
+}
@@ -0,0 +1,348 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class factors a symmetric matrix in single precision and gets double precision solutions back by iterative
+ * refinement. L and D of the LDL' factorization are stored as float, half the memory and half the bandwidth of
+ * SparseLDL, while the residual of every step is computed in double with A,
+ *      r = b - A x,  x = x + (L D L')^-1 r
+ * Each step gains about the accuracy of the float factors, so a few steps reach double accuracy unless A is too badly
+ * conditioned for float, in which case the residual stops shrinking.
+ *
+ * Refinement stops when the normwise backward error
+ *      |b - A x| / (|A| |x| + |b|)     with the infinity norm
+ * is below the accuracy target, when a step does not at least halve it, or after MAX_STEPS. factor() refines one test
+ * right hand side, and if that stops short of the target the matrix is factored in double as well and every solve
+ * uses those factors. The solver does not change after factor(), so several threads can solve with it at once;
+ * refine() returns the backward error and the steps of each solve, which certify how accurate it is.
+ */
+public class MixedPrecisionSolver implements LinearSolver {
+    private static Logger logger = Logger.getLogger(MixedPrecisionSolver.class.getName());
+    public static final double DEFAULT_ACCURACY = 1E-13;
+    private static final int MAX_STEPS = 10;
+    private static final double STALL = 0.5;
+    private static final double PIVOT_TOLERANCE = 1E-6;    // relative to the column, float keeps about 7 digits
+
+    private int n;
+    private SparseMatrix matrix;    // A, for the residuals
+    private double norm;            // infinity norm of A
+    private SymbolicLU symbolic;
+    private double accuracy;
+    private int[] order;
+    private int[] lp, li;           // L in CSC without its unit diagonal
+    private float[] lx;
+    private float[] d;
+    private LinearSolver fallback;  // double factors if refinement stalled in factor()
+
+    private MixedPrecisionSolver(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Factors A in single precision with the ordering, elimination tree and column counts of a symbolic analysis, then
+     * refines a right hand side of ones. If that does not reach the accuracy, A is factored in double with the same
+     * symbolic analysis and those factors are used for every solve.
+     *
+     * @param symbolic  symbolic analysis of a matrix with the same pattern as A, see ColumnOrdering.constrained().
+     * @param A         square compressed symmetric sparse matrix.
+     * @param accuracy  backward error the refinement stops at.
+     * @return          Returns the solver if A is symmetric and every pivot is large enough. Otherwise, returns null.
+     */
+    public static MixedPrecisionSolver factor(SymbolicLU symbolic, SparseMatrix A, double accuracy) {
+        if (symbolic == null || !symbolic.matches(A) || !(accuracy > 0)) {
+            logger.log(Level.SEVERE, "factor method from MixedPrecisionSolver has issues. The symbolic analysis does not match the pattern of matrix A OR the accuracy is not positive.");
+            return null;
+        }
+        if (!A.isSymmetric(SparseLDL.SYMMETRY_TOLERANCE)) {
+            logger.log(Level.INFO, "factor method from MixedPrecisionSolver returned null. Matrix A is not symmetric.");
+            return null;
+        }
+        int n = A.getRowCount();
+        MixedPrecisionSolver solver = new MixedPrecisionSolver(n);
+        solver.matrix = A.transpose();  // A is symmetric, so this is a copy of it
+        solver.symbolic = symbolic;
+        solver.accuracy = accuracy;
+        if (!solver.eliminate()) {
+            logger.log(Level.INFO, "factor method from MixedPrecisionSolver returned null. A pivot is too small for single precision.");
+            return null;
+        }
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1);
+        double error = solver.refine(ones).getResidual();
+        if (!(error <= accuracy)) {
+            logger.log(Level.INFO, "factor method from MixedPrecisionSolver stalled at a backward error of " + error + ". Factoring in double.");
+            solver.fallback = SparseLDL.factor(symbolic, solver.matrix);
+            if (solver.fallback == null) {
+                solver.fallback = SparseLU.factor(symbolic, solver.matrix);
+            }
+            if (solver.fallback == null) {
+                logger.log(Level.SEVERE, "factor method from MixedPrecisionSolver returned null. Matrix A is singular.");
+                return null;
+            }
+        }
+        return solver;
+    }
+
+    /**
+     * Up-looking LDL' as in SparseLDL, accumulating each row in double and rounding it to float when it is stored.
+     *
+     * @return  Returns false if a pivot is too small.
+     */
+    private boolean eliminate() {
+        int[] colPtr = matrix.getColumnPointers();
+        int[] rowIdx = matrix.getRowIndices();
+        double[] values = matrix.getValues();
+        int[] parent = symbolic.getEliminationTree();
+        int[] colCount = symbolic.getColumnCounts();
+        order = symbolic.getColumnOrdering().clone();
+        int[] position = ColumnOrdering.inverse(order);
+        lp = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            lp[k + 1] = lp[k] + colCount[k] - 1;
+        }
+        li = new int[lp[n]];
+        lx = new float[lp[n]];
+        d = new float[n];
+
+        int[] length = new int[n];
+        int[] flag = new int[n];
+        int[] pattern = new int[n];
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            int j = order[k];
+            int top = n;
+            flag[k] = k;
+            double scale = 0, sum = 0;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = position[rowIdx[p]];
+                scale = Math.max(scale, Math.abs(values[p]));
+                sum += Math.abs(values[p]);
+                if (i > k) {
+                    continue;
+                }
+                y[i] += values[p];
+                int len = 0;
+                for (; flag[i] != k; i = parent[i]) {
+                    pattern[len++] = i;
+                    flag[i] = k;
+                }
+                while (len > 0) {
+                    pattern[--top] = pattern[--len];
+                }
+            }
+            norm = Math.max(norm, sum);
+
+            double dk = y[k];
+            y[k] = 0;
+            for (; top < n; top++) {
+                int i = pattern[top];
+                double yi = y[i];
+                y[i] = 0;
+                int end = lp[i] + length[i];
+                for (int p = lp[i]; p < end; p++) {
+                    y[li[p]] -= lx[p] * yi;
+                }
+                float lki = (float) (yi / d[i]);
+                dk -= lki * yi;
+                li[end] = k;
+                lx[end] = lki;
+                length[i]++;
+            }
+            if (!(Math.abs(dk) > PIVOT_TOLERANCE * scale)) {
+                return false;
+            }
+            d[k] = (float) dk;
+        }
+        return true;
+    }
+
+    /**
+     * Solves with the float factors, in double.
+     */
+    private double[] solveSingle(double[] b) {
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = b[order[k]];
+        }
+        for (int j = 0; j < n; j++) {
+            double yj = y[j];
+            if (yj == 0) {
+                continue;
+            }
+            for (int p = lp[j]; p < lp[j + 1]; p++) {
+                y[li[p]] -= lx[p] * yj;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double yj = y[j] / d[j];
+            for (int p = lp[j]; p < lp[j + 1]; p++) {
+                yj -= lx[p] * y[li[p]];
+            }
+            y[j] = yj;
+        }
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[order[k]] = y[k];
+        }
+        return x;
+    }
+
+    /**
+     * Computes r = b - A x and returns the normwise backward error of x.
+     */
+    private double residual(double[] b, double[] x, double[] r) {
+        int[] colPtr = matrix.getColumnPointers();
+        int[] rowIdx = matrix.getRowIndices();
+        double[] values = matrix.getValues();
+        System.arraycopy(b, 0, r, 0, n);
+        double xNorm = 0, bNorm = 0, rNorm = 0;
+        for (int j = 0; j < n; j++) {
+            double xj = x[j];
+            xNorm = Math.max(xNorm, Math.abs(xj));
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                r[rowIdx[p]] -= values[p] * xj;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            bNorm = Math.max(bNorm, Math.abs(b[i]));
+            rNorm = Math.max(rNorm, Math.abs(r[i]));
+        }
+        double scale = norm * xNorm + bNorm;
+        return scale == 0 ? 0 : rNorm / scale;
+    }
+
+    /**
+     * Returns the solution for Ax = b, refined until the backward error is below the accuracy target.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[] solve(double[] b) {
+        Refinement refinement = refine(b);
+        return refinement == null ? null : refinement.getSolution();
+    }
+
+    /**
+     * Solves Ax = b like solve() and also returns the backward error of the solution and the refinement steps it took.
+     * With the double factors there are no steps. If refinement stalls short of the accuracy, the solution is returned
+     * with the backward error it reached.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the refined solution if the size matches. Otherwise, returns null.
+     */
+    public Refinement refine(double[] b) {
+        if (b.length != n) {
+            logger.log(Level.SEVERE, "refine method from MixedPrecisionSolver has issues. Vector B length does not match the matrix size.");
+            return null;
+        }
+        double[] r = new double[n];
+        if (fallback != null) {
+            double[] x = fallback.solve(b);
+            return x == null ? null : new Refinement(x, residual(b, x, r), 0);
+        }
+        double[] x = solveSingle(b);
+        double error = residual(b, x, r);
+        int steps = 0;
+        while (error > accuracy && steps < MAX_STEPS) {
+            double[] correction = solveSingle(r);
+            for (int i = 0; i < n; i++) {
+                x[i] += correction[i];
+            }
+            steps++;
+            double next = residual(b, x, r);
+            boolean stalled = !(next <= STALL * error);
+            error = next;
+            if (stalled) {
+                break;
+            }
+        }
+        return new Refinement(x, error, steps);
+    }
+
+    /**
+     * Solves each right hand side of the block on its own.
+     */
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from MixedPrecisionSolver has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] X = new double[n][m];
+        double[] b = new double[n];
+        for (int c = 0; c < m; c++) {
+            for (int i = 0; i < n; i++) {
+                b[i] = B[i][c];
+            }
+            double[] x = solve(b);
+            if (x == null) {
+                return null;
+            }
+            for (int i = 0; i < n; i++) {
+                X[i][c] = x[i];
+            }
+        }
+        return X;
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Returns true if refinement stalled in factor() and the matrix was factored in double.
+     */
+    public boolean isFallback() {
+        return fallback != null;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Returns the bytes taken by the single precision factors.
+     */
+    public long getFactorBytes() {
+        return 4L * (lp.length + li.length + lx.length + d.length);
+    }
+
+    /**
+     * This class is the outcome of one refine() call.
+     */
+    public static class Refinement {
+        private double[] solution;
+        private double residual;
+        private int steps;
+
+        Refinement(double[] solution, double residual, int steps) {
+            this.solution = solution;
+            this.residual = residual;
+            this.steps = steps;
+        }
+
+        public double[] getSolution() {
+            return solution;
+        }
+
+        /**
+         * Returns the normwise backward error of the solution.
+         */
+        public double getResidual() {
+            return residual;
+        }
+
+        /**
+         * Returns the refinement steps taken, 0 with the double factors.
+         */
+        public int getSteps() {
+            return steps;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package LUObject;
+
+/**
+ * This interface is a preconditioner M for an iterative solver, an operator close to A^-1 that is cheap to apply.
+ */
+public interface Preconditioner {
+
+    /**
+     * Computes z = M r. ConjugateGradient solves from several threads share one preconditioner, so this must not write
+     * to any state of the preconditioner.
+     *
+     * @param r     residual vector.
+     * @param z     vector the result is written to, of the same length.
+     */
+    void apply(double[] r, double[] z);
+}
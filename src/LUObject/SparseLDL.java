@@ -0,0 +1,297 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a sparse LDL' factorization, P A P' = L D L' with L unit lower triangular and D diagonal, for symmetric
+ * matrices. Only L is stored, so it takes about half the memory and half the arithmetic of SparseLU on the same
+ * ordering. Resistors, current sources and voltage sources all stamp symmetrically, so this covers every MNA matrix the
+ * circuit elements produce.
+ *
+ * Without voltage sources the matrix is positive definite and D is positive, which is the Cholesky factorization
+ * without the square roots. Voltage sources make it indefinite with zero diagonals on their branch rows. Instead of
+ * pivoting during the factorization, ColumnOrdering.constrained() eliminates every branch row after one of its nodes,
+ * where its pivot is nonzero. The pivots are fixed by the ordering, so factor() returns null when one of them turns out
+ * smaller than PIVOT_TOLERANCE times the largest entry of its column, or when the backward error of a test solve shows
+ * that the factors grew too much, and the caller has to use SparseLU.
+ *
+ * The numeric factorization is up-looking: row k of L is the solution of a triangular system whose pattern is the
+ * subtree of the elimination tree reached from the entries of column k, which SymbolicLU already provides.
+ */
+public class SparseLDL implements LinearSolver {
+    private static Logger logger = Logger.getLogger(SparseLDL.class.getName());
+    public static final double SYMMETRY_TOLERANCE = 1E-12;
+    private static final double PIVOT_TOLERANCE = 1E-8;
+    private static final double RESIDUAL_TOLERANCE = 1E-10;    // backward error of the test solve
+
+    private int n;
+    private int[] order;    // column order[k] of A is row and column k of L
+    private int[] lp, li;   // L in CSC without its unit diagonal
+    private double[] lx;
+    private double[] d;
+
+    private SparseLDL(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Factors A with the constrained minimum degree ordering.
+     *
+     * @param A     square compressed symmetric sparse matrix.
+     * @return      Returns the factorization if successful. Otherwise, returns null.
+     */
+    public static SparseLDL factor(SparseMatrix A) {
+        if (!A.isSquare() || A.getRowCount() < 1) {
+            logger.log(Level.SEVERE, "factor method from SparseLDL has issues. Matrix A is either not square or empty.");
+            return null;
+        }
+        return factor(SymbolicLU.analyze(A, ColumnOrdering.constrained(A)), A);
+    }
+
+    /**
+     * Numeric factorization of A with the ordering, elimination tree and column counts of an existing symbolic
+     * analysis.
+     *
+     * @param symbolic  symbolic analysis of a matrix with the same pattern as A.
+     * @param A         square compressed symmetric sparse matrix.
+     * @return          Returns the factorization if A is symmetric and every pivot is large enough. Otherwise, returns
+     *                  null.
+     */
+    public static SparseLDL factor(SymbolicLU symbolic, SparseMatrix A) {
+        if (symbolic == null || !symbolic.matches(A)) {
+            logger.log(Level.SEVERE, "factor method from SparseLDL has issues. The symbolic analysis does not match the pattern of matrix A.");
+            return null;
+        }
+        if (!A.isSymmetric(SYMMETRY_TOLERANCE)) {
+            logger.log(Level.INFO, "factor method from SparseLDL returned null. Matrix A is not symmetric.");
+            return null;
+        }
+        int n = A.getRowCount();
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        int[] parent = symbolic.getEliminationTree();
+        int[] colCount = symbolic.getColumnCounts();
+
+        SparseLDL ldl = new SparseLDL(n);
+        ldl.order = symbolic.getColumnOrdering().clone();
+        int[] position = ColumnOrdering.inverse(ldl.order);
+        ldl.lp = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            ldl.lp[k + 1] = ldl.lp[k] + colCount[k] - 1;
+        }
+        ldl.li = new int[ldl.lp[n]];
+        ldl.lx = new double[ldl.lp[n]];
+        ldl.d = new double[n];
+        int[] lp = ldl.lp, li = ldl.li;
+        double[] lx = ldl.lx, d = ldl.d;
+
+        int[] length = new int[n];      // entries of each column of L found so far
+        int[] flag = new int[n];
+        int[] pattern = new int[n];
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            // pattern of row k of L: the tree paths from the entries of the upper part of column k
+            int j = ldl.order[k];
+            int top = n;
+            flag[k] = k;
+            double scale = 0;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = position[rowIdx[p]];
+                scale = Math.max(scale, Math.abs(values[p]));
+                if (i > k) {
+                    continue;
+                }
+                y[i] += values[p];
+                int len = 0;
+                for (; flag[i] != k; i = parent[i]) {
+                    pattern[len++] = i;
+                    flag[i] = k;
+                }
+                while (len > 0) {
+                    pattern[--top] = pattern[--len];
+                }
+            }
+
+            d[k] = y[k];
+            y[k] = 0;
+            for (; top < n; top++) {
+                int i = pattern[top];
+                double yi = y[i];
+                y[i] = 0;
+                int end = lp[i] + length[i];
+                for (int p = lp[i]; p < end; p++) {
+                    y[li[p]] -= lx[p] * yi;
+                }
+                double lki = yi / d[i];
+                d[k] -= lki * yi;
+                li[end] = k;
+                lx[end] = lki;
+                length[i]++;
+            }
+            if (!(Math.abs(d[k]) > PIVOT_TOLERANCE * scale)) {
+                logger.log(Level.INFO, "factor method from SparseLDL returned null. Pivot " + k + " is too small for the ordering.");
+                return null;
+            }
+        }
+        double error = ldl.backwardError(A);
+        if (!(error <= RESIDUAL_TOLERANCE)) {
+            logger.log(Level.INFO, "factor method from SparseLDL returned null. The backward error " + error + " of a test solve is too large.");
+            return null;
+        }
+        return ldl;
+    }
+
+    /**
+     * Solves for a right hand side of ones and returns the normwise backward error |b - A x| / (|A| |x| + |b|) with the
+     * infinity norm. A is symmetric, so its columns are its rows.
+     */
+    private double backwardError(SparseMatrix A) {
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        double[] values = A.getValues();
+        double[] b = new double[n];
+        Arrays.fill(b, 1);
+        double[] x = solve(b);
+        double[] r = b.clone();
+        double norm = 0, xNorm = 0, rNorm = 0;
+        for (int j = 0; j < n; j++) {
+            double sum = 0;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                r[rowIdx[p]] -= values[p] * x[j];
+                sum += Math.abs(values[p]);
+            }
+            norm = Math.max(norm, sum);
+            xNorm = Math.max(xNorm, Math.abs(x[j]));
+        }
+        for (int i = 0; i < n; i++) {
+            rNorm = Math.max(rNorm, Math.abs(r[i]));
+        }
+        return rNorm / (norm * xNorm + 1);
+    }
+
+    /**
+     * Returns the solution for Ax = b using the factors.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != n) {
+            logger.log(Level.SEVERE, "solve method from SparseLDL has issues. Vector B length does not match the matrix size.");
+            return null;
+        }
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = b[order[k]];
+        }
+        for (int j = 0; j < n; j++) {
+            double yj = y[j];
+            if (yj == 0) {
+                continue;
+            }
+            for (int p = lp[j]; p < lp[j + 1]; p++) {
+                y[li[p]] -= lx[p] * yj;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double yj = y[j] / d[j];
+            for (int p = lp[j]; p < lp[j + 1]; p++) {
+                yj -= lx[p] * y[li[p]];
+            }
+            y[j] = yj;
+        }
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[order[k]] = y[k];
+        }
+        return x;
+    }
+
+    /**
+     * Returns the solution for AX = B for a block of right hand sides with one pass over the factors. B is stored row by
+     * row, B[i][r] is row i of right hand side r.
+     *
+     * @param B     block of right hand sides, n rows by m columns.
+     * @return      Returns the n by m solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from SparseLDL has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] Y = new double[n][];
+        for (int k = 0; k < n; k++) {
+            if (B[order[k]].length != m) {
+                logger.log(Level.SEVERE, "solve method from SparseLDL has issues. Block B rows have different lengths.");
+                return null;
+            }
+            Y[k] = B[order[k]].clone();
+        }
+        for (int j = 0; j < n; j++) {
+            double[] yj = Y[j];
+            for (int p = lp[j]; p < lp[j + 1]; p++) {
+                double l = lx[p];
+                double[] yi = Y[li[p]];
+                for (int r = 0; r < m; r++) {
+                    yi[r] -= l * yj[r];
+                }
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double[] yj = Y[j];
+            for (int r = 0; r < m; r++) {
+                yj[r] /= d[j];
+            }
+            for (int p = lp[j]; p < lp[j + 1]; p++) {
+                double l = lx[p];
+                double[] yi = Y[li[p]];
+                for (int r = 0; r < m; r++) {
+                    yj[r] -= l * yi[r];
+                }
+            }
+        }
+        double[][] X = new double[n][];
+        for (int k = 0; k < n; k++) {
+            X[order[k]] = Y[k];
+        }
+        return X;
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Returns the number of entries stored in L and D.
+     */
+    public int getNonZeroCount() {
+        return lp[n] + n;
+    }
+
+    /**
+     * Returns the inertia of A, the number of positive and of negative pivots in D. A matrix without voltage sources
+     * has only positive ones.
+     *
+     * @return  Returns {positive, negative}.
+     */
+    public int[] getInertia() {
+        int positive = 0;
+        for (double pivot : d) {
+            if (pivot > 0) {
+                positive++;
+            }
+        }
+        return new int[]{positive, n - positive};
+    }
+
+    public int[] getColumnOrdering() {
+        return order;
+    }
+}
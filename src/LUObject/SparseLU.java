@@ -0,0 +1,436 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a sparse direct LU solver for MNA matrices. It computes P * A * Q = L * U where Q is a fill-reducing
+ * column ordering and P comes from threshold partial pivoting.
+ *
+ * The factorization is left-looking (Gilbert-Peierls): each column of L and U is found by a sparse triangular solve
+ * whose nonzero pattern is computed first with a depth-first search, so the work is proportional to the flops
+ * instead of to N^2. The diagonal is kept as pivot whenever it is within pivotTolerance of the largest candidate,
+ * which preserves the symmetric ordering for the usual resistor network.
+ */
+public class SparseLU implements LinearSolver {
+    private static Logger logger = Logger.getLogger(SparseLU.class.getName());
+    public static final double DEFAULT_PIVOT_TOLERANCE = 0.001;
+
+    private int n;
+    private int[] q;        // column ordering, column q[k] is eliminated at step k
+    private int[] pinv;     // row pinv[i] of A is row pinv[i] of L * U
+    private int[] lp, li;   // L in CSC, unit diagonal stored first in each column
+    private double[] lx;
+    private int[] up, ui;   // U in CSC, diagonal stored last in each column
+    private double[] ux;
+
+    private SparseLU(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Factors A with an approximate minimum degree column ordering and the default pivot tolerance.
+     *
+     * @param A     square compressed sparse matrix.
+     * @return      Returns the factorization if successful. Otherwise, returns null.
+     */
+    public static SparseLU factor(SparseMatrix A) {
+        SymbolicLU symbolic = SymbolicLU.analyze(A);
+        if (symbolic == null) {
+            return null;
+        }
+        return factor(symbolic, A);
+    }
+
+    /**
+     * Numeric factorization of A using an existing symbolic analysis. If the analysis already holds a recorded factor
+     * pattern, only the arithmetic on that pattern is done. When a recorded pivot has become too small for the new
+     * values, the full factorization with pivot search is done and its pattern is recorded instead.
+     *
+     * @param symbolic  symbolic analysis of a matrix with the same pattern as A.
+     * @param A         square compressed sparse matrix.
+     * @return          Returns the factorization if successful. Otherwise, returns null.
+     */
+    public static SparseLU factor(SymbolicLU symbolic, SparseMatrix A) {
+        if (symbolic == null || !symbolic.matches(A)) {
+            logger.log(Level.SEVERE, "factor method from SparseLU has issues. The symbolic analysis does not match the pattern of matrix A.");
+            return null;
+        }
+
+        if (symbolic.hasPattern()) {
+            SparseLU lu = refactor(symbolic, A, DEFAULT_PIVOT_TOLERANCE);
+            if (lu != null) {
+                return lu;
+            }
+            logger.log(Level.INFO, "factor method from SparseLU found an unstable recorded pivot. Doing a full factorization.");
+        }
+
+        long estimate = Math.min((symbolic.getFactorEstimate() + symbolic.getSize()) / 2, Integer.MAX_VALUE / 4);
+        SparseLU lu = factor(A, symbolic.getColumnOrdering(), DEFAULT_PIVOT_TOLERANCE, (int) estimate);
+        if (lu == null) {
+            symbolic.clearPattern();
+            return null;
+        }
+        symbolic.record(lu.pinv, lu.lp, lu.li, lu.up, lu.ui);
+        return lu;
+    }
+
+    /**
+     * Numeric-only factorization on the recorded pattern. Column k of U is already in topological order, so the
+     * triangular solve is a single pass with no search.
+     *
+     * @return  Returns null if a pivot is below pivotTolerance times the largest entry of its column.
+     */
+    private static SparseLU refactor(SymbolicLU symbolic, SparseMatrix A, double pivotTolerance) {
+        int n = symbolic.getSize();
+        int[] ap = A.getColumnPointers();
+        int[] ai = A.getRowIndices();
+        double[] ax = A.getValues();
+
+        SparseLU lu = new SparseLU(n);
+        lu.q = symbolic.getColumnOrdering();
+        lu.pinv = symbolic.getPinv();
+        lu.lp = symbolic.getLp();
+        lu.li = symbolic.getLi();
+        lu.up = symbolic.getUp();
+        lu.ui = symbolic.getUi();
+        lu.lx = new double[lu.li.length];
+        lu.ux = new double[lu.ui.length];
+
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            int col = lu.q[k];
+            for (int p = ap[col]; p < ap[col + 1]; p++) {
+                x[lu.pinv[ai[p]]] = ax[p];
+            }
+            for (int p = lu.up[k]; p < lu.up[k + 1] - 1; p++) {
+                int j = lu.ui[p];
+                double xj = x[j];
+                lu.ux[p] = xj;
+                x[j] = 0;
+                for (int r = lu.lp[j] + 1; r < lu.lp[j + 1]; r++) {
+                    x[lu.li[r]] -= lu.lx[r] * xj;
+                }
+            }
+
+            double pivot = x[k];
+            x[k] = 0;
+            double largest = Math.abs(pivot);
+            for (int p = lu.lp[k] + 1; p < lu.lp[k + 1]; p++) {
+                largest = Math.max(largest, Math.abs(x[lu.li[p]]));
+            }
+            if (pivot == 0 || Double.isNaN(pivot) || Math.abs(pivot) < pivotTolerance * largest) {
+                return null;
+            }
+            lu.ux[lu.up[k + 1] - 1] = pivot;
+            lu.lx[lu.lp[k]] = 1;
+            for (int p = lu.lp[k] + 1; p < lu.lp[k + 1]; p++) {
+                int i = lu.li[p];
+                lu.lx[p] = x[i] / pivot;
+                x[i] = 0;
+            }
+        }
+        return lu;
+    }
+
+    /**
+     * Factors A with the given column ordering.
+     *
+     * @param A                 square compressed sparse matrix.
+     * @param order             column ordering, column order[k] is eliminated at step k.
+     * @param pivotTolerance    diagonal is kept as pivot if it is at least pivotTolerance times the largest candidate.
+     * @return                  Returns the factorization if successful. Otherwise, returns null.
+     */
+    public static SparseLU factor(SparseMatrix A, int[] order, double pivotTolerance) {
+        return factor(A, order, pivotTolerance, 4 * A.getNonZeroCount() + A.getRowCount());
+    }
+
+    private static SparseLU factor(SparseMatrix A, int[] order, double pivotTolerance, int capacity) {
+        if (!A.isSquare() || A.getRowCount() < 1 || order == null || order.length != A.getRowCount()) {
+            logger.log(Level.SEVERE, "factor method from SparseLU has issues. It's either because matrix A is not square OR the ordering does not match.");
+            return null;
+        }
+
+        int n = A.getRowCount();
+        int[] ap = A.getColumnPointers();
+        int[] ai = A.getRowIndices();
+        double[] ax = A.getValues();
+
+        SparseLU lu = new SparseLU(n);
+        lu.q = order.clone();
+        lu.pinv = new int[n];
+        Arrays.fill(lu.pinv, -1);
+        capacity = Math.max(capacity, n);
+        lu.lp = new int[n + 1];
+        lu.li = new int[capacity];
+        lu.lx = new double[capacity];
+        lu.up = new int[n + 1];
+        lu.ui = new int[capacity];
+        lu.ux = new double[capacity];
+
+        double[] x = new double[n];
+        int[] xi = new int[2 * n];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int lnz = 0, unz = 0;
+
+        for (int k = 0; k < n; k++) {
+            lu.lp[k] = lnz;
+            lu.up[k] = unz;
+            if (lnz + n > lu.li.length) {
+                int size = 2 * lu.li.length + n;
+                lu.li = Arrays.copyOf(lu.li, size);
+                lu.lx = Arrays.copyOf(lu.lx, size);
+            }
+            if (unz + n > lu.ui.length) {
+                int size = 2 * lu.ui.length + n;
+                lu.ui = Arrays.copyOf(lu.ui, size);
+                lu.ux = Arrays.copyOf(lu.ux, size);
+            }
+
+            int col = lu.q[k];
+            int top = lu.lowerSolve(k, ap, ai, ax, col, xi, x, mark);
+
+            // find the largest candidate pivot among rows not yet pivotal
+            int ipiv = -1;
+            double a = -1;
+            for (int p = top; p < n; p++) {
+                int i = xi[p];
+                if (lu.pinv[i] < 0) {
+                    double t = Math.abs(x[i]);
+                    if (t > a) {
+                        a = t;
+                        ipiv = i;
+                    }
+                }
+                else {
+                    lu.ui[unz] = lu.pinv[i];
+                    lu.ux[unz++] = x[i];
+                }
+            }
+            if (ipiv == -1 || a <= 0 || Double.isNaN(a)) {
+                logger.log(Level.SEVERE, "factor method from SparseLU found a structurally or numerically singular matrix at column " + col + ".");
+                return null;
+            }
+            if (lu.pinv[col] < 0 && Math.abs(x[col]) >= a * pivotTolerance) {
+                ipiv = col;
+            }
+
+            double pivot = x[ipiv];
+            lu.ui[unz] = k;
+            lu.ux[unz++] = pivot;
+            lu.pinv[ipiv] = k;
+            lu.li[lnz] = ipiv;
+            lu.lx[lnz++] = 1;
+            for (int p = top; p < n; p++) {
+                int i = xi[p];
+                if (lu.pinv[i] < 0) {
+                    lu.li[lnz] = i;
+                    lu.lx[lnz++] = x[i] / pivot;
+                }
+                x[i] = 0;
+            }
+        }
+        lu.lp[n] = lnz;
+        lu.up[n] = unz;
+
+        // row indices of L in pivot order
+        for (int p = 0; p < lnz; p++) {
+            lu.li[p] = lu.pinv[lu.li[p]];
+        }
+        lu.li = Arrays.copyOf(lu.li, lnz);
+        lu.lx = Arrays.copyOf(lu.lx, lnz);
+        lu.ui = Arrays.copyOf(lu.ui, unz);
+        lu.ux = Arrays.copyOf(lu.ux, unz);
+        return lu;
+    }
+
+    /**
+     * Solves L(0:k, 0:k) * x = A(:, col) where L still holds original row indices. The pattern of x is returned
+     * in xi[top..n-1] in topological order.
+     */
+    private int lowerSolve(int k, int[] ap, int[] ai, double[] ax, int col, int[] xi, double[] x, int[] mark) {
+        int top = reach(k, ap, ai, col, xi, mark);
+        for (int p = ap[col]; p < ap[col + 1]; p++) {
+            x[ai[p]] = ax[p];
+        }
+        for (int px = top; px < n; px++) {
+            int j = xi[px];
+            int J = pinv[j];
+            if (J < 0) {
+                continue;
+            }
+            double xj = x[j];
+            for (int p = lp[J] + 1; p < lp[J + 1]; p++) {
+                x[li[p]] -= lx[p] * xj;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Depth-first search over the graph of L from every nonzero of A(:, col). Nodes are pushed to the top of xi
+     * when they finish so xi[top..n-1] is a topological order. The second half of xi is the DFS position stack.
+     */
+    private int reach(int k, int[] ap, int[] ai, int col, int[] xi, int[] mark) {
+        int top = n;
+        for (int p = ap[col]; p < ap[col + 1]; p++) {
+            int start = ai[p];
+            if (mark[start] == k) {
+                continue;
+            }
+            int head = 0;
+            xi[0] = start;
+            while (head >= 0) {
+                int j = xi[head];
+                int J = pinv[j];
+                if (mark[j] != k) {
+                    mark[j] = k;
+                    xi[n + head] = J < 0 ? 0 : lp[J] + 1;
+                }
+                boolean done = true;
+                int end = J < 0 ? 0 : lp[J + 1];
+                for (int q = xi[n + head]; q < end; q++) {
+                    int i = li[q];
+                    if (mark[i] == k) {
+                        continue;
+                    }
+                    xi[n + head] = q + 1;
+                    xi[++head] = i;
+                    done = false;
+                    break;
+                }
+                if (done) {
+                    head--;
+                    xi[--top] = j;
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Returns the solution for Ax = b using the factors.
+     *
+     * @param b     right hand side vector.
+     * @return      Returns the solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != n) {
+            logger.log(Level.SEVERE, "solve method from SparseLU has issues. Vector B length does not match the matrix size.");
+            return null;
+        }
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[pinv[i]] = b[i];
+        }
+        solveInPlace(y);
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[q[k]] = y[k];
+        }
+        return x;
+    }
+
+    /**
+     * Returns the solution for AX = B for a block of right hand sides with one pass over the factors. B is stored row by
+     * row, B[i][r] is row i of right hand side r, so each update of the triangular solves runs over a contiguous row.
+     *
+     * @param B     block of right hand sides, n rows by m columns.
+     * @return      Returns the n by m solution if the size matches. Otherwise, returns null.
+     */
+    @Override
+    public double[][] solve(double[][] B) {
+        if (B.length != n) {
+            logger.log(Level.SEVERE, "solve method from SparseLU has issues. Block B row count does not match the matrix size.");
+            return null;
+        }
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] Y = new double[n][];
+        for (int i = 0; i < n; i++) {
+            if (B[i].length != m) {
+                logger.log(Level.SEVERE, "solve method from SparseLU has issues. Block B rows have different lengths.");
+                return null;
+            }
+            Y[pinv[i]] = B[i].clone();
+        }
+
+        for (int j = 0; j < n; j++) {
+            double[] yj = Y[j];
+            for (int p = lp[j] + 1; p < lp[j + 1]; p++) {
+                double l = lx[p];
+                double[] yi = Y[li[p]];
+                for (int r = 0; r < m; r++) {
+                    yi[r] -= l * yj[r];
+                }
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double[] yj = Y[j];
+            double d = ux[up[j + 1] - 1];
+            for (int r = 0; r < m; r++) {
+                yj[r] /= d;
+            }
+            for (int p = up[j]; p < up[j + 1] - 1; p++) {
+                double u = ux[p];
+                double[] yi = Y[ui[p]];
+                for (int r = 0; r < m; r++) {
+                    yi[r] -= u * yj[r];
+                }
+            }
+        }
+
+        double[][] X = new double[n][];
+        for (int k = 0; k < n; k++) {
+            X[q[k]] = Y[k];
+        }
+        return X;
+    }
+
+    /**
+     * Forward and back substitution on a vector that is already in pivot order.
+     */
+    private void solveInPlace(double[] y) {
+        for (int j = 0; j < n; j++) {
+            double yj = y[j];
+            if (yj == 0) {
+                continue;
+            }
+            for (int p = lp[j] + 1; p < lp[j + 1]; p++) {
+                y[li[p]] -= lx[p] * yj;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            y[j] /= ux[up[j + 1] - 1];
+            double yj = y[j];
+            if (yj == 0) {
+                continue;
+            }
+            for (int p = up[j]; p < up[j + 1] - 1; p++) {
+                y[ui[p]] -= ux[p] * yj;
+            }
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Returns the number of entries stored in L and U together, counting the unit diagonal of L.
+     */
+    public int getNonZeroCount() {
+        return lp[n] + up[n];
+    }
+
+    public int[] getColumnOrdering() {
+        return q;
+    }
+
+    public int[] getRowPermutation() {
+        return ColumnOrdering.inverse(pinv);
+    }
+}
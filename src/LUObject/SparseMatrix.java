@@ -0,0 +1,356 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class stores a sparse matrix for MNA assembly. Entries are first collected as COO triplets (row, column, value)
+ * so the stamping methods can add to any position in any order. Calling compress() sorts the triplets, sums the
+ * duplicates and compacts them into compressed sparse column (CSC) arrays, which is the layout the solvers read.
+ *
+ * Only the non-zero entries are stored, so memory grows with the number of stamps instead of with size squared.
+ */
+public class SparseMatrix {
+    private static Logger logger = Logger.getLogger(SparseMatrix.class.getName());
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int rows, cols;
+
+    // COO triplets collected while stamping
+    private int[] tripletRow, tripletCol;
+    private double[] tripletValue;
+    private int tripletCount;
+
+    // compressed sparse column form
+    private int[] colPtr, rowIdx;
+    private double[] values;
+    private boolean compressed;
+
+    /**
+     * Creates an empty rows x cols sparse matrix.
+     *
+     * @param rows  number of rows.
+     * @param cols  number of columns.
+     */
+    public SparseMatrix(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        tripletRow = new int[INITIAL_CAPACITY];
+        tripletCol = new int[INITIAL_CAPACITY];
+        tripletValue = new double[INITIAL_CAPACITY];
+        tripletCount = 0;
+        compressed = false;
+    }
+
+    /**
+     * Creates an already compressed matrix from CSC arrays. The arrays are used as they are, so row indices in each
+     * column must be sorted and unique.
+     *
+     * @param rows      number of rows.
+     * @param cols      number of columns.
+     * @param colPtr    column pointers of length cols + 1.
+     * @param rowIdx    row index of each stored entry.
+     * @param values    value of each stored entry.
+     */
+    public SparseMatrix(int rows, int cols, int[] colPtr, int[] rowIdx, double[] values) {
+        this(rows, cols);
+        this.colPtr = colPtr;
+        this.rowIdx = rowIdx;
+        this.values = values;
+        compressed = true;
+    }
+
+    /**
+     * Adds value to the entry at (row, col). Adding to the same position more than once sums the values.
+     * If the matrix is already compressed, the value is added in place when the position is part of the pattern.
+     *
+     * @param row   row index.
+     * @param col   column index.
+     * @param value value to be added.
+     * @return      Returns true if added successfully. Otherwise, returns false.
+     */
+    public boolean add(int row, int col, double value) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            logger.log(Level.INFO, "add method from SparseMatrix has out of bound position: (" + row + ", " + col + ")");
+            return false;
+        }
+
+        if (compressed) {
+            int p = find(row, col);
+            if (p == -1) {
+                logger.log(Level.INFO, "add method from SparseMatrix can not add outside of the compressed pattern: (" + row + ", " + col + ")");
+                return false;
+            }
+            values[p] += value;
+            return true;
+        }
+
+        if (tripletCount == tripletRow.length) {
+            int capacity = tripletRow.length * 2;
+            tripletRow = Arrays.copyOf(tripletRow, capacity);
+            tripletCol = Arrays.copyOf(tripletCol, capacity);
+            tripletValue = Arrays.copyOf(tripletValue, capacity);
+        }
+        tripletRow[tripletCount] = row;
+        tripletCol[tripletCount] = col;
+        tripletValue[tripletCount] = value;
+        tripletCount++;
+        return true;
+    }
+
+    /**
+     * Compacts the COO triplets to CSC form. Duplicate positions are summed. This runs in O(nnz + cols) time using
+     * a counting sort on the column index followed by a per-column sort on the row index.
+     */
+    public void compress() {
+        if (compressed) {
+            return;
+        }
+
+        // counting sort by column
+        int[] count = new int[cols + 1];
+        for (int k = 0; k < tripletCount; k++) {
+            count[tripletCol[k] + 1]++;
+        }
+        for (int j = 0; j < cols; j++) {
+            count[j + 1] += count[j];
+        }
+        int[] next = Arrays.copyOf(count, cols);
+        int[] tempRow = new int[tripletCount];
+        double[] tempValue = new double[tripletCount];
+        for (int k = 0; k < tripletCount; k++) {
+            int p = next[tripletCol[k]]++;
+            tempRow[p] = tripletRow[k];
+            tempValue[p] = tripletValue[k];
+        }
+
+        // sum duplicates inside each column with a row marker
+        colPtr = new int[cols + 1];
+        rowIdx = new int[tripletCount];
+        values = new double[tripletCount];
+        int[] marker = new int[rows];
+        Arrays.fill(marker, -1);
+        int nz = 0;
+        for (int j = 0; j < cols; j++) {
+            colPtr[j] = nz;
+            for (int p = count[j]; p < count[j + 1]; p++) {
+                int i = tempRow[p];
+                if (marker[i] >= colPtr[j]) {
+                    values[marker[i]] += tempValue[p];
+                }
+                else {
+                    marker[i] = nz;
+                    rowIdx[nz] = i;
+                    values[nz] = tempValue[p];
+                    nz++;
+                }
+            }
+            sortColumn(colPtr[j], nz);
+        }
+        colPtr[cols] = nz;
+        rowIdx = Arrays.copyOf(rowIdx, nz);
+        values = Arrays.copyOf(values, nz);
+
+        tripletRow = tripletCol = null;
+        tripletValue = null;
+        tripletCount = 0;
+        compressed = true;
+    }
+
+    /**
+     * Insertion sort of one column by row index. Columns of an MNA matrix only hold a handful of entries.
+     */
+    private void sortColumn(int start, int end) {
+        for (int p = start + 1; p < end; p++) {
+            int r = rowIdx[p];
+            double v = values[p];
+            int q = p - 1;
+            while (q >= start && rowIdx[q] > r) {
+                rowIdx[q + 1] = rowIdx[q];
+                values[q + 1] = values[q];
+                q--;
+            }
+            rowIdx[q + 1] = r;
+            values[q + 1] = v;
+        }
+    }
+
+    /**
+     * Returns the position of (row, col) in the value array of the compressed matrix.
+     *
+     * @param row   row index.
+     * @param col   column index.
+     * @return      Returns the position if the entry is stored. Otherwise, returns -1.
+     */
+    public int find(int row, int col) {
+        if (!compressed || col < 0 || col >= cols) {
+            return -1;
+        }
+        int lo = colPtr[col], hi = colPtr[col + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rowIdx[mid] < row) {
+                lo = mid + 1;
+            }
+            else if (rowIdx[mid] > row) {
+                hi = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value at (row, col). Entries that are not stored are zero.
+     *
+     * @param row   row index.
+     * @param col   column index.
+     * @return      Returns the value at (row, col).
+     */
+    public double get(int row, int col) {
+        if (!compressed) {
+            double sum = 0;
+            for (int k = 0; k < tripletCount; k++) {
+                if (tripletRow[k] == row && tripletCol[k] == col) {
+                    sum += tripletValue[k];
+                }
+            }
+            return sum;
+        }
+        int p = find(row, col);
+        return p == -1 ? 0 : values[p];
+    }
+
+    /**
+     * Returns the product A * x.
+     *
+     * @param x     vector to be multiplied.
+     * @return      Returns A * x if the sizes match. Otherwise, returns null.
+     */
+    public double[] multiply(double[] x) {
+        if (x.length != cols) {
+            logger.log(Level.SEVERE, "multiply method from SparseMatrix has issues. Vector length does not match the column count.");
+            return null;
+        }
+        compress();
+        double[] y = new double[rows];
+        for (int j = 0; j < cols; j++) {
+            double xj = x[j];
+            if (xj == 0) {
+                continue;
+            }
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                y[rowIdx[p]] += values[p] * xj;
+            }
+        }
+        return y;
+    }
+
+    /**
+     * Returns the transpose as a new compressed matrix. The CSC arrays of the transpose are the CSR arrays of
+     * this matrix, so this is also how row-wise access is obtained.
+     *
+     * @return  Returns the transposed matrix.
+     */
+    public SparseMatrix transpose() {
+        compress();
+        int nz = colPtr[cols];
+        int[] tColPtr = new int[rows + 1];
+        int[] tRowIdx = new int[nz];
+        double[] tValues = new double[nz];
+        for (int p = 0; p < nz; p++) {
+            tColPtr[rowIdx[p] + 1]++;
+        }
+        for (int i = 0; i < rows; i++) {
+            tColPtr[i + 1] += tColPtr[i];
+        }
+        int[] next = Arrays.copyOf(tColPtr, rows);
+        for (int j = 0; j < cols; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int q = next[rowIdx[p]]++;
+                tRowIdx[q] = j;
+                tValues[q] = values[p];
+            }
+        }
+        return new SparseMatrix(cols, rows, tColPtr, tRowIdx, tValues);
+    }
+
+    /**
+     * Returns the matrix as a dense 2D array. Only meant for small matrices and debugging.
+     *
+     * @return  Returns the dense matrix.
+     */
+    public double[][] toDense() {
+        compress();
+        double[][] dense = new double[rows][cols];
+        for (int j = 0; j < cols; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                dense[rowIdx[p]][j] += values[p];
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * Returns true if the matrix is square with a symmetric pattern and values that agree with their mirror entries to
+     * a relative tolerance.
+     *
+     * @param tolerance     relative difference allowed between A[i][j] and A[j][i].
+     * @return              Returns true if the matrix is symmetric. Otherwise, returns false.
+     */
+    public boolean isSymmetric(double tolerance) {
+        if (rows != cols) {
+            return false;
+        }
+        SparseMatrix t = transpose();
+        if (!Arrays.equals(colPtr, t.colPtr)) {
+            return false;
+        }
+        int nz = colPtr[cols];
+        for (int p = 0; p < nz; p++) {
+            double scale = Math.max(Math.abs(values[p]), Math.abs(t.values[p]));
+            if (rowIdx[p] != t.rowIdx[p] || Math.abs(values[p] - t.values[p]) > tolerance * scale) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    public int getNonZeroCount() {
+        return compressed ? colPtr[cols] : tripletCount;
+    }
+
+    public int[] getColumnPointers() {
+        compress();
+        return colPtr;
+    }
+
+    public int[] getRowIndices() {
+        compress();
+        return rowIdx;
+    }
+
+    public double[] getValues() {
+        compress();
+        return values;
+    }
+}
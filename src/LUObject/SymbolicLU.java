@@ -0,0 +1,214 @@
+package LUObject;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class holds the symbolic part of a sparse LU factorization: the fill-reducing ordering, the elimination tree
+ * and column counts of the ordered pattern, and the nonzero pattern of A it was computed for.
+ *
+ * The first numeric factorization also records its pivot sequence and the L and U patterns here. A later factorization
+ * of a matrix with the same pattern only redoes the arithmetic on those patterns, so changing element values does not
+ * repeat the ordering, the depth-first searches or the pivot search.
+ */
+public class SymbolicLU {
+    private static Logger logger = Logger.getLogger(SymbolicLU.class.getName());
+
+    private int n;
+    private int[] colPtr, rowIdx;   // pattern of A this analysis belongs to
+    private int[] order;            // column ordering
+    private int[] parent;           // elimination tree of the ordered A + A'
+    private int[] colCount;         // column counts of L for the ordered A + A', diagonal included
+    private long factorEstimate;    // estimated entries in L and U together
+
+    // pattern recorded by the first numeric factorization
+    private int[] pinv, lp, li, up, ui;
+
+    private SymbolicLU(int n) {
+        this.n = n;
+    }
+
+    /**
+     * Runs the symbolic analysis with an approximate minimum degree ordering.
+     *
+     * @param A     square compressed sparse matrix.
+     * @return      Returns the symbolic analysis if successful. Otherwise, returns null.
+     */
+    public static SymbolicLU analyze(SparseMatrix A) {
+        if (!A.isSquare() || A.getRowCount() < 1) {
+            logger.log(Level.SEVERE, "analyze method from SymbolicLU has issues. Matrix A is either not square or empty.");
+            return null;
+        }
+        return analyze(A, ColumnOrdering.amd(A));
+    }
+
+    /**
+     * Runs the symbolic analysis with the given column ordering.
+     *
+     * @param A         square compressed sparse matrix.
+     * @param order     column ordering, column order[k] is eliminated at step k.
+     * @return          Returns the symbolic analysis if successful. Otherwise, returns null.
+     */
+    public static SymbolicLU analyze(SparseMatrix A, int[] order) {
+        if (!A.isSquare() || A.getRowCount() < 1 || order == null || order.length != A.getRowCount()) {
+            logger.log(Level.SEVERE, "analyze method from SymbolicLU has issues. It's either because matrix A is not square OR the ordering does not match.");
+            return null;
+        }
+
+        int n = A.getRowCount();
+        SymbolicLU symbolic = new SymbolicLU(n);
+        symbolic.colPtr = A.getColumnPointers().clone();
+        symbolic.rowIdx = A.getRowIndices().clone();
+        symbolic.order = order.clone();
+
+        // neighbors of each column of the ordered A + A' that come before it
+        int[] position = ColumnOrdering.inverse(order);
+        int[] count = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            for (int p = symbolic.colPtr[j]; p < symbolic.colPtr[j + 1]; p++) {
+                int a = position[symbolic.rowIdx[p]], b = position[j];
+                if (a != b) {
+                    count[Math.max(a, b) + 1]++;
+                }
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            count[k + 1] += count[k];
+        }
+        int[] next = Arrays.copyOf(count, n);
+        int[] lower = new int[count[n]];
+        for (int j = 0; j < n; j++) {
+            for (int p = symbolic.colPtr[j]; p < symbolic.colPtr[j + 1]; p++) {
+                int a = position[symbolic.rowIdx[p]], b = position[j];
+                if (a != b) {
+                    lower[next[Math.max(a, b)]++] = Math.min(a, b);
+                }
+            }
+        }
+
+        // elimination tree with path compression
+        int[] parent = new int[n];
+        int[] ancestor = new int[n];
+        for (int k = 0; k < n; k++) {
+            parent[k] = -1;
+            ancestor[k] = -1;
+            for (int p = count[k]; p < count[k + 1]; p++) {
+                int i = lower[p];
+                while (i != -1 && i < k) {
+                    int inext = ancestor[i];
+                    ancestor[i] = k;
+                    if (inext == -1) {
+                        parent[i] = k;
+                    }
+                    i = inext;
+                }
+            }
+        }
+
+        // column counts by walking each row subtree of the elimination tree
+        int[] colCount = new int[n];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        for (int k = 0; k < n; k++) {
+            mark[k] = k;
+            colCount[k]++;
+            for (int p = count[k]; p < count[k + 1]; p++) {
+                for (int i = lower[p]; mark[i] != k; i = parent[i]) {
+                    mark[i] = k;
+                    colCount[i]++;
+                }
+            }
+        }
+        symbolic.parent = parent;
+        symbolic.colCount = colCount;
+        symbolic.factorEstimate = 2 * totalCount(colCount) - n;
+        return symbolic;
+    }
+
+    private static long totalCount(int[] colCount) {
+        long total = 0;
+        for (int c : colCount) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * Returns true if A has exactly the nonzero pattern this analysis was computed for.
+     *
+     * @param A     compressed sparse matrix to be checked.
+     * @return      Returns true if the pattern is the same. Otherwise, returns false.
+     */
+    public boolean matches(SparseMatrix A) {
+        if (!A.isSquare() || A.getRowCount() != n || A.getNonZeroCount() != rowIdx.length) {
+            return false;
+        }
+        return Arrays.equals(colPtr, A.getColumnPointers()) && Arrays.equals(rowIdx, A.getRowIndices());
+    }
+
+    /**
+     * Records the pivot sequence and factor patterns of a numeric factorization so later factorizations can reuse them.
+     */
+    void record(int[] pinv, int[] lp, int[] li, int[] up, int[] ui) {
+        this.pinv = pinv;
+        this.lp = lp;
+        this.li = li;
+        this.up = up;
+        this.ui = ui;
+    }
+
+    /**
+     * Drops the recorded factor pattern, for example after the recorded pivots became unstable.
+     */
+    void clearPattern() {
+        pinv = lp = li = up = ui = null;
+    }
+
+    public boolean hasPattern() {
+        return pinv != null;
+    }
+
+    public int getSize() {
+        return n;
+    }
+
+    public int[] getColumnOrdering() {
+        return order;
+    }
+
+    public int[] getEliminationTree() {
+        return parent;
+    }
+
+    public int[] getColumnCounts() {
+        return colCount;
+    }
+
+    /**
+     * Returns the estimated entries of L and U together when the diagonal pivots are kept.
+     */
+    public long getFactorEstimate() {
+        return factorEstimate;
+    }
+
+    int[] getPinv() {
+        return pinv;
+    }
+
+    int[] getLp() {
+        return lp;
+    }
+
+    int[] getLi() {
+        return li;
+    }
+
+    int[] getUp() {
+        return up;
+    }
+
+    int[] getUi() {
+        return ui;
+    }
+}
@@ -34,7 +34,6 @@ public class ICSTest {
         double[] B = new double[4];
         boolean stamped = ((ICS) is).stamp(-1, 4, is.getValue(), B);
         assertFalse(stamped);
-        assertFalse(((ICS) is).isStamped());
     }
 
     @Test
@@ -53,7 +52,6 @@ public class ICSTest {
         double[] B = new double[4];
         boolean stamped = ((ICS) is).stamp(10, -1, is.getValue(), B);
         assertFalse(stamped);
-        assertFalse(((ICS) is).isStamped());
     }
 
     @Test
@@ -62,6 +60,5 @@ public class ICSTest {
         double[] B = new double[4];
         boolean stamped = ((ICS) is).stamp(0, 2, is.getValue(), B);
         assertFalse(stamped);
-        assertFalse(((ICS) is).isStamped());
     }
 }
\ No newline at end of file
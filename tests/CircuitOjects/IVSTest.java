@@ -20,7 +20,6 @@ public class IVSTest {
         double[] b1 = {0, 0, 0, 12};
 
         assertTrue(stamped);
-        assertTrue(((IVS) vs).isStamped());
         assertArrayEquals(r1, A[0], 0);
         assertArrayEquals(r2, A[1], 0);
         assertArrayEquals(r3, A[2], 0);
@@ -43,7 +42,6 @@ public class IVSTest {
         double[] b1 = {0, 0, 0, .012};
 
         assertTrue(stamped);
-        assertTrue(((IVS) vs).isStamped());
         assertArrayEquals(r1, A[0], 0);
         assertArrayEquals(r2, A[1], 0);
         assertArrayEquals(r3, A[2], 0);
@@ -59,7 +57,6 @@ public class IVSTest {
         double[] B = new double[4];
         boolean stamped = ((IVS) vs).stamp(-1, 4, 3, vs.getValue(), A, B);
         assertFalse(stamped);
-        assertFalse(((IVS) vs).isStamped());
     }
 
     @Test
@@ -76,7 +73,6 @@ public class IVSTest {
         double[] b1 = {0, 0, 0, 12000};
 
         assertTrue(stamped);
-        assertTrue(((IVS) vs).isStamped());
         assertArrayEquals(r1, A[0], 0);
         assertArrayEquals(r2, A[1], 0);
         assertArrayEquals(r3, A[2], 0);
@@ -92,7 +88,6 @@ public class IVSTest {
         double[] B = new double[4];
         boolean stamped = ((IVS) vs).stamp(2, -1, 10, vs.getValue(), A, B);
         assertFalse(stamped);
-        assertFalse(((IVS) vs).isStamped());
     }
 
     @Test
@@ -103,7 +98,6 @@ public class IVSTest {
         boolean stamped = ((IVS) vs).stamp(0, 2, 3, vs.getValue(), A, B);
         assertEquals(Double.NaN, vs.getValue(), 0);
         assertFalse(stamped);
-        assertFalse(((IVS) vs).isStamped());
     }
 
     @Test
@@ -122,6 +116,5 @@ public class IVSTest {
         double[] B = new double[4];
         boolean stamped = ((IVS) vs).stamp(0, 1, 3, vs.getValue(), A, B);
         assertFalse(stamped);
-        assertFalse(((IVS) vs).isStamped());
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package CircuitOjects;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ValueParserTest {
+
+    @Test
+    public void parse_plainNumbers() {
+        assertEquals(12, ValueParser.parse("12"), 0);
+        assertEquals(-0.5, ValueParser.parse("-.5"), 0);
+        assertEquals(0.1, ValueParser.parse("0.1"), 0);
+        assertEquals(1.5E-3, ValueParser.parse("1.5E-3"), 0);
+        assertEquals(2E30, ValueParser.parse("2e30"), 0);
+        assertEquals(1.2345678901234567E20, ValueParser.parse("123456789012345678901"), 1E5);
+    }
+
+    @Test
+    public void parse_componentSuffixes() {
+        assertEquals(4700, ValueParser.parse("4.7k"), 1E-9);
+        assertEquals(5E6, ValueParser.parse("5M"), 0);
+        assertEquals(0.012, ValueParser.parse("12m"), 0);
+        assertEquals(2E15, ValueParser.parse("2P"), 0);
+        assertEquals(2E-12, ValueParser.parse("2p"), 0);
+        assertEquals(1E6, ValueParser.parse("1meg"), 0);
+        assertEquals(1E6, ValueParser.parse("1MEG"), 0);
+        assertEquals(25.4E-6, ValueParser.parse("1mil"), 1E-20);
+        assertEquals(1E4, ValueParser.parse("10kOhm"), 0);
+        assertEquals(3.3E-6, ValueParser.parse("3.3uF"), 1E-20);
+    }
+
+    @Test
+    public void parse_invalid() {
+        assertTrue(Double.isNaN(ValueParser.parse("12h")));
+        assertTrue(Double.isNaN(ValueParser.parse("2s")));
+        assertTrue(Double.isNaN(ValueParser.parse("afda")));
+        assertTrue(Double.isNaN(ValueParser.parse("")));
+        assertTrue(Double.isNaN(ValueParser.parse(".")));
+        assertTrue(Double.isNaN(ValueParser.parse("1k2")));
+        assertTrue(Double.isNaN(ValueParser.parse(null)));
+    }
+
+    @Test
+    public void parse_spiceRules() {
+        assertEquals(5E-3, ValueParser.parse("5M", 0, 2, true), 0);
+        assertEquals(2E-12, ValueParser.parse("2P", 0, 2, true), 0);
+        assertEquals(5, ValueParser.parse("5V", 0, 2, true), 0);
+        assertEquals(1E6, ValueParser.parse("1Meg", 0, 4, true), 0);
+        assertTrue(Double.isNaN(ValueParser.parse("5V1", 0, 3, true)));
+    }
+
+    @Test
+    public void parse_byteRange() {
+        ByteBuffer buffer = ByteBuffer.wrap("R1 a b 4.7kOhm\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(4700, ValueParser.parse(new ValueParser.Bytes(buffer), 7, 14, true), 1E-9);
+    }
+}
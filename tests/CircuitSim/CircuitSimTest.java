@@ -8,7 +8,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -151,4 +155,373 @@ public class CircuitSimTest {
             System.out.print(res.getNodes().get(i) + ", ");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void calculate_voltageDivider() {
+        c.addElement(new IVS("v1", "3", "0", 12));
+        c.addElement(new Resistor("r2", "3", "1", 100));
+        c.addElement(new Resistor("r3", "1", "0", 1000));
+        c.addElement(new Resistor("r4", "1", "0", 500));
+
+        CircuitResult res = c.calculate();
+
+        assertNotNull(res);
+        int n1 = res.getNodes().indexOf("1");
+        int n3 = res.getNodes().indexOf("3");
+        assertEquals(12 * (1000.0 / 3) / (100 + 1000.0 / 3), res.getNodeVoltages()[n1], 1E-9);
+        assertEquals(12, res.getNodeVoltages()[n3], 1E-9);
+    }
+
+    @Test
+    public void calculate_afterValueChange() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+
+        CircuitResult first = c.calculate();
+        c.getElementList().get(2).setValue(3000);
+        CircuitResult second = c.calculate();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        int n2 = second.getNodes().indexOf("2");
+        assertEquals(5, first.getNodeVoltages()[n2], 1E-9);
+        assertEquals(7.5, second.getNodeVoltages()[n2], 1E-9);
+    }
+
+    @Test
+    public void resolve_sourceChange() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.addElement(new ICS("i1", "0", "2", "1m"));
+
+        CircuitResult first = c.calculate();
+        assertTrue(c.setElementValue(0, 20));
+        assertTrue(c.setElementValue(3, 0));
+        CircuitResult second = c.resolve();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        int n2 = second.getNodes().indexOf("2");
+        assertEquals(5.5, first.getNodeVoltages()[n2], 1E-9);
+        assertEquals(10, second.getNodeVoltages()[n2], 1E-9);
+    }
+
+    @Test
+    public void resolve_withoutFactors() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "0", 1000));
+
+        CircuitResult res = c.resolve();
+        assertNotNull(res);
+        assertEquals(-0.01, res.getNodeVoltages()[1], 1E-12);
+    }
+
+    @Test
+    public void setElementValue_invalid() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        assertFalse(c.setElementValue(1, 5));
+        assertFalse(c.setElementValue(0, Double.NaN));
+    }
+
+    @Test
+    public void dcSweep_singleSource() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+
+        List<CircuitResult> res = c.dcSweep("v1", 0, 4, 1);
+
+        assertNotNull(res);
+        assertEquals(5, res.size());
+        for (int i = 0; i < res.size(); i++) {
+            int n2 = res.get(i).getNodes().indexOf("2");
+            assertEquals(i / 2.0, res.get(i).getNodeVoltages()[n2], 1E-9);
+        }
+        assertEquals(10, c.getVoltageSourceList().get(0).getValue(), 0);
+    }
+
+    @Test
+    public void dcSweep_nested() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.addElement(new ICS("i1", "0", "2", 0));
+
+        List<CircuitResult> res = c.dcSweep("v1", 0, 2, 2, "i1", 0, 2E-3, 1E-3);
+
+        assertNotNull(res);
+        assertEquals(6, res.size());
+        int n2 = res.get(0).getNodes().indexOf("2");
+        assertEquals(0, res.get(0).getNodeVoltages()[n2], 1E-9);
+        assertEquals(1, res.get(1).getNodeVoltages()[n2], 1E-9);
+        assertEquals(0.5, res.get(2).getNodeVoltages()[n2], 1E-9);
+        assertEquals(2, res.get(5).getNodeVoltages()[n2], 1E-9);
+    }
+
+    @Test
+    public void dcSweep_invalid() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "0", 1000));
+
+        assertNull(c.dcSweep("r1", 0, 1, 1));
+        assertNull(c.dcSweep("v1", 0, 1, -1));
+        assertNull(c.dcSweep("v1", 0, 1, 0));
+    }
+
+    @Test
+    public void updateElements_lowRank() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.addElement(new Resistor("r3", "2", "3", 1000));
+        c.addElement(new Resistor("r4", "3", "0", 2000));
+        c.calculate();
+
+        Map<String, Double> values = new HashMap<>();
+        values.put("r2", 3000.0);
+        values.put("v1", 20.0);
+        CircuitResult updated = c.updateElements(values);
+
+        CircuitSim fresh = new CircuitSim();
+        fresh.addElement(new IVS("v1", "1", "0", 20));
+        fresh.addElement(new Resistor("r1", "1", "2", 1000));
+        fresh.addElement(new Resistor("r2", "2", "0", 3000));
+        fresh.addElement(new Resistor("r3", "2", "3", 1000));
+        fresh.addElement(new Resistor("r4", "3", "0", 2000));
+        CircuitResult expected = fresh.calculate();
+
+        assertNotNull(updated);
+        for (String node : expected.getNodes()) {
+            assertEquals(expected.getNodeVoltages()[expected.getNodes().indexOf(node)],
+                    updated.getNodeVoltages()[updated.getNodes().indexOf(node)], 1E-9);
+        }
+    }
+
+    @Test
+    public void updateElements_refactorAfterMaxUpdates() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.setMaxUpdates(0);
+        c.calculate();
+
+        Map<String, Double> values = new HashMap<>();
+        values.put("r1", 3000.0);
+        CircuitResult updated = c.updateElements(values);
+
+        assertNotNull(updated);
+        assertEquals(2.5, updated.getNodeVoltages()[updated.getNodes().indexOf("2")], 1E-9);
+        assertNull(c.updateElements(Collections.singletonMap("r1", Double.NaN)));
+    }
+
+    @Test
+    public void updateElements_sourceOnly() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.calculate();
+
+        CircuitResult updated = c.updateElements(Collections.singletonMap("v1", 6.0));
+
+        assertNotNull(updated);
+        assertEquals(3.0, updated.getNodeVoltages()[updated.getNodes().indexOf("2")], 1E-9);
+    }
+
+    @Test
+    public void updateElements_unknownElement() {
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.calculate();
+
+        Map<String, Double> values = new HashMap<>();
+        values.put("r1", 3000.0);
+        values.put("r9", 1000.0);
+
+        assertNull(c.updateElements(values));
+        assertEquals(1000, c.getElementList().get(1).getValue(), 0);
+    }
+
+    @Test
+    public void addInstance_matchesFlattened() {
+        SubcircuitDefinition d = SubcircuitDefinitionTest.tee(1000, 2000, 3000);
+        c.addElement(new IVS("v1", "in", "0", 10));
+        assertTrue(c.addInstance(new SubcircuitInstance("x1", d, Arrays.asList("in", "mid"))));
+        assertTrue(c.addInstance(new SubcircuitInstance("x2", d, Arrays.asList("mid", "0"))));
+        assertFalse(c.addInstance(new SubcircuitInstance("v1", d, Arrays.asList("in", "0"))));
+        assertFalse(c.addInstance(new SubcircuitInstance("x3", d, Collections.singletonList("in"))));
+
+        CircuitSim flat = new CircuitSim();
+        flat.addElement(new IVS("v1", "in", "0", 10));
+        flat.addElement(new Resistor("r1", "in", "m1", 1000));
+        flat.addElement(new Resistor("r2", "m1", "mid", 2000));
+        flat.addElement(new Resistor("r3", "m1", "0", 3000));
+        flat.addElement(new Resistor("r4", "mid", "m2", 1000));
+        flat.addElement(new Resistor("r5", "m2", "0", 2000));
+        flat.addElement(new Resistor("r6", "m2", "0", 3000));
+        CircuitResult expected = flat.calculate();
+
+        CircuitResult result = c.calculate();
+        assertNotNull(result);
+        assertEquals(2, result.getNodes().size());
+        assertEquals(expected.getNodeVoltages()[expected.getNodes().indexOf("mid")],
+                result.getNodeVoltages()[result.getNodes().indexOf("mid")], 1E-9);
+
+        c.setReduction(true);
+        CircuitResult reduced = c.calculate();
+        assertEquals(expected.getNodeVoltages()[expected.getNodes().indexOf("mid")],
+                reduced.getNodeVoltages()[reduced.getNodes().indexOf("mid")], 1E-9);
+    }
+
+    @Test
+    public void superposition_instanceSource() {
+        SubcircuitDefinition d = new SubcircuitDefinition("cell", Collections.singletonList("p"));
+        d.addElement(new IVS("v1", "e", "0", 3));
+        d.addElement(new Resistor("r1", "e", "p", 1000));
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addInstance(new SubcircuitInstance("x1", d, Collections.singletonList("2")));
+
+        SuperpositionResult result = c.superposition();
+        assertNotNull(result);
+        assertEquals(Arrays.asList("v1", "x1"), result.getSources());
+        assertEquals(5, result.getContribution("v1", "2"), 1E-9);
+        assertEquals(1.5, result.getContribution("x1", "2"), 1E-9);
+        assertEquals(6.5, c.calculate().getNodeVoltages()[1], 1E-9);
+    }
+
+    @Test
+    public void setSolver_domainDecomposition() {
+        List<CircuitElement> ladder = new ArrayList<>();
+        ladder.add(new IVS("v1", "n0", "0", 10));
+        ladder.add(new ICS("i1", "0", "n40", 0.002));
+        for (int i = 0; i < 60; i++) {
+            ladder.add(new Resistor("rs" + i, "n" + i, "n" + (i + 1), 100 + i));
+            ladder.add(new Resistor("rg" + i, "n" + (i + 1), "0", 1000 + 10 * i));
+        }
+        c.addAll(ladder);
+        CircuitResult expected = c.calculate();
+
+        c.setSolver(SolverType.DOMAIN_DECOMPOSITION);
+        c.setDomains(4);
+        assertEquals(SolverType.DOMAIN_DECOMPOSITION, c.getSolver());
+        CircuitResult result = c.calculate();
+        assertNotNull(result);
+        assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-9);
+
+        c.getElementList().get(0).setValue(5);
+        CircuitResult resolved = c.resolve();
+        c.setSolver(SolverType.LU);
+        assertArrayEquals(c.calculate().getNodeVoltages(), resolved.getNodeVoltages(), 1E-9);
+    }
+
+    @Test
+    public void setSolver_conjugateGradient() {
+        List<CircuitElement> ladder = new ArrayList<>();
+        ladder.add(new IVS("v1", "n0", "0", 10));
+        ladder.add(new ICS("i1", "0", "n25", 0.002));
+        for (int i = 0; i < 40; i++) {
+            ladder.add(new Resistor("rs" + i, "n" + i, "n" + (i + 1), 100 + i));
+            ladder.add(new Resistor("rg" + i, "n" + (i + 1), "0", 1000 + 10 * i));
+        }
+        c.addAll(ladder);
+        CircuitResult expected = c.calculate();
+
+        for (SolverType type : new SolverType[]{SolverType.PCG_JACOBI, SolverType.PCG_INCOMPLETE_CHOLESKY, SolverType.PCG_MULTIGRID}) {
+            c.setSolver(type);
+            c.setTolerance(1E-12);
+            assertEquals(1E-12, c.getTolerance(), 0);
+            CircuitResult result = c.calculate();
+            assertNotNull(result);
+            assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-8);
+        }
+
+        c.getElementList().get(1).setValue(0.003);
+        CircuitResult resolved = c.resolve();
+        c.setSolver(SolverType.LU);
+        assertArrayEquals(c.calculate().getNodeVoltages(), resolved.getNodeVoltages(), 1E-8);
+    }
+
+    @Test
+    public void setSolver_conjugateGradientNotConverged() {
+        c.addElement(new IVS("v1", "n0", "0", 10));
+        c.addElement(new ICS("i1", "0", "n25", 0.002));
+        for (int i = 0; i < 40; i++) {
+            c.addElement(new Resistor("rs" + i, "n" + i, "n" + (i + 1), 100 + i));
+            c.addElement(new Resistor("rg" + i, "n" + (i + 1), "0", 1000 + 10 * i));
+        }
+        CircuitResult expected = c.calculate();
+
+        // no iteration gets this close, so the matrix is factored directly
+        c.setSolver(SolverType.PCG_JACOBI);
+        c.setTolerance(1E-300);
+        CircuitResult result = c.calculate();
+        assertNotNull(result);
+        assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-10);
+
+        c.getElementList().get(1).setValue(0.003);
+        CircuitResult resolved = c.resolve();
+        assertNotNull(resolved);
+        c.setSolver(SolverType.LU);
+        assertArrayEquals(c.calculate().getNodeVoltages(), resolved.getNodeVoltages(), 1E-10);
+    }
+
+    @Test
+    public void setSolver_banded() {
+        for (int i = 0; i < 80; i++) {
+            c.addElement(new Resistor("rs" + i, "n" + (i * 37 % 81), "n" + ((i + 1) * 37 % 81), 10 + i));
+            c.addElement(new Resistor("rg" + i, "n" + ((i + 1) * 37 % 81), "0", 5000));
+        }
+        c.addElement(new IVS("v1", "n0", "0", 3));
+        c.addElement(new ICS("i1", "0", "n40", 0.001));
+        CircuitResult expected = c.calculate();
+
+        c.setSolver(SolverType.BANDED);
+        CircuitResult result = c.calculate();
+        assertNotNull(result);
+        assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-10);
+    }
+
+    @Test
+    public void setSolver_blockTriangular() {
+        c.addElement(new IVS("v1", "vdd", "0", 3));
+        for (int l = 0; l < 5; l++) {
+            c.addElement(new Resistor("ra" + l, "vdd", "a" + l, 100 + l));
+            c.addElement(new Resistor("rb" + l, "a" + l, "b" + l, 200));
+            c.addElement(new Resistor("rc" + l, "b" + l, "0", 300 + 10 * l));
+        }
+        c.addElement(new ICS("i1", "0", "b2", 0.001));
+        CircuitResult expected = c.calculate();
+
+        c.setSolver(SolverType.BLOCK_TRIANGULAR);
+        CircuitResult result = c.calculate();
+        assertNotNull(result);
+        assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-12);
+    }
+
+    @Test
+    public void setSolver_mixedPrecision() {
+        for (int i = 0; i < 30; i++) {
+            c.addElement(new Resistor("rs" + i, "n" + i, "n" + (i + 1), 10 * (i + 1)));
+            c.addElement(new Resistor("rg" + i, "n" + (i + 1), "0", 1E5 / (i + 1)));
+        }
+        c.addElement(new IVS("v1", "n0", "0", 1.5));
+        c.addElement(new ICS("i1", "0", "n20", 1E-4));
+        CircuitResult expected = c.calculate();
+        assertTrue(Double.isNaN(expected.getResidual()));
+
+        c.setSolver(SolverType.MIXED_PRECISION);
+        c.setAccuracy(1E-14);
+        assertEquals(1E-14, c.getAccuracy(), 0);
+        CircuitResult result = c.calculate();
+        assertNotNull(result);
+        assertTrue(result.getResidual() <= 1E-14);
+        assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-12);
+
+        c.getElementList().get(c.getElementList().size() - 1).setValue(2E-4);
+        CircuitResult resolved = c.resolve();
+        assertTrue(resolved.getResidual() <= 1E-14);
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -119,4 +120,69 @@ public class CircuitTest {
         assertEquals(2, c.getGraph().getVertexCount());
         assertEquals(1, c.getGraph().getEdgeCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void addElement_nodeIndices() {
+        c.addElement(new IVS("v1", "in", "0", 12));
+        c.addElement(new Resistor("r1", "in", "mid", "1k"));
+        c.addElement(new IVS("v2", "mid", "out", 1));
+
+        assertEquals(Arrays.asList("in", "mid", "out"), c.getNodeList());
+        assertEquals(0, c.getElementList().get(1).getPositiveIndex());
+        assertEquals(1, c.getElementList().get(1).getNegativeIndex());
+        assertEquals(-1, c.getElementList().get(0).getNegativeIndex());
+        assertEquals(1, ((IVS) c.getElementList().get(2)).getBranchIndex());
+    }
+
+    @Test
+    public void removeElement_renumbersNodes() {
+        c.addElement(new IVS("v1", "a", "0", 12));
+        c.addElement(new Resistor("r1", "b", "c", "1k"));
+        c.addElement(new IVS("v2", "c", "0", 12));
+        c.addElement(new IVS("v3", "a", "c", 1));
+
+        assertTrue(c.removeElement(1));
+        assertTrue(c.removeElement(1));
+
+        assertEquals(Arrays.asList("a", "c"), c.getNodeList());
+        assertEquals(1, c.getElementList().get(1).getNegativeIndex());
+        assertEquals(1, ((IVS) c.getElementList().get(1)).getBranchIndex());
+    }
+
+    @Test
+    public void addAll_valid() {
+        assertTrue(c.addAll(Arrays.asList(new IVS("v1", "a", "0", 12), new Resistor("r1", "a", "b", "1k"),
+                new ICS("i1", "b", "0", 1), new IVS("v2", "b", "0", 1))));
+
+        assertEquals(4, c.getElementList().size());
+        assertEquals(2, c.getVoltageSourceList().size());
+        assertEquals(1, c.getCurrentSourceList().size());
+        assertEquals(Arrays.asList("a", "b"), c.getNodeList());
+        assertEquals(1, ((IVS) c.getElement("v2")).getBranchIndex());
+        assertEquals(3, c.getGraph().getVertexCount());
+    }
+
+    @Test
+    public void addAll_invalidAddsNothing() {
+        c.addElement(new IVS("v1", "a", "0", 12));
+
+        assertFalse(c.addAll(Arrays.asList(new Resistor("r1", "a", "b", "1k"), new Resistor("v1", "b", "0", "1k"))));
+        assertFalse(c.addAll(Arrays.asList(new Resistor("r1", "a", "b", "1k"), new Resistor("r1", "b", "0", "1k"))));
+        assertFalse(c.addAll(Arrays.asList(new Resistor("r1", "a", "b", "1k"), null)));
+        assertFalse(c.addAll(Arrays.asList(new Resistor("r1", "a", "b", "1k"), new Resistor("r2", "b", "0", "1h"))));
+        assertEquals(1, c.getElementList().size());
+        assertEquals(1, c.getNodeList().size());
+    }
+
+    @Test
+    public void getElement_byName() {
+        c.addElement(new IVS("v1", "a", "0", 12));
+        c.addElement(new Resistor("r1", "a", "0", "1k"));
+
+        assertEquals("r1", c.getElement("r1").getName());
+        assertNull(c.getElement("r2"));
+        assertTrue(c.removeElement(1));
+        assertNull(c.getElement("r1"));
+        assertTrue(c.addElement(new Resistor("r1", "a", "0", "2k")));
+    }
+}
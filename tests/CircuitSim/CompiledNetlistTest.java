@@ -0,0 +1,146 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import LUObject.SparseLDL;
+import LUObject.SparseMatrix;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CompiledNetlistTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CircuitSim sim;
+    private Path path;
+
+    @Before
+    public void setup() throws Exception {
+        sim = new CircuitSim();
+        sim.addElement(new IVS("v1", "in", "0", 12));
+        sim.addElement(new Resistor("r1", "in", "mid", 1000));
+        sim.addElement(new Resistor("r2", "mid", "0", 2000));
+        sim.addElement(new ICS("i1", "0", "mid", 0.001));
+        sim.addElement(new IVS("v2", "out", "mid", 1));
+        sim.addElement(new Resistor("r3", "out", "0", 500));
+        path = folder.newFile("circuit.bin").toPath();
+    }
+
+    @Test
+    public void write_read_sameCircuit() {
+        Circuit circuit = new Circuit();
+        for (CircuitElement c : sim.getElementList()) {
+            circuit.addElement(c);
+        }
+        assertTrue(CompiledNetlist.write(circuit, path));
+
+        Circuit loaded = CompiledNetlist.read(path);
+        assertNotNull(loaded);
+        assertEquals(6, loaded.getElementList().size());
+        assertEquals(2, loaded.getVoltageSourceList().size());
+        assertEquals(1, loaded.getCurrentSourceList().size());
+        assertEquals(sim.getNodeList(), loaded.getNodeList());
+        assertTrue(loaded.getElementList().get(3) instanceof ICS);
+        assertEquals("r2", loaded.getElementList().get(2).getName());
+        assertEquals(2000, loaded.getElementList().get(2).getValue(), 0);
+        assertEquals(1, ((IVS) loaded.getElementList().get(4)).getBranchIndex());
+        assertNotNull(loaded.getSymbolic());
+        assertEquals(4, loaded.getGraph().getVertexCount());
+    }
+
+    @Test
+    public void loadCompiled_sameResult() {
+        CircuitResult expected = sim.calculate();
+        assertTrue(sim.saveCompiled(path));
+
+        CircuitSim other = new CircuitSim();
+        assertTrue(other.loadCompiled(path));
+        CircuitResult result = other.calculate();
+        assertNotNull(result);
+        assertEquals(expected.getNodes(), result.getNodes());
+        assertArrayEquals(expected.getNodeVoltages(), result.getNodeVoltages(), 1E-12);
+    }
+
+    @Test
+    public void read_symmetricOrdering() {
+        assertTrue(sim.saveCompiled(path));
+        Circuit circuit = CompiledNetlist.read(path);
+        assertNotNull(circuit);
+
+        // branch rows stay after their nodes, so the voltage sources do not stop the LDL'
+        StampPlan plan = StampPlan.compile(circuit);
+        SparseMatrix A = plan.assemble(new double[plan.getSize()]);
+        assertTrue(circuit.getSymbolic().matches(A));
+        assertNotNull(SparseLDL.factor(circuit.getSymbolic(), A));
+    }
+
+    @Test
+    public void loadCompiled_editable() {
+        assertTrue(sim.saveCompiled(path));
+        CircuitSim other = new CircuitSim();
+        assertTrue(other.loadCompiled(path));
+
+        assertTrue(other.removeElement(5));
+        assertTrue(other.removeElement(4));
+        assertEquals(2, other.getNodeList().size());
+        assertTrue(other.addElement(new Resistor("r4", "mid", "0", 2000)));
+        assertNotNull(other.calculate());
+    }
+
+    @Test
+    public void read_invalidFile() throws Exception {
+        File text = folder.newFile("netlist.cir");
+        Files.write(text.toPath(), "title\nR1 1 0 1\n".getBytes());
+        assertNull(CompiledNetlist.read(text.toPath()));
+
+        assertTrue(sim.saveCompiled(path));
+        byte[] bytes = Files.readAllBytes(path);
+        File truncated = folder.newFile("truncated.bin");
+        Files.write(truncated.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(CompiledNetlist.read(truncated.toPath()));
+        assertFalse(sim.loadCompiled(truncated.toPath()));
+        assertEquals(6, sim.getElementList().size());
+    }
+
+    @Test
+    public void read_corruptOffsets() throws Exception {
+        assertTrue(sim.saveCompiled(path));
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        // the second offset of the node names points past the third
+        buffer.putInt(4 * 7, 100);
+        Files.write(path, buffer.array());
+        assertNull(CompiledNetlist.read(path));
+    }
+
+    @Test
+    public void read_unsortedPattern() throws Exception {
+        assertTrue(sim.saveCompiled(path));
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int nodeCount = buffer.getInt(8), elementCount = buffer.getInt(12), size = buffer.getInt(16);
+        int position = 24 + 4 * (nodeCount + 1);
+        position += buffer.getInt(position - 4) + 4 * (elementCount + 1);
+        position += buffer.getInt(position - 4) + 17 * elementCount;
+
+        // swap the first two rows of the first column
+        int rows = position + 4 * (size + 1);
+        assertTrue(buffer.getInt(position + 4) >= 2);
+        int first = buffer.getInt(rows);
+        buffer.putInt(rows, buffer.getInt(rows + 4));
+        buffer.putInt(rows + 4, first);
+        Files.write(path, buffer.array());
+        assertNull(CompiledNetlist.read(path));
+    }
+}
@@ -0,0 +1,99 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import LUObject.LinearSolver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FaultTableTest {
+    private CircuitSim c;
+
+    @Before
+    public void setup() {
+        c = new CircuitSim();
+        c.addElement(new IVS("v1", "1", "0", 12));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 2000));
+        c.addElement(new Resistor("r3", "2", "3", 1000));
+        c.addElement(new Resistor("r4", "3", "0", 1000));
+    }
+
+    @Test
+    public void simulateFaults_matchesFullSolve() {
+        FaultTable table = c.simulateFaults();
+
+        assertNotNull(table);
+        assertEquals(8, table.getFaultCount());
+
+        // r2 open: 12 * 2000 / 3000 at node 2
+        int f = table.indexOf("r2", FaultTable.OPEN);
+        int n2 = table.getNodes().indexOf("2");
+        double nominal = table.getNominalVoltages()[n2];
+        assertEquals(6, nominal, 1E-9);
+        assertEquals(8 - nominal, table.getDeviation(f, n2), 1E-5);
+
+        // r3 shorted through 1 mOhm
+        f = table.indexOf("r3", FaultTable.SHORT);
+        int n3 = table.getNodes().indexOf("3");
+        assertEquals(0, table.getDeviation(f, n2) - table.getDeviation(f, n3) + nominal - table.getNominalVoltages()[n3], 1E-2);
+    }
+
+    @Test
+    public void simulateFaults_singularOpen() {
+        c.addElement(new Resistor("r5", "3", "4", 1000));
+        FaultTable table = c.simulateFaults(1E-3, new ForkJoinPool(2));
+
+        // opening r5 leaves node 4 floating
+        assertTrue(Double.isNaN(table.getMaxDeviation(table.indexOf("r5", FaultTable.OPEN))));
+        assertFalse(Double.isNaN(table.getMaxDeviation(table.indexOf("r1", FaultTable.OPEN))));
+        assertEquals(-1, table.indexOf("v1", FaultTable.OPEN));
+    }
+
+    @Test
+    public void run_solveFails() {
+        final CircuitResult nominal = c.calculate();
+        List<CircuitElement> resistors = new ArrayList<>();
+        for (CircuitElement e : c.getElementList()) {
+            if (e instanceof Resistor) {
+                resistors.add(e);
+            }
+        }
+        LinearSolver failing = new LinearSolver() {
+            @Override
+            public double[] solve(double[] b) {
+                return null;
+            }
+
+            @Override
+            public double[][] solve(double[][] B) {
+                return null;
+            }
+
+            @Override
+            public int getSize() {
+                return nominal.getNodeVoltages().length;
+            }
+        };
+        FaultSimulator simulator = new FaultSimulator(failing, nominal.getNodeVoltages(), nominal.getNodes(), resistors, 1E-3);
+        FaultTable table = simulator.run(ForkJoinPool.commonPool(), nominal.getNodes());
+
+        assertEquals(8, table.getFaultCount());
+        for (int f = 0; f < table.getFaultCount(); f++) {
+            assertTrue(Double.isNaN(table.getMaxDeviation(f)));
+        }
+    }
+
+    @Test
+    public void simulateFaults_invalid() {
+        assertNull(c.simulateFaults(0, ForkJoinPool.commonPool()));
+        assertNull(c.simulateFaults(1, null));
+    }
+}
@@ -0,0 +1,167 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NetlistReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Circuit read(String netlist) {
+        Circuit circuit = new Circuit();
+        return NetlistReader.read(ByteBuffer.wrap(netlist.getBytes(StandardCharsets.US_ASCII)), circuit) ? circuit : null;
+    }
+
+    @Test
+    public void read_elements() {
+        Circuit circuit = read("voltage divider\n"
+                + "V1 in 0 DC 12\n"
+                + "R1 in out 1k\n"
+                + "r2 out 0 2.0E3\n"
+                + "I1 0 out 1m\n"
+                + ".end\n");
+        assertNotNull(circuit);
+
+        List<CircuitElement> elements = circuit.getElementList();
+        assertEquals(4, elements.size());
+        assertTrue(elements.get(0) instanceof IVS);
+        assertTrue(elements.get(1) instanceof Resistor);
+        assertTrue(elements.get(2) instanceof Resistor);
+        assertTrue(elements.get(3) instanceof ICS);
+        assertEquals(12, elements.get(0).getValue(), 0);
+        assertEquals(1000, elements.get(1).getValue(), 0);
+        assertEquals(2000, elements.get(2).getValue(), 0);
+        assertEquals(0.001, elements.get(3).getValue(), 0);
+        assertEquals("in", elements.get(1).getPositiveNode());
+        assertEquals("out", elements.get(2).getPositiveNode());
+        assertEquals(2, circuit.getNodeList().size());
+    }
+
+    @Test
+    public void read_commentsAndContinuation() {
+        Circuit circuit = read("title\r\n"
+                + "* comment line\r\n"
+                + "\r\n"
+                + "R1 1 ; inline comment\r\n"
+                + "* comment between card and continuation\r\n"
+                + "+ 2 4.7kOhm\r\n"
+                + "V1 1 0 5V\r\n"
+                + "R2 2 0 1meg\r\n");
+        assertNotNull(circuit);
+        assertEquals(3, circuit.getElementList().size());
+        assertEquals("2", circuit.getElementList().get(0).getNegativeNode());
+        assertEquals(4700, circuit.getElementList().get(0).getValue(), 1E-9);
+        assertEquals(5, circuit.getElementList().get(1).getValue(), 0);
+        assertEquals(1E6, circuit.getElementList().get(2).getValue(), 0);
+    }
+
+    @Test
+    public void read_stopsAtEnd() {
+        Circuit circuit = read("title\nV1 1 0 1\nR1 1 0 1\n.END\nR2 1 0 1\n");
+        assertNotNull(circuit);
+        assertEquals(2, circuit.getElementList().size());
+    }
+
+    @Test
+    public void read_skipsUnsupportedCards() {
+        Circuit circuit = read("title\nV1 1 0 1\nC1 1 0 1u\n.op\nR1 1 0 1\n");
+        assertNotNull(circuit);
+        assertEquals(2, circuit.getElementList().size());
+    }
+
+    @Test
+    public void read_invalidCards() {
+        assertNull(read("title\nR1 1 0 abc\n"));
+        assertNull(read("title\nR1 1 0\n"));
+        assertNull(read("title\n+ 1 0 1\n"));
+        assertNull(read("title\nR1 1 0 1\nR1 2 0 1\n"));
+    }
+
+    @Test
+    public void read_file() throws Exception {
+        File file = folder.newFile("divider.cir");
+        Files.write(file.toPath(), "divider\nV1 1 0 10\nR1 1 2 1k\nR2 2 0 1k\n.end".getBytes(StandardCharsets.US_ASCII));
+
+        CircuitSim sim = new CircuitSim();
+        assertTrue(sim.loadNetlist(file.toPath()));
+        CircuitResult result = sim.calculate();
+        assertNotNull(result);
+        assertEquals(5, result.getNodeVoltages()[result.getNodes().indexOf("2")], 1E-9);
+    }
+
+    @Test
+    public void read_missingFile() {
+        assertNull(NetlistReader.read(new File(folder.getRoot(), "missing.cir").toPath()));
+    }
+
+    @Test
+    public void read_subcircuit() {
+        Circuit circuit = read("ladder\n"
+                + "V1 in 0 12\n"
+                + "X1 in mid half\n"
+                + "x2 mid 0 half\n"
+                + ".subckt half a b\n"
+                + "R1 a m 1k\n"
+                + "R2 m b 1k\n"
+                + "Xload m leg\n"
+                + ".ends half\n"
+                + ".SUBCKT leg p\n"
+                + "R1 p 0 2k\n"
+                + ".ENDS\n"
+                + ".end\n");
+        assertNotNull(circuit);
+        assertEquals(1, circuit.getElementList().size());
+        assertEquals(2, circuit.getInstanceList().size());
+        assertEquals(Arrays.asList("in", "mid"), circuit.getNodeList());
+
+        SubcircuitDefinition half = circuit.getDefinition("half");
+        assertSame(half, circuit.getInstanceList().get(1).getDefinition());
+        assertEquals(2, half.getBody().getElementList().size());
+        assertEquals(1, half.getBody().getInstanceList().size());
+
+        CircuitSim sim = new CircuitSim();
+        sim.addElement(new IVS("V1", "in", "0", 12));
+        sim.addInstance(circuit.getInstanceList().get(0));
+        sim.addInstance(circuit.getInstanceList().get(1));
+        CircuitResult result = sim.calculate();
+        assertNotNull(result);
+        // the same ladder flattened
+        CircuitSim flat = new CircuitSim();
+        flat.addElement(new IVS("V1", "in", "0", 12));
+        flat.addElement(new Resistor("R1", "in", "m1", 1000));
+        flat.addElement(new Resistor("R2", "m1", "mid", 1000));
+        flat.addElement(new Resistor("R3", "m1", "0", 2000));
+        flat.addElement(new Resistor("R4", "mid", "m2", 1000));
+        flat.addElement(new Resistor("R5", "m2", "0", 1000));
+        flat.addElement(new Resistor("R6", "m2", "0", 2000));
+        CircuitResult expected = flat.calculate();
+        assertEquals(expected.getNodeVoltages()[expected.getNodes().indexOf("mid")],
+                result.getNodeVoltages()[result.getNodes().indexOf("mid")], 1E-9);
+    }
+
+    @Test
+    public void read_invalidSubcircuit() {
+        assertNull(read("title\nV1 1 0 1\nX1 1 0 missing\n"));
+        assertNull(read("title\n.subckt open a\nR1 a 0 1\n"));
+        assertNull(read("title\n.ends\n"));
+        assertNull(read("title\n.subckt a p\n.subckt b q\n.ends\n.ends\n"));
+        assertNull(read("title\n.subckt a p\n.ends\n.subckt a q\n.ends\n"));
+        assertNull(read("title\n.subckt a p q\nR1 p q 1\n.ends\nX1 1 a\n"));
+    }
+}
+
@@ -0,0 +1,75 @@
+package CircuitSim;
+
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NetworkReducerTest {
+    private CircuitSim sim;
+
+    @Before
+    public void setup() {
+        // source, a chain of ten series resistors with a parallel pair in it, a load, a dangling stub and a current
+        // source on a pinned node
+        sim = new CircuitSim();
+        sim.addElement(new IVS("v1", "in", "0", 10));
+        String previous = "in";
+        for (int i = 1; i <= 10; i++) {
+            sim.addElement(new Resistor("r" + i, previous, "n" + i, 100 * i));
+            previous = "n" + i;
+        }
+        sim.addElement(new Resistor("rp", "n4", "n5", 300));
+        sim.addElement(new Resistor("rload", previous, "0", 1000));
+        sim.addElement(new Resistor("rstub", "n3", "stub", 50));
+        sim.addElement(new ICS("i1", "0", "n7", 0.002));
+    }
+
+    @Test
+    public void build_eliminatesChain() {
+        Circuit circuit = new Circuit();
+        assertTrue(circuit.addAll(sim.getElementList()));
+        NetworkReducer reducer = NetworkReducer.build(circuit);
+
+        // n1 to n6, n8 to n10 and the stub go, in and n7 stay
+        assertEquals(10, reducer.getEliminatedCount());
+        assertEquals(2, reducer.getReduced().getNodeList().size());
+        assertEquals(4, reducer.getReduced().getElementList().size());
+    }
+
+    @Test
+    public void calculate_sameAsFull() {
+        CircuitResult full = sim.calculate();
+        sim.setReduction(true);
+        CircuitResult reduced = sim.calculate();
+
+        assertNotNull(reduced);
+        assertEquals(full.getNodes(), reduced.getNodes());
+        assertArrayEquals(full.getNodeVoltages(), reduced.getNodeVoltages(), 1E-9);
+    }
+
+    @Test
+    public void calculate_afterValueChange() {
+        sim.setReduction(true);
+        assertNotNull(sim.calculate());
+        assertTrue(sim.setElementValue(5, 2000));
+        assertTrue(sim.setElementValue(0, 5));
+        CircuitResult reduced = sim.calculate();
+
+        sim.setReduction(false);
+        CircuitResult full = sim.calculate();
+        assertArrayEquals(full.getNodeVoltages(), reduced.getNodeVoltages(), 1E-9);
+    }
+
+    @Test
+    public void calculate_elementsUnchanged() {
+        sim.setReduction(true);
+        sim.calculate();
+        assertEquals(1, sim.getElementList().get(2).getPositiveIndex());
+        assertEquals(15, sim.getElementList().size());
+        assertNotNull(sim.superposition());
+    }
+}
@@ -0,0 +1,49 @@
+package CircuitSim;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NodeTableTest {
+    private NodeTable table;
+
+    @Before
+    public void setup() {
+        table = new NodeTable();
+    }
+
+    @Test
+    public void intern_groundNotStored() {
+        assertEquals(NodeTable.GROUND_ID, table.intern("0"));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void intern_insertionOrder() {
+        assertEquals(0, table.intern("out"));
+        assertEquals(1, table.intern("in"));
+        assertEquals(0, table.intern("out"));
+        assertEquals(2, table.intern("a"));
+
+        assertEquals(Arrays.asList("out", "in", "a"), table.getNames());
+        assertEquals(2, table.getReferences(0));
+    }
+
+    @Test
+    public void release_compactsIds() {
+        table.intern("a");
+        table.intern("b");
+        table.intern("c");
+        table.intern("b");
+
+        assertEquals(-1, table.release("b"));
+        assertEquals(1, table.release("b"));
+        assertEquals(1, table.indexOf("c"));
+        assertEquals(-2, table.indexOf("b"));
+        assertEquals(Arrays.asList("a", "c"), table.getNames());
+        assertEquals(-1, table.release("missing"));
+    }
+}
@@ -0,0 +1,91 @@
+package CircuitSim;
+
+import CircuitOjects.CircuitElement;
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import LUObject.SparseMatrix;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StampPlanTest {
+
+    private Circuit circuit;
+
+    @Before
+    public void setup() {
+        circuit = new Circuit();
+        circuit.addElement(new IVS("v1", "1", "0", 10));
+        circuit.addElement(new Resistor("r1", "1", "2", 1000));
+        circuit.addElement(new Resistor("r2", "2", "0", 1000));
+        circuit.addElement(new ICS("i1", "2", "0", 0.001));
+    }
+
+    @Test
+    public void assemble_sameAsElementStamps() {
+        StampPlan plan = StampPlan.compile(circuit);
+        double[] b = new double[plan.getSize()];
+        SparseMatrix A = plan.assemble(b);
+
+        double[][] expectedA = new double[3][3];
+        double[] expectedB = new double[3];
+        for (CircuitElement c : circuit.getElementList()) {
+            int pn = c.getPositiveIndex();
+            int nn = c.getNegativeIndex();
+            if (c instanceof IVS) {
+                assertTrue(((IVS) c).stamp(pn, nn, 2 + ((IVS) c).getBranchIndex(), c.getValue(), expectedA, expectedB));
+            }
+            else if (c instanceof ICS) {
+                assertTrue(((ICS) c).stamp(pn, nn, c.getValue(), expectedB));
+            }
+            else {
+                assertTrue(((Resistor) c).stamp(pn, nn, c.getValue(), expectedA));
+            }
+        }
+
+        assertEquals(3, plan.getSize());
+        assertEquals(2, plan.getNodeCount());
+        assertArrayEquals(expectedA[0], A.toDense()[0], 1E-15);
+        assertArrayEquals(expectedA[1], A.toDense()[1], 1E-15);
+        assertArrayEquals(expectedA[2], A.toDense()[2], 1E-15);
+        assertArrayEquals(expectedB, b, 1E-15);
+    }
+
+    @Test
+    public void assemble_repeatable() {
+        StampPlan plan = StampPlan.compile(circuit);
+        double[] b = new double[plan.getSize()];
+        SparseMatrix first = plan.assemble(b);
+        double[][] dense = first.toDense();
+        SparseMatrix second = plan.assemble(b);
+
+        assertSame(first, second);
+        assertArrayEquals(dense[0], second.toDense()[0], 0);
+        assertArrayEquals(dense[1], second.toDense()[1], 0);
+        assertEquals(10, b[2], 0);
+    }
+
+    @Test
+    public void refreshValues_changedResistor() {
+        StampPlan plan = StampPlan.compile(circuit);
+        circuit.getElementList().get(2).setValue(500);
+        double[] b = new double[plan.getSize()];
+
+        assertEquals(0.002, plan.assemble(b).get(1, 1), 1E-15);
+        plan.refreshValues();
+        assertEquals(0.003, plan.assemble(b).get(1, 1), 1E-15);
+    }
+
+    @Test
+    public void assembleRHS_changedSources() {
+        StampPlan plan = StampPlan.compile(circuit);
+        circuit.getVoltageSourceList().get(0).setValue(5);
+        circuit.getCurrentSourceList().get(0).setValue(0.002);
+        double[] b = {1, 1, 1};
+        plan.assembleRHS(b);
+
+        assertArrayEquals(new double[]{0, -0.002, 5}, b, 0);
+    }
+}
@@ -0,0 +1,101 @@
+package CircuitSim;
+
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SubcircuitDefinitionTest {
+
+    /**
+     * Builds a tee with ports a and b: r1 from a to the inner node m, r2 from m to b and r3 from m to ground. Also used
+     * by CircuitSimTest.
+     */
+    static SubcircuitDefinition tee(double r1, double r2, double r3) {
+        SubcircuitDefinition d = new SubcircuitDefinition("tee", Arrays.asList("a", "b"));
+        d.addElement(new Resistor("r1", "a", "m", r1));
+        d.addElement(new Resistor("r2", "m", "b", r2));
+        d.addElement(new Resistor("r3", "m", "0", r3));
+        return d;
+    }
+
+    @Test
+    public void getAdmittance_eliminatesInternalNodes() {
+        double[][] y = tee(1000, 1000, 1000).getAdmittance();
+        assertEquals(2E-3 / 3, y[0][0], 1E-15);
+        assertEquals(-1E-3 / 3, y[0][1], 1E-15);
+        assertEquals(-1E-3 / 3, y[1][0], 1E-15);
+        assertEquals(2E-3 / 3, y[1][1], 1E-15);
+    }
+
+    @Test
+    public void getCurrent_nortonOfInternalSource() {
+        SubcircuitDefinition d = new SubcircuitDefinition("cell", Collections.singletonList("p"));
+        d.addElement(new IVS("v1", "e", "0", 3));
+        d.addElement(new Resistor("r1", "e", "p", 1000));
+
+        assertEquals(1E-3, d.getAdmittance()[0][0], 1E-15);
+        assertEquals(3E-3, d.getCurrent()[0], 1E-15);
+        assertTrue(d.isCoupled(0, 1));
+    }
+
+    @Test
+    public void getAdmittance_cachedUntilInvalidated() {
+        SubcircuitDefinition d = tee(1000, 1000, 1000);
+        double[][] y = d.getAdmittance();
+        assertSame(y, d.getAdmittance());
+
+        d.getBody().getElement("r3").setValue(500);
+        assertSame(y, d.getAdmittance());
+        d.invalidate();
+        assertNotSame(y, d.getAdmittance());
+        assertEquals(0.75E-3, d.getAdmittance()[0][0], 1E-15);
+    }
+
+    @Test
+    public void getAdmittance_nestedInstance() {
+        SubcircuitDefinition inner = new SubcircuitDefinition("inner", Collections.singletonList("p"));
+        inner.addElement(new Resistor("r1", "p", "0", 1000));
+        SubcircuitDefinition outer = new SubcircuitDefinition("outer", Collections.singletonList("q"));
+        outer.addElement(new Resistor("r1", "q", "0", 1000));
+        assertTrue(outer.addInstance(new SubcircuitInstance("x1", inner, Collections.singletonList("q"))));
+
+        assertEquals(2E-3, outer.getAdmittance()[0][0], 1E-15);
+    }
+
+    @Test
+    public void reduce_selfInstance() {
+        SubcircuitDefinition d = tee(1000, 1000, 1000);
+        d.addInstance(new SubcircuitInstance("x1", d, Arrays.asList("a", "b")));
+        assertFalse(d.reduce());
+        assertNull(d.getAdmittance());
+    }
+
+    @Test
+    public void reduce_floatingInternalNode() {
+        SubcircuitDefinition d = tee(1000, 1000, 1000);
+        d.addElement(new Resistor("r4", "c", "e", 1000));
+        assertFalse(d.reduce());
+    }
+
+    @Test
+    public void reduce_invalidPorts() {
+        SubcircuitDefinition d = new SubcircuitDefinition("bad", Arrays.asList("a", "0"));
+        d.addElement(new Resistor("r1", "a", "0", 1000));
+        assertFalse(d.reduce());
+    }
+
+    @Test
+    public void isCoupled_portsAndGround() {
+        SubcircuitDefinition d = new SubcircuitDefinition("series", Arrays.asList("a", "b"));
+        d.addElement(new Resistor("r1", "a", "b", 1000));
+
+        assertTrue(d.isCoupled(0, 1));
+        assertFalse(d.isCoupled(0, 2));
+        assertFalse(d.isCoupled(1, 2));
+    }
+}
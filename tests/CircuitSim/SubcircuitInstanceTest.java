@@ -0,0 +1,55 @@
+package CircuitSim;
+
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SubcircuitInstanceTest {
+    private SubcircuitDefinition d;
+
+    @Before
+    public void setup() {
+        d = new SubcircuitDefinition("cell", Arrays.asList("a", "b"));
+        d.addElement(new IVS("v1", "e", "0", 2));
+        d.addElement(new Resistor("r1", "e", "a", 1000));
+        d.addElement(new Resistor("r2", "a", "b", 1000));
+    }
+
+    @Test
+    public void stamp_dense() {
+        SubcircuitInstance x = new SubcircuitInstance("x1", d, Arrays.asList("1", "2"));
+        x.setNodeIndices(new int[]{0, 1});
+        double[][] a = new double[2][2];
+        double[] b = new double[2];
+
+        assertTrue(x.stamp(a, b));
+        assertArrayEquals(new double[]{2E-3, -1E-3}, a[0], 1E-15);
+        assertArrayEquals(new double[]{-1E-3, 1E-3}, a[1], 1E-15);
+        assertArrayEquals(new double[]{2E-3, 0}, b, 1E-15);
+    }
+
+    @Test
+    public void stamp_groundedPort() {
+        SubcircuitInstance x = new SubcircuitInstance("x1", d, Arrays.asList("1", "0"));
+        x.setNodeIndices(new int[]{0, -1});
+        double[][] a = new double[2][2];
+        double[] b = new double[2];
+
+        assertTrue(x.stamp(a, b));
+        assertArrayEquals(new double[]{2E-3, 0}, a[0], 1E-15);
+        assertArrayEquals(new double[]{0, 0}, a[1], 1E-15);
+        assertArrayEquals(new double[]{2E-3, 0}, b, 1E-15);
+    }
+
+    @Test
+    public void stamp_outOfBound() {
+        SubcircuitInstance x = new SubcircuitInstance("x1", d, Arrays.asList("1", "2"));
+        x.setNodeIndices(new int[]{0, 5});
+        assertFalse(x.stamp(new double[2][2], new double[2]));
+    }
+}
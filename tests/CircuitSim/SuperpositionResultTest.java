@@ -0,0 +1,44 @@
+package CircuitSim;
+
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SuperpositionResultTest {
+
+    @Test
+    public void getContribution_valid() {
+        SuperpositionResult res = new SuperpositionResult(Arrays.asList("v1", "i1"), Arrays.asList("1", "2"),
+                new double[][]{{1, 2}, {3, 4}});
+
+        assertEquals(3, res.getContribution("i1", "1"), 0);
+        assertTrue(Double.isNaN(res.getContribution("v2", "1")));
+        assertArrayEquals(new double[]{4, 6}, res.getNodeVoltages(), 0);
+    }
+
+    @Test
+    public void superposition_sumsToNodeVoltages() {
+        CircuitSim c = new CircuitSim();
+        c.addElement(new IVS("v1", "1", "0", 10));
+        c.addElement(new Resistor("r1", "1", "2", 1000));
+        c.addElement(new Resistor("r2", "2", "0", 1000));
+        c.addElement(new ICS("i1", "0", "2", "1m"));
+        c.addElement(new ICS("i2", "2", "0", "2m"));
+
+        CircuitResult full = c.calculate();
+        SuperpositionResult res = c.superposition();
+
+        assertNotNull(res);
+        assertEquals(3, res.getSources().size());
+        assertEquals(5, res.getContribution("v1", "2"), 1E-9);
+        assertEquals(0.5, res.getContribution("i1", "2"), 1E-9);
+        assertEquals(-1, res.getContribution("i2", "2"), 1E-9);
+        int n2 = full.getNodes().indexOf("2");
+        assertEquals(full.getNodeVoltages()[n2], res.getNodeVoltages()[res.getNodes().indexOf("2")], 1E-9);
+    }
+}
@@ -0,0 +1,89 @@
+package CircuitSim;
+
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class TopologyCheckerTest {
+    private Circuit c;
+
+    @Before
+    public void setup() {
+        c = new Circuit();
+        c.addElement(new IVS("v1", "a", "0", 12));
+        c.addElement(new Resistor("r1", "a", "b", 1000));
+        c.addElement(new Resistor("r2", "b", "0", 1000));
+    }
+
+    @Test
+    public void check_valid() {
+        TopologyReport report = TopologyChecker.check(c);
+        assertTrue(report.isValid());
+        assertTrue(c.isValid());
+    }
+
+    @Test
+    public void check_floatingNodes() {
+        c.addElement(new Resistor("r3", "x", "y", 1000));
+        TopologyReport report = TopologyChecker.check(c);
+
+        assertFalse(report.isValid());
+        assertEquals(Arrays.asList("x", "y"), report.getFloatingNodes());
+        assertFalse(c.isValid());
+    }
+
+    @Test
+    public void check_voltageSourceLoop() {
+        c.addElement(new IVS("v2", "a", "b", 1));
+        c.addElement(new IVS("v3", "b", "0", 1));
+        TopologyReport report = TopologyChecker.check(c);
+
+        assertEquals(Collections.singletonList("v3"), report.getVoltageSourceLoops());
+        assertTrue(report.getFloatingNodes().isEmpty());
+        assertFalse(c.isValid());
+    }
+
+    @Test
+    public void check_parallelVoltageSources() {
+        c.addElement(new IVS("v2", "a", "0", 5));
+        assertEquals(Collections.singletonList("v2"), TopologyChecker.check(c).getVoltageSourceLoops());
+    }
+
+    @Test
+    public void check_currentSourceCutset() {
+        c.addElement(new ICS("i1", "b", "c", 0.001));
+        c.addElement(new Resistor("r3", "c", "d", 1000));
+        TopologyReport report = TopologyChecker.check(c);
+
+        assertEquals(Arrays.asList("c", "d"), report.getCutOffNodes());
+        assertEquals(Collections.singletonList("i1"), report.getCurrentSourceCutsets());
+        assertTrue(report.getFloatingNodes().isEmpty());
+        assertFalse(report.isValid());
+        assertTrue(report.toString().contains("i1"));
+    }
+
+    @Test
+    public void check_currentSourceWithReturnPath() {
+        c.addElement(new ICS("i1", "b", "0", 0.001));
+        assertTrue(TopologyChecker.check(c).isValid());
+    }
+
+    @Test
+    public void check_instanceConnectsPorts() {
+        SubcircuitDefinition d = new SubcircuitDefinition("series", Arrays.asList("p", "q"));
+        d.addElement(new Resistor("r1", "p", "q", 1000));
+        c.addInstance(new SubcircuitInstance("x1", d, Arrays.asList("b", "c")));
+        assertTrue(TopologyChecker.check(c).isValid());
+
+        c.addInstance(new SubcircuitInstance("x2", d, Arrays.asList("x", "y")));
+        assertEquals(Arrays.asList("x", "y"), TopologyChecker.check(c).getFloatingNodes());
+    }
+}
+
@@ -0,0 +1,61 @@
+package CircuitSim;
+
+import CircuitOjects.ICS;
+import CircuitOjects.IVS;
+import CircuitOjects.Resistor;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TopologyTest {
+    private Circuit c;
+
+    @Before
+    public void setup() {
+        c = new Circuit();
+        c.addElement(new IVS("v1", "a", "0", 12));
+        c.addElement(new Resistor("r1", "a", "b", 1000));
+        c.addElement(new Resistor("r2", "b", "0", 1000));
+    }
+
+    @Test
+    public void build_edges() {
+        Topology t = c.getTopology();
+
+        assertEquals(3, t.getVertexCount());
+        assertEquals(2, t.getGround());
+        assertEquals(2, t.getDegree(0));
+        assertEquals(2, t.getDegree(1));
+        assertEquals(2, t.getDegree(t.getGround()));
+        int[] offsets = t.getOffsets();
+        for (int p = offsets[1]; p < offsets[2]; p++) {
+            int element = t.getElements()[p];
+            assertTrue(element == 1 || element == 2);
+            assertEquals(element == 1 ? 0 : 2, t.getNeighbors()[p]);
+        }
+        assertTrue(t.isConnected());
+    }
+
+    @Test
+    public void components_floatingPart() {
+        c.addElement(new Resistor("r3", "x", "y", 1000));
+        c.addElement(new ICS("i1", "y", "x", 1));
+        Topology t = c.getTopology();
+        int[] label = t.components();
+
+        assertFalse(t.isConnected());
+        assertEquals(label[0], label[t.getGround()]);
+        assertEquals(label[2], label[3]);
+        assertNotEquals(label[2], label[0]);
+    }
+
+    @Test
+    public void getTopology_rebuiltAfterChange() {
+        Topology first = c.getTopology();
+        assertSame(first, c.getTopology());
+        assertTrue(c.removeElement(2));
+        assertNotSame(first, c.getTopology());
+        assertEquals(1, c.getTopology().getDegree(1));
+    }
+}
@@ -0,0 +1,104 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AlgebraicMultigridTest {
+
+    @Test
+    public void build_coarsens() {
+        SparseMatrix A = new SparseMatrix(3600, 3600);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 60, 0, 0, 1);
+        A.compress();
+        AlgebraicMultigrid amg = AlgebraicMultigrid.build(A);
+        assertNotNull(amg);
+        assertTrue(amg.getLevelCount() >= 3);
+        assertTrue(amg.getOperatorComplexity() < 2);
+    }
+
+    @Test
+    public void build_smallMatrixIsDirect() {
+        SparseMatrix A = new SparseMatrix(25, 25);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 5, 0, 0, 2);
+        A.compress();
+        AlgebraicMultigrid amg = AlgebraicMultigrid.build(A);
+        assertEquals(1, amg.getLevelCount());
+
+        double[] r = new double[25];
+        r[7] = 1;
+        double[] z = new double[25];
+        amg.apply(r, z);
+        assertArrayEquals(r, A.multiply(z), 1E-12);
+    }
+
+    @Test
+    public void apply_iterationsIndependentOfSize() {
+        int[] iterations = new int[2];
+        int[] sides = {40, 120};
+        for (int t = 0; t < sides.length; t++) {
+            SparseMatrix A = new SparseMatrix(sides[t] * sides[t], sides[t] * sides[t]);
+            A.add(0, 0, 1);
+            TestMatrices.grid(A, sides[t], 0, 0, 3);
+            A.compress();
+            double[] b = new double[A.getRowCount()];
+            b[b.length - 1] = 1;
+            ConjugateGradient cg = ConjugateGradient.factor(A, ConjugateGradient.MULTIGRID);
+            assertNotNull(cg);
+            double[] x = new double[A.getRowCount()];
+            iterations[t] = cg.solve(b, null, x);
+            assertArrayEquals(b, A.multiply(x), 1E-8);
+        }
+        assertTrue(iterations[1] < 2 * iterations[0]);
+    }
+
+    @Test
+    public void apply_concurrent() throws InterruptedException {
+        SparseMatrix A = new SparseMatrix(1600, 1600);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 40, 0, 0, 4);
+        A.compress();
+        final AlgebraicMultigrid amg = AlgebraicMultigrid.build(A);
+        final int n = A.getRowCount();
+        final double[][] expected = new double[8][n];
+        final double[][] actual = new double[8][n];
+        for (int t = 0; t < 8; t++) {
+            double[] r = new double[n];
+            r[t * 97 % n] = 1;
+            amg.apply(r, expected[t]);
+        }
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int k = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    double[] r = new double[n];
+                    r[k * 97 % n] = 1;
+                    for (int repeat = 0; repeat < 20; repeat++) {
+                        amg.apply(r, actual[k]);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < 8; t++) {
+            assertArrayEquals(expected[t], actual[t], 0);
+        }
+    }
+
+    @Test
+    public void build_notPositiveDiagonal() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 1);
+        A.add(1, 1, -1);
+        A.compress();
+        assertNull(AlgebraicMultigrid.build(A));
+    }
+}
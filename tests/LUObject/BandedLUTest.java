@@ -0,0 +1,104 @@
+package LUObject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BandedLUTest {
+
+    /**
+     * Builds the MNA matrix of an RC-like ladder whose nodes are numbered in a shuffled order, with a voltage source
+     * between the first two nodes of the ladder.
+     */
+    private SparseMatrix shuffledLadder(int nodes, long seed) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            ids.add(i);
+        }
+        Collections.shuffle(ids, new Random(seed));
+        SparseMatrix A = new SparseMatrix(nodes + 1, nodes + 1);
+        for (int i = 0; i < nodes; i++) {
+            int v = ids.get(i);
+            A.add(v, v, 0.01);
+            if (i + 1 < nodes) {
+                int w = ids.get(i + 1);
+                A.add(v, v, 1);
+                A.add(w, w, 1);
+                A.add(v, w, -1);
+                A.add(w, v, -1);
+            }
+        }
+        A.add(ids.get(0), nodes, 1);
+        A.add(ids.get(1), nodes, -1);
+        A.add(nodes, ids.get(0), 1);
+        A.add(nodes, ids.get(1), -1);
+        A.compress();
+        return A;
+    }
+
+    @Test
+    public void factor_narrowBand() {
+        SparseMatrix A = shuffledLadder(300, 1);
+        BandedLU lu = BandedLU.factor(A);
+        assertNotNull(lu);
+        assertTrue(lu.getLowerBandwidth() <= 2);
+        assertTrue(lu.getUpperBandwidth() <= 2);
+
+        double[] b = new double[301];
+        b[300] = 5;
+        b[17] = 1E-3;
+        assertArrayEquals(SparseLU.factor(A).solve(b), lu.solve(b), 1E-9);
+    }
+
+    @Test
+    public void factor_pivotsZeroDiagonal() {
+        // the natural ordering puts the zero diagonal first
+        SparseMatrix A = new SparseMatrix(3, 3);
+        A.add(0, 1, 1);
+        A.add(1, 0, 1);
+        A.add(1, 1, 2);
+        A.add(1, 2, -1);
+        A.add(2, 1, -1);
+        A.add(2, 2, 3);
+        A.compress();
+        BandedLU lu = BandedLU.factor(A, ColumnOrdering.natural(3), Long.MAX_VALUE);
+        assertNotNull(lu);
+        double[] x = {1, -2, 0.5};
+        assertArrayEquals(x, lu.solve(A.multiply(x)), 1E-12);
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = shuffledLadder(20, 2);
+        double[][] B = new double[21][2];
+        B[20][0] = 1;
+        B[4][1] = 2;
+        double[][] X = BandedLU.factor(A).solve(B);
+        double[][] expected = SparseLU.factor(A).solve(B);
+        for (int i = 0; i < 21; i++) {
+            assertArrayEquals(expected[i], X[i], 1E-10);
+        }
+    }
+
+    @Test
+    public void factor_bandTooLarge() {
+        SparseMatrix A = shuffledLadder(50, 3);
+        assertNull(BandedLU.factor(A, ColumnOrdering.natural(51), 51));
+    }
+
+    @Test
+    public void factor_singular() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 1);
+        A.add(0, 1, 1);
+        A.add(1, 0, 1);
+        A.add(1, 1, 1);
+        A.compress();
+        assertNull(BandedLU.factor(A));
+    }
+}
@@ -0,0 +1,93 @@
+package LUObject;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BlockTriangularLUTest {
+
+    /**
+     * Builds the MNA matrix of a grounded voltage source on node 0 driving the given number of separate resistor
+     * chains, each hanging off node 0. The branch row is the last one.
+     */
+    private SparseMatrix drivenLoads(int loads, int length) {
+        int nodes = 1 + loads * length;
+        SparseMatrix A = new SparseMatrix(nodes + 1, nodes + 1);
+        for (int l = 0; l < loads; l++) {
+            int previous = 0;
+            for (int k = 0; k < length; k++) {
+                int v = 1 + l * length + k;
+                double g = 1 + l + 0.1 * k;
+                A.add(previous, previous, g);
+                A.add(v, v, g + 0.01);
+                A.add(previous, v, -g);
+                A.add(v, previous, -g);
+                previous = v;
+            }
+        }
+        A.add(0, nodes, 1);
+        A.add(nodes, 0, 1);
+        A.compress();
+        return A;
+    }
+
+    @Test
+    public void factor_separatesLoads() {
+        SparseMatrix A = drivenLoads(4, 10);
+        BlockTriangularLU lu = BlockTriangularLU.factor(A, ForkJoinPool.commonPool());
+        assertNotNull(lu);
+        // the node, the branch and one block per load
+        assertEquals(6, lu.getBlockCount());
+        assertEquals(10, lu.getLargestBlock());
+
+        double[] b = new double[A.getRowCount()];
+        b[b.length - 1] = 5;
+        b[13] = 0.25;
+        assertArrayEquals(SparseLU.factor(A).solve(b), lu.solve(b), 1E-12);
+    }
+
+    @Test
+    public void factor_upperTriangular() {
+        // every row only depends on the later ones, so every block is 1 by 1
+        SparseMatrix A = new SparseMatrix(3, 3);
+        A.add(2, 0, 2);
+        A.add(2, 1, 1);
+        A.add(0, 1, 4);
+        A.add(1, 2, -1);
+        A.add(1, 0, 3);
+        A.compress();
+        BlockTriangularLU lu = BlockTriangularLU.factor(A, ForkJoinPool.commonPool());
+        assertNotNull(lu);
+        assertEquals(3, lu.getBlockCount());
+        double[] x = {1, 2, 3};
+        assertArrayEquals(x, lu.solve(A.multiply(x)), 1E-12);
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = drivenLoads(3, 4);
+        int n = A.getRowCount();
+        double[][] B = new double[n][2];
+        B[n - 1][0] = 1;
+        B[6][1] = 1;
+        double[][] X = BlockTriangularLU.factor(A, ForkJoinPool.commonPool()).solve(B);
+        double[][] expected = SparseLU.factor(A).solve(B);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(expected[i], X[i], 1E-12);
+        }
+    }
+
+    @Test
+    public void factor_structurallySingular() {
+        SparseMatrix A = new SparseMatrix(3, 3);
+        A.add(0, 0, 1);
+        A.add(1, 0, 1);
+        A.add(2, 0, 1);
+        A.add(2, 1, 1);
+        A.add(2, 2, 1);
+        A.compress();
+        assertNull(BlockTriangularLU.factor(A, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,115 @@
+package LUObject;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BorderedBlockLUTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Test
+    public void partition_separatesDomains() {
+        SparseMatrix A = new SparseMatrix(145, 145);
+        TestMatrices.grid(A, 12, 0.01, 0, 1);
+        TestMatrices.voltageSource(A, 0, -1, 144);
+        A.compress();
+        int[] label = BorderedBlockLU.partition(A, 4);
+        int[] colPtr = A.getColumnPointers();
+        int[] rowIdx = A.getRowIndices();
+        int interfaceCount = 0;
+        for (int j = 0; j < A.getColumnCount(); j++) {
+            interfaceCount += label[j] == BorderedBlockLU.INTERFACE ? 1 : 0;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (label[i] != BorderedBlockLU.INTERFACE && label[j] != BorderedBlockLU.INTERFACE) {
+                    assertEquals(label[i], label[j]);
+                }
+            }
+        }
+        assertTrue(interfaceCount > 0);
+        assertTrue(interfaceCount < A.getColumnCount() / 3);
+        // the branch row of the source has a zero diagonal and goes with its node
+        int branch = A.getColumnCount() - 1;
+        assertEquals(label[0] == BorderedBlockLU.INTERFACE, label[branch] == BorderedBlockLU.INTERFACE);
+    }
+
+    @Test
+    public void solve_matchesSparseLU() {
+        SparseMatrix A = new SparseMatrix(401, 401);
+        TestMatrices.grid(A, 20, 0.01, 0, 2);
+        TestMatrices.voltageSource(A, 0, -1, 400);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 3);
+        double[] expected = SparseLU.factor(A).solve(b);
+
+        for (int count : new int[]{1, 2, 7, 16}) {
+            BorderedBlockLU lu = BorderedBlockLU.factor(A, count, POOL);
+            assertNotNull(lu);
+            assertEquals(count, lu.getDomainCount());
+            assertArrayEquals(expected, lu.solve(b), 1E-9);
+        }
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = new SparseMatrix(101, 101);
+        TestMatrices.grid(A, 10, 0.01, 0, 4);
+        TestMatrices.voltageSource(A, 0, -1, 100);
+        A.compress();
+        BorderedBlockLU lu = BorderedBlockLU.factor(A, 3, POOL);
+        SparseLU reference = SparseLU.factor(A);
+        int n = A.getRowCount();
+        double[][] B = new double[n][3];
+        for (int i = 0; i < n; i++) {
+            B[i][i % 3] = i + 1;
+        }
+
+        double[][] X = lu.solve(B);
+        double[][] expected = reference.solve(B);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(expected[i], X[i], 1E-9);
+        }
+        assertNull(lu.solve(new double[n + 1]));
+    }
+
+    @Test
+    public void factor_moreDomainsThanRows() {
+        SparseMatrix A = new SparseMatrix(5, 5);
+        TestMatrices.grid(A, 2, 0.01, 0, 5);
+        TestMatrices.voltageSource(A, 0, -1, 4);
+        A.compress();
+        BorderedBlockLU lu = BorderedBlockLU.factor(A, 10, POOL);
+        assertNotNull(lu);
+        double[] b = TestMatrices.vector(A.getRowCount(), 6);
+        assertArrayEquals(SparseLU.factor(A).solve(b), lu.solve(b), 1E-12);
+    }
+
+    @Test
+    public void factor_singular() {
+        SparseMatrix A = new SparseMatrix(4, 4);
+        A.add(0, 0, 1);
+        A.add(1, 1, 1);
+        A.add(2, 3, 1);
+        A.add(3, 2, 1);
+        A.add(3, 3, 0);
+        A.compress();
+        assertNotNull(BorderedBlockLU.factor(A, 2, POOL));
+
+        SparseMatrix B = new SparseMatrix(3, 3);
+        B.add(0, 0, 1);
+        B.add(1, 2, 1);
+        B.add(2, 1, 1);
+        B.add(2, 2, 0);
+        B.add(1, 1, 0);
+        B.compress();
+        assertNotNull(BorderedBlockLU.factor(B, 3, POOL));
+
+        SparseMatrix C = new SparseMatrix(2, 2);
+        C.add(0, 0, 1);
+        C.add(1, 1, 0);
+        C.compress();
+        assertNull(BorderedBlockLU.factor(C, 2, POOL));
+    }
+}
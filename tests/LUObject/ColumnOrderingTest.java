@@ -0,0 +1,93 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ColumnOrderingTest {
+
+    @Test
+    public void amd_isPermutation() {
+        SparseMatrix A = new SparseMatrix(6, 6);
+        for (int i = 0; i < 6; i++) {
+            A.add(i, i, 1);
+            A.add(0, i, 1);
+            A.add(i, 0, 1);
+        }
+        A.compress();
+        int[] order = ColumnOrdering.amd(A);
+
+        boolean[] seen = new boolean[6];
+        for (int k : order) {
+            assertFalse(seen[k]);
+            seen[k] = true;
+        }
+    }
+
+    @Test
+    public void amd_hubEliminatedLast() {
+        // arrow matrix: eliminating the dense row first fills everything
+        SparseMatrix A = new SparseMatrix(6, 6);
+        for (int i = 0; i < 6; i++) {
+            A.add(i, i, 1);
+            A.add(0, i, 1);
+            A.add(i, 0, 1);
+        }
+        A.compress();
+        int[] order = ColumnOrdering.amd(A);
+        assertTrue(order[4] == 0 || order[5] == 0);
+    }
+
+    @Test
+    public void amd_nonSquare() {
+        assertNull(ColumnOrdering.amd(new SparseMatrix(2, 3)));
+    }
+
+    @Test
+    public void constrained_branchAfterNode() {
+        // resistor chain 0-1-2-3 with voltage source branches 4 on node 3 and 5 on node 0
+        SparseMatrix A = new SparseMatrix(6, 6);
+        for (int i = 0; i < 4; i++) {
+            A.add(i, i, 2);
+            if (i + 1 < 4) {
+                A.add(i, i + 1, -1);
+                A.add(i + 1, i, -1);
+            }
+        }
+        A.add(3, 4, 1);
+        A.add(4, 3, 1);
+        A.add(0, 5, 1);
+        A.add(5, 0, 1);
+        A.compress();
+        int[] position = ColumnOrdering.inverse(ColumnOrdering.constrained(A));
+        assertTrue(position[4] > position[3]);
+        assertTrue(position[5] > position[0]);
+    }
+
+    @Test
+    public void rcm_chainBandwidth() {
+        // a chain numbered 0, 5, 1, 6, 2, 7, ... plus a separate pair
+        int[] chain = {0, 5, 1, 6, 2, 7, 3, 8, 4, 9};
+        SparseMatrix A = new SparseMatrix(12, 12);
+        for (int i = 0; i < 12; i++) {
+            A.add(i, i, 2);
+        }
+        for (int i = 0; i + 1 < chain.length; i++) {
+            A.add(chain[i], chain[i + 1], -1);
+            A.add(chain[i + 1], chain[i], -1);
+        }
+        A.add(10, 11, -1);
+        A.add(11, 10, -1);
+        A.compress();
+        int[] position = ColumnOrdering.inverse(ColumnOrdering.rcm(A));
+        for (int i = 0; i + 1 < chain.length; i++) {
+            assertEquals(1, Math.abs(position[chain[i]] - position[chain[i + 1]]));
+        }
+        assertEquals(1, Math.abs(position[10] - position[11]));
+    }
+
+    @Test
+    public void inverse_valid() {
+        assertArrayEquals(new int[]{2, 0, 1}, ColumnOrdering.inverse(new int[]{1, 2, 0}));
+    }
+}
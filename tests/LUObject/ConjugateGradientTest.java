@@ -0,0 +1,119 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConjugateGradientTest {
+
+    @Test
+    public void solve_jacobi() {
+        SparseMatrix A = new SparseMatrix(225, 225);
+        TestMatrices.grid(A, 15, 0.001, 0, 1);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 2);
+        ConjugateGradient cg = ConjugateGradient.factor(A, ConjugateGradient.JACOBI);
+        assertNotNull(cg);
+        assertEquals(0, cg.getEliminatedCount());
+        assertArrayEquals(SparseLU.factor(A).solve(b), cg.solve(b), 1E-6);
+    }
+
+    @Test
+    public void solve_incompleteCholeskyNeedsFewerIterations() {
+        SparseMatrix A = new SparseMatrix(900, 900);
+        TestMatrices.grid(A, 30, 0.001, 0, 3);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 4);
+        ConjugateGradient jacobi = ConjugateGradient.factor(A, ConjugateGradient.JACOBI);
+        ConjugateGradient ic = ConjugateGradient.factor(A, ConjugateGradient.INCOMPLETE_CHOLESKY);
+        double[] x = new double[A.getRowCount()];
+        int icIterations = ic.solve(b, null, x);
+        int jacobiIterations = jacobi.solve(b, null, new double[A.getRowCount()]);
+
+        assertArrayEquals(SparseLU.factor(A).solve(b), x, 1E-6);
+        assertTrue(icIterations > 0 && icIterations < jacobiIterations);
+    }
+
+    @Test
+    public void solve_groundedVoltageSource() {
+        SparseMatrix A = new SparseMatrix(145, 145);
+        TestMatrices.grid(A, 12, 0.001, 0, 5);
+        TestMatrices.voltageSource(A, 0, -1, 144);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 6);
+        ConjugateGradient cg = ConjugateGradient.factor(A, ConjugateGradient.INCOMPLETE_CHOLESKY, 1E-12, 0);
+        assertNotNull(cg);
+        assertEquals(1, cg.getEliminatedCount());
+
+        double[] expected = SparseLU.factor(A).solve(b);
+        double[] x = cg.solve(b);
+        assertArrayEquals(expected, x, 1E-8);
+        assertEquals(b[A.getRowCount() - 1], x[0], 1E-15);
+    }
+
+    @Test
+    public void solve_warmStart() {
+        SparseMatrix A = new SparseMatrix(626, 626);
+        TestMatrices.grid(A, 25, 0.001, 0, 7);
+        TestMatrices.voltageSource(A, 0, -1, 625);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 8);
+        ConjugateGradient cg = ConjugateGradient.factor(A, ConjugateGradient.JACOBI);
+        double[] x = new double[A.getRowCount()];
+        int cold = cg.solve(b, null, x);
+
+        b[5] += 1E-6;
+        double[] warm = new double[A.getRowCount()];
+        int iterations = cg.solve(b, x, warm);
+        assertTrue(iterations != -1 && iterations < cold);
+        assertArrayEquals(SparseLU.factor(A).solve(b), warm, 1E-6);
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = new SparseMatrix(37, 37);
+        TestMatrices.grid(A, 6, 0.001, 0, 9);
+        TestMatrices.voltageSource(A, 0, -1, 36);
+        A.compress();
+        int n = A.getRowCount();
+        double[][] B = new double[n][2];
+        B[3][0] = 1;
+        B[n - 1][1] = 2;
+        double[][] X = ConjugateGradient.factor(A, ConjugateGradient.JACOBI).solve(B);
+        double[][] expected = SparseLU.factor(A).solve(B);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(expected[i], X[i], 1E-8);
+        }
+    }
+
+    @Test
+    public void solve_notConverged() {
+        SparseMatrix A = new SparseMatrix(100, 100);
+        TestMatrices.grid(A, 10, 0.001, 0, 10);
+        A.compress();
+        ConjugateGradient cg = ConjugateGradient.factor(A, ConjugateGradient.JACOBI, 1E-12, 2);
+        assertNull(cg.solve(TestMatrices.vector(A.getRowCount(), 11)));
+        assertArrayEquals(new double[A.getRowCount()], cg.solve(new double[A.getRowCount()]), 0);
+    }
+
+    @Test
+    public void factor_notQualified() {
+        // a voltage source between two nodes leaves a zero diagonal
+        SparseMatrix A = new SparseMatrix(3, 3);
+        A.add(0, 0, 1);
+        A.add(1, 1, 1);
+        A.add(0, 2, 1);
+        A.add(1, 2, -1);
+        A.add(2, 0, 1);
+        A.add(2, 1, -1);
+        A.compress();
+        assertNull(ConjugateGradient.factor(A, ConjugateGradient.JACOBI));
+
+        SparseMatrix B = new SparseMatrix(2, 2);
+        B.add(0, 0, 2);
+        B.add(0, 1, 1);
+        B.add(1, 1, 2);
+        B.compress();
+        assertNull(ConjugateGradient.factor(B, ConjugateGradient.INCOMPLETE_CHOLESKY));
+    }
+}
@@ -0,0 +1,57 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IncompleteCholeskyTest {
+
+    @Test
+    public void apply_exactForTridiagonal() {
+        // no fill outside of a tridiagonal pattern, so IC(0) is the complete Cholesky factorization
+        int n = 6;
+        SparseMatrix A = new SparseMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+            A.add(i, i, 2 + i);
+            if (i + 1 < n) {
+                A.add(i, i + 1, -1);
+                A.add(i + 1, i, -1);
+            }
+        }
+        A.compress();
+        IncompleteCholesky ic = IncompleteCholesky.factor(A);
+        assertNotNull(ic);
+        assertEquals(2 * n - 1, ic.getNonZeroCount());
+
+        double[] r = {1, -2, 3, 0, 5, -1};
+        double[] z = new double[n];
+        ic.apply(r, z);
+        assertArrayEquals(r, A.multiply(z), 1E-12);
+    }
+
+    @Test
+    public void factor_shiftsIndefiniteDiagonal() {
+        // positive definite, but IC(0) drops the fill that keeps the last pivot positive
+        SparseMatrix A = new SparseMatrix(3, 3);
+        double[][] dense = {{1, 0.9, 0.9}, {0.9, 1, 0}, {0.9, 0, 1}};
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                if (dense[i][j] != 0) {
+                    A.add(i, j, dense[i][j]);
+                }
+            }
+        }
+        A.compress();
+        assertNotNull(IncompleteCholesky.factor(A));
+    }
+
+    @Test
+    public void factor_missingDiagonal() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 1);
+        A.add(1, 0, 1);
+        A.add(0, 1, 1);
+        A.compress();
+        assertNull(IncompleteCholesky.factor(A));
+    }
+}
@@ -40,4 +40,22 @@ public class LUOperationTest {
 
         assertNull(LUOperation.solveLU(A, B));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void solveLU_block() {
+        double[][] A = {{2, 0}, {0, 4}};
+        double[][] B = {{2, 4}, {4, 8}};
+        double[][] X = LUOperation.solveLU(A, B);
+
+        assertArrayEquals(new double[]{1, 2}, X[0], 0);
+        assertArrayEquals(new double[]{1, 2}, X[1], 0);
+    }
+
+    @Test
+    public void solveLU_blockDifferentSizes() {
+        double[][] A = new double[2][2];
+        double[][] B = new double[3][2];
+
+        assertNull(LUOperation.solveLU(A, B));
+    }
+}
@@ -0,0 +1,73 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LowRankUpdateTest {
+
+    private SparseMatrix matrix(double g01) {
+        SparseMatrix A = new SparseMatrix(3, 3);
+        A.add(0, 0, 1 + g01);
+        A.add(0, 1, -g01);
+        A.add(1, 0, -g01);
+        A.add(1, 1, g01 + 2);
+        A.add(1, 2, -1);
+        A.add(2, 1, -1);
+        A.add(2, 2, 3);
+        A.compress();
+        return A;
+    }
+
+    @Test
+    public void solve_matchesRefactor() {
+        LowRankUpdate update = new LowRankUpdate(SparseLU.factor(matrix(1)));
+        int slot = update.addUpdate(new int[]{0, 1}, new double[]{1, -1}, 4);
+        double[] b = {1, 2, 3};
+
+        assertEquals(0, slot);
+        assertArrayEquals(SparseLU.factor(matrix(5)).solve(b), update.solve(b), 1E-12);
+    }
+
+    @Test
+    public void adjust_sameSlot() {
+        LowRankUpdate update = new LowRankUpdate(SparseLU.factor(matrix(1)));
+        int slot = update.addUpdate(new int[]{0, 1}, new double[]{1, -1}, 4);
+        assertTrue(update.adjust(slot, -2));
+        double[] b = {1, 0, 0};
+
+        assertEquals(1, update.getRank());
+        assertArrayEquals(SparseLU.factor(matrix(3)).solve(b), update.solve(b), 1E-12);
+        assertFalse(update.adjust(1, 1));
+    }
+
+    @Test
+    public void addUpdate_invalid() {
+        LowRankUpdate update = new LowRankUpdate(SparseLU.factor(matrix(1)));
+        assertEquals(-1, update.addUpdate(new int[]{3}, new double[]{1}, 1));
+        assertEquals(-1, update.addUpdate(new int[]{0}, new double[]{1}, Double.NaN));
+        assertEquals(0, update.getRank());
+    }
+
+    @Test
+    public void addUpdate_solveFails() {
+        LowRankUpdate update = new LowRankUpdate(new LinearSolver() {
+            @Override
+            public double[] solve(double[] b) {
+                return null;
+            }
+
+            @Override
+            public double[][] solve(double[][] B) {
+                return null;
+            }
+
+            @Override
+            public int getSize() {
+                return 3;
+            }
+        });
+        assertEquals(-1, update.addUpdate(new int[]{0, 1}, new double[]{1, -1}, 4));
+        assertEquals(0, update.getRank());
+    }
+}
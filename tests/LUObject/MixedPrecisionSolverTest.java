@@ -0,0 +1,87 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MixedPrecisionSolverTest {
+
+    @Test
+    public void solve_refinesToDoubleAccuracy() {
+        SparseMatrix A = new SparseMatrix(226, 226);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 15, 0, 2, 1);
+        TestMatrices.voltageSource(A, 224, -1, 225);
+        A.compress();
+        int n = A.getRowCount();
+        double[] b = new double[n];
+        b[n - 1] = 3;
+        b[40] = 1E-3;
+        SymbolicLU symbolic = SymbolicLU.analyze(A, ColumnOrdering.constrained(A));
+        MixedPrecisionSolver solver = MixedPrecisionSolver.factor(symbolic, A, 1E-14);
+        assertNotNull(solver);
+        MixedPrecisionSolver.Refinement refinement = solver.refine(b);
+
+        assertTrue(refinement.getResidual() <= 1E-14);
+        assertTrue(refinement.getSteps() >= 1);
+        assertFalse(solver.isFallback());
+        assertArrayEquals(SparseLU.factor(A).solve(b), refinement.getSolution(), 1E-11);
+        assertArrayEquals(refinement.getSolution(), solver.solve(b), 0);
+        // a double LDL' takes 8 bytes per value and 4 per index
+        assertTrue(solver.getFactorBytes() < 12L * SparseLDL.factor(A).getNonZeroCount());
+    }
+
+    @Test
+    public void solve_fallsBackWhenStalled() {
+        // no amount of refinement reaches a backward error below the double rounding error
+        SparseMatrix A = new SparseMatrix(101, 101);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 10, 0, 3, 2);
+        TestMatrices.voltageSource(A, 99, -1, 100);
+        A.compress();
+        int n = A.getRowCount();
+        double[] b = new double[n];
+        b[n - 1] = 1;
+        SymbolicLU symbolic = SymbolicLU.analyze(A, ColumnOrdering.constrained(A));
+        MixedPrecisionSolver solver = MixedPrecisionSolver.factor(symbolic, A, 1E-20);
+        assertTrue(solver.isFallback());
+
+        // every solve uses the double factors
+        MixedPrecisionSolver.Refinement refinement = solver.refine(b);
+        assertArrayEquals(SparseLU.factor(A).solve(b), refinement.getSolution(), 1E-10);
+        assertTrue(refinement.getResidual() < 1E-14);
+        assertEquals(0, refinement.getSteps());
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = new SparseMatrix(26, 26);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 5, 0, 1, 3);
+        TestMatrices.voltageSource(A, 24, -1, 25);
+        A.compress();
+        int n = A.getRowCount();
+        double[][] B = new double[n][2];
+        B[n - 1][0] = 1;
+        B[7][1] = 2;
+        SymbolicLU symbolic = SymbolicLU.analyze(A, ColumnOrdering.constrained(A));
+        MixedPrecisionSolver solver = MixedPrecisionSolver.factor(symbolic, A, MixedPrecisionSolver.DEFAULT_ACCURACY);
+        double[][] X = solver.solve(B);
+        double[][] expected = SparseLU.factor(A).solve(B);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(expected[i], X[i], 1E-10);
+        }
+        assertFalse(solver.isFallback());
+    }
+
+    @Test
+    public void factor_notSymmetric() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 2);
+        A.add(0, 1, 1);
+        A.add(1, 0, 3);
+        A.add(1, 1, 2);
+        A.compress();
+        assertNull(MixedPrecisionSolver.factor(SymbolicLU.analyze(A), A, 1E-12));
+    }
+}
@@ -0,0 +1,94 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SparseLDLTest {
+
+    @Test
+    public void factor_positiveDefinite() {
+        SparseMatrix A = new SparseMatrix(144, 144);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 12, 0, 0, 1);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 2);
+        SparseLDL ldl = SparseLDL.factor(A);
+        assertNotNull(ldl);
+        assertArrayEquals(new int[]{144, 0}, ldl.getInertia());
+        assertArrayEquals(SparseLU.factor(A).solve(b), ldl.solve(b), 1E-10);
+        assertTrue(ldl.getNonZeroCount() < SparseLU.factor(A).getNonZeroCount());
+    }
+
+    @Test
+    public void factor_voltageSources() {
+        SparseMatrix A = new SparseMatrix(102, 102);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 10, 0, 0, 3);
+        TestMatrices.voltageSource(A, 99, -1, 100);
+        TestMatrices.voltageSource(A, 11, 22, 101);
+        A.compress();
+        double[] b = TestMatrices.vector(A.getRowCount(), 4);
+        SparseLDL ldl = SparseLDL.factor(A);
+        assertNotNull(ldl);
+        assertArrayEquals(new int[]{100, 2}, ldl.getInertia());
+        assertArrayEquals(SparseLU.factor(A).solve(b), ldl.solve(b), 1E-10);
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = new SparseMatrix(38, 38);
+        A.add(0, 0, 1);
+        TestMatrices.grid(A, 6, 0, 0, 5);
+        TestMatrices.voltageSource(A, 35, -1, 36);
+        TestMatrices.voltageSource(A, 7, 14, 37);
+        A.compress();
+        int n = A.getRowCount();
+        double[][] B = new double[n][3];
+        for (int i = 0; i < n; i++) {
+            B[i][i % 3] = i + 1;
+        }
+        double[][] X = SparseLDL.factor(A).solve(B);
+        double[][] expected = SparseLU.factor(A).solve(B);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(expected[i], X[i], 1E-10);
+        }
+    }
+
+    @Test
+    public void factor_notSymmetric() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 2);
+        A.add(0, 1, 1);
+        A.add(1, 0, 3);
+        A.add(1, 1, 2);
+        A.compress();
+        assertNull(SparseLDL.factor(A));
+    }
+
+    @Test
+    public void factor_zeroPivot() {
+        // nonsingular, but no symmetric ordering gives it a nonzero first pivot
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 1, 1);
+        A.add(1, 0, 1);
+        A.compress();
+        assertNull(SparseLDL.factor(A));
+        assertNotNull(SparseLU.factor(A));
+    }
+
+    @Test
+    public void factor_smallPivot() {
+        // the second pivot 1E-10 cancels down from entries of 1, too few digits are left in it
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 1);
+        A.add(0, 1, 1);
+        A.add(1, 0, 1);
+        A.add(1, 1, 1 + 1E-10);
+        A.compress();
+        assertNull(SparseLDL.factor(SymbolicLU.analyze(A, new int[]{0, 1}), A));
+
+        double[] b = {2, 2 + 1E-10};
+        assertArrayEquals(b, A.multiply(SparseLU.factor(A).solve(b)), 1E-12);
+    }
+}
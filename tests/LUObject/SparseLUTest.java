@@ -0,0 +1,115 @@
+package LUObject;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SparseLUTest {
+
+    /**
+     * Builds the MNA matrix of a resistor ladder with a voltage source on node 0.
+     */
+    private SparseMatrix ladder(int nodes) {
+        SparseMatrix A = new SparseMatrix(nodes + 1, nodes + 1);
+        for (int i = 0; i < nodes; i++) {
+            A.add(i, i, 1);
+            if (i + 1 < nodes) {
+                A.add(i, i, 1);
+                A.add(i + 1, i + 1, 1);
+                A.add(i, i + 1, -1);
+                A.add(i + 1, i, -1);
+            }
+        }
+        A.add(0, nodes, 1);
+        A.add(nodes, 0, 1);
+        A.compress();
+        return A;
+    }
+
+    @Test
+    public void factor_nonSquare() {
+        SparseMatrix A = new SparseMatrix(2, 3);
+        A.add(0, 0, 1);
+        A.compress();
+        assertNull(SparseLU.factor(A));
+    }
+
+    @Test
+    public void factor_singular() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 1);
+        A.add(0, 1, 1);
+        A.add(1, 0, 1);
+        A.add(1, 1, 1);
+        A.compress();
+        assertNull(SparseLU.factor(A));
+    }
+
+    @Test
+    public void solve_zeroDiagonalNeedsPivot() {
+        SparseMatrix A = ladder(5);
+        double[] b = new double[6];
+        b[5] = 10;
+        SparseLU lu = SparseLU.factor(A);
+        assertNotNull(lu);
+
+        double[] x = lu.solve(b);
+        double[] r = A.multiply(x);
+        for (int i = 0; i < b.length; i++) {
+            assertEquals(b[i], r[i], 1E-9);
+        }
+        assertEquals(10, x[0], 1E-9);
+    }
+
+    @Test
+    public void solve_matchesDenseSolver() {
+        Random random = new Random(7);
+        int n = 40;
+        SparseMatrix A = new SparseMatrix(n, n);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            A.add(i, i, 4 + random.nextDouble());
+            for (int k = 0; k < 3; k++) {
+                A.add(i, random.nextInt(n), random.nextDouble() - 0.5);
+            }
+            b[i] = random.nextDouble();
+        }
+        A.compress();
+
+        double[] sparse = SparseLU.factor(A).solve(b);
+        double[] dense = LUOperation.solveLU(A.toDense(), b);
+        assertArrayEquals(dense, sparse, 1E-10);
+    }
+
+    @Test
+    public void solve_wrongSize() {
+        SparseLU lu = SparseLU.factor(ladder(3));
+        assertNull(lu.solve(new double[2]));
+    }
+
+    @Test
+    public void solve_block() {
+        SparseMatrix A = ladder(4);
+        double[][] B = new double[5][3];
+        B[4][0] = 1;
+        B[1][1] = 2;
+        B[2][2] = -1;
+        B[4][2] = 3;
+        SparseLU lu = SparseLU.factor(A);
+        double[][] X = lu.solve(B);
+
+        for (int r = 0; r < 3; r++) {
+            double[] b = new double[5];
+            for (int i = 0; i < 5; i++) {
+                b[i] = B[i][r];
+            }
+            double[] x = lu.solve(b);
+            for (int i = 0; i < 5; i++) {
+                assertEquals(x[i], X[i][r], 1E-12);
+            }
+        }
+        assertNull(lu.solve(new double[4][3]));
+    }
+}
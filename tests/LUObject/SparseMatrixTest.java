@@ -0,0 +1,92 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SparseMatrixTest {
+
+    @Test
+    public void add_outOfBound() {
+        SparseMatrix A = new SparseMatrix(3, 3);
+        assertFalse(A.add(3, 0, 1));
+        assertFalse(A.add(0, -1, 1));
+        assertEquals(0, A.getNonZeroCount());
+    }
+
+    @Test
+    public void compress_sumsDuplicates() {
+        SparseMatrix A = new SparseMatrix(3, 3);
+        A.add(2, 1, 4);
+        A.add(0, 1, 1);
+        A.add(2, 1, -1);
+        A.add(1, 0, 2);
+        A.compress();
+
+        assertEquals(3, A.getNonZeroCount());
+        assertArrayEquals(new int[]{0, 1, 3, 3}, A.getColumnPointers());
+        assertArrayEquals(new int[]{1, 0, 2}, A.getRowIndices());
+        assertEquals(3, A.get(2, 1), 0);
+        assertEquals(0, A.get(2, 2), 0);
+    }
+
+    @Test
+    public void add_afterCompress() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 1);
+        A.compress();
+
+        assertTrue(A.add(0, 0, 2));
+        assertFalse(A.add(1, 1, 2));
+        assertEquals(3, A.get(0, 0), 0);
+    }
+
+    @Test
+    public void multiply_valid() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 0, 2);
+        A.add(0, 1, 1);
+        A.add(1, 1, 3);
+
+        assertArrayEquals(new double[]{4, 6}, A.multiply(new double[]{1, 2}), 0);
+        assertNull(A.multiply(new double[3]));
+    }
+
+    @Test
+    public void transpose_valid() {
+        SparseMatrix A = new SparseMatrix(2, 3);
+        A.add(0, 2, 5);
+        A.add(1, 0, 7);
+        SparseMatrix T = A.transpose();
+
+        assertEquals(3, T.getRowCount());
+        assertEquals(2, T.getColumnCount());
+        assertEquals(5, T.get(2, 0), 0);
+        assertEquals(7, T.get(0, 1), 0);
+    }
+
+    @Test
+    public void toDense_valid() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(1, 0, -1);
+        A.add(0, 0, 1);
+        double[][] dense = A.toDense();
+
+        assertArrayEquals(new double[]{1, 0}, dense[0], 0);
+        assertArrayEquals(new double[]{-1, 0}, dense[1], 0);
+    }
+
+    @Test
+    public void isSymmetric_valid() {
+        SparseMatrix A = new SparseMatrix(2, 2);
+        A.add(0, 1, 3);
+        A.add(1, 0, 3);
+        A.add(1, 1, 1);
+        assertTrue(A.isSymmetric(0));
+
+        A.add(1, 0, 1E-6);
+        assertFalse(A.isSymmetric(1E-12));
+        assertTrue(A.isSymmetric(1E-3));
+        assertFalse(new SparseMatrix(2, 3).isSymmetric(0));
+    }
+}
@@ -0,0 +1,68 @@
+package LUObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SymbolicLUTest {
+
+    private SparseMatrix chain(int n, double g) {
+        SparseMatrix A = new SparseMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+            A.add(i, i, g);
+            if (i + 1 < n) {
+                A.add(i, i, g);
+                A.add(i + 1, i + 1, g);
+                A.add(i, i + 1, -g);
+                A.add(i + 1, i, -g);
+            }
+        }
+        A.compress();
+        return A;
+    }
+
+    @Test
+    public void analyze_nonSquare() {
+        assertNull(SymbolicLU.analyze(new SparseMatrix(2, 3)));
+    }
+
+    @Test
+    public void analyze_chainTree() {
+        SymbolicLU symbolic = SymbolicLU.analyze(chain(5, 1), ColumnOrdering.natural(5));
+        assertArrayEquals(new int[]{1, 2, 3, 4, -1}, symbolic.getEliminationTree());
+        assertArrayEquals(new int[]{2, 2, 2, 2, 1}, symbolic.getColumnCounts());
+        assertEquals(13, symbolic.getFactorEstimate());
+    }
+
+    @Test
+    public void matches_samePatternDifferentValues() {
+        SymbolicLU symbolic = SymbolicLU.analyze(chain(4, 1));
+        assertTrue(symbolic.matches(chain(4, 3)));
+        assertFalse(symbolic.matches(chain(5, 1)));
+    }
+
+    @Test
+    public void factor_reusesRecordedPattern() {
+        SparseMatrix A = chain(6, 1);
+        SymbolicLU symbolic = SymbolicLU.analyze(A);
+        assertFalse(symbolic.hasPattern());
+
+        SparseLU first = SparseLU.factor(symbolic, A);
+        assertNotNull(first);
+        assertTrue(symbolic.hasPattern());
+
+        SparseMatrix B = chain(6, 2);
+        SparseLU second = SparseLU.factor(symbolic, B);
+        double[] b = {1, 0, 0, 0, 0, 1};
+        double[] x = second.solve(b);
+        double[] r = B.multiply(x);
+        assertArrayEquals(b, r, 1E-12);
+        assertArrayEquals(first.getRowPermutation(), second.getRowPermutation());
+    }
+
+    @Test
+    public void factor_patternMismatch() {
+        SymbolicLU symbolic = SymbolicLU.analyze(chain(4, 1));
+        assertNull(SparseLU.factor(symbolic, chain(5, 1)));
+    }
+}
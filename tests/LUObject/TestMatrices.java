@@ -0,0 +1,72 @@
+package LUObject;
+
+import java.util.Random;
+
+/**
+ * This class builds the matrices and vectors the solver tests share: the MNA matrix of a side by side resistor grid,
+ * voltage sources stamped on top of it and random right hand sides.
+ */
+class TestMatrices {
+
+    private TestMatrices() {
+    }
+
+    /**
+     * Stamps a side by side grid of random resistors into the first side * side rows and columns of A. Node v is row
+     * r * side + c and is connected to its right and lower neighbors.
+     *
+     * @param A         uncompressed matrix with at least side * side rows and columns.
+     * @param side      nodes on each side of the grid.
+     * @param leak      conductance from every node to ground, 0 for none.
+     * @param decades   decades the conductances are spread over around 1, 0 for conductances between 0.5 and 1.5.
+     * @param seed      seed of the random conductances.
+     */
+    static void grid(SparseMatrix A, int side, double leak, int decades, long seed) {
+        Random random = new Random(seed);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = r * side + c;
+                if (leak != 0) {
+                    A.add(v, v, leak);
+                }
+                int[] neighbors = {c + 1 < side ? v + 1 : -1, r + 1 < side ? v + side : -1};
+                for (int w : neighbors) {
+                    if (w != -1) {
+                        double g = decades == 0 ? 0.5 + random.nextDouble()
+                                : Math.pow(10, decades * (random.nextDouble() - 0.5));
+                        A.add(v, v, g);
+                        A.add(w, w, g);
+                        A.add(v, w, -g);
+                        A.add(w, v, -g);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stamps a voltage source from positive to negative with its branch current in row and column branch.
+     *
+     * @param negative  negative node, -1 for ground.
+     */
+    static void voltageSource(SparseMatrix A, int positive, int negative, int branch) {
+        A.add(positive, branch, 1);
+        A.add(branch, positive, 1);
+        if (negative != -1) {
+            A.add(negative, branch, -1);
+            A.add(branch, negative, -1);
+        }
+    }
+
+    /**
+     * Returns a vector of n random entries between -0.5 and 0.5.
+     */
+    static double[] vector(int n, long seed) {
+        Random random = new Random(seed);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = random.nextDouble() - 0.5;
+        }
+        return b;
+    }
+}